@@ -0,0 +1,161 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.Random;
+
+/**
+ * MSU CSE
+ * <p>
+ * Inputs shared by the benchmarks. Every corpus is generated from a fixed seed, so runs on
+ * different machines and commits measure the same card numbers.
+ */
+final class BenchmarkCorpus {
+
+    /**
+     * Corpus size, a power of two so benchmarks can cycle through it with a mask.
+     */
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    static final long SEED = 0x5EED_C5EL;
+
+    /**
+     * 2048 bit RSA key generated for the benchmarks only, the private half was discarded.
+     */
+    static final String PUBLIC_KEY = "MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAnEjNe0Z49kdh6sr6XvhoIhkIuH7CjYv19Xd7+9+KMemCgRBooHpPlPWR68NOItOpvjs7p6Tl6h4+hYz37LG6UDB03D5qOJZTLjSM/Sy2n6OH2zP4K/Gec52jUUPcbIrsfqslbznq9aWmDqF114wV6jMzTlRg7V9N12ncUjSEZqEMPeQ0888krTduYc6fPOb7JHZqAD3lHi2zM0XG3EbDW+3RIAoeJ8cXxuo7WCz0dZPD24d983Dw3lEAKOEw9V6O7GFJrGlMnpI+TB7bTRsifspjNFe/vl8uALO31kqMTExIJyOUn85u6I1NdOyMaF/607Qe/jz4Q/S0PgThm/alPQIDAQAB";
+
+    private static final String[] HOLDER_NAMES = {
+            "Jasmin Suljic", "Ana Marić", "John Smith", "Đorđe Petrović", "Mary-Jane O'Neil", "Lars Ørsted"
+    };
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * @return {@link #SIZE} Luhn valid card numbers typical for brand, {@link CardBrand#UNKNOWN}
+     * gives numbers no rule matches
+     */
+    static String[] pans(CardBrand brand) {
+        final Random random = new Random(SEED ^ brand.ordinal());
+        final String[] prefixes = prefixes(brand);
+        final String[] pans = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            pans[i] = pan(random, prefixes[random.nextInt(prefixes.length)], length(brand));
+        }
+        return pans;
+    }
+
+    /**
+     * @return {@link #SIZE} card numbers across all brands, every second one fails the Luhn check
+     */
+    static String[] mixedPans() {
+        final Random random = new Random(SEED);
+        final CardBrand[] brands = CardBrand.values();
+        final String[] pans = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            final CardBrand brand = brands[random.nextInt(brands.length)];
+            final String[] prefixes = prefixes(brand);
+            final String pan = pan(random, prefixes[random.nextInt(prefixes.length)], length(brand));
+            pans[i] = i % 2 == 0 ? pan : breakLuhn(pan);
+        }
+        return pans;
+    }
+
+    /**
+     * @return {@link #SIZE} card requests that pass validation
+     */
+    static CardEncryptRequest[] cards() {
+        final Random random = new Random(SEED);
+        final CardBrand[] brands = {CardBrand.VISA, CardBrand.MASTERCARD, CardBrand.AMERICAN_EXPRESS, CardBrand.DINACARD};
+        final CardEncryptRequest[] cards = new CardEncryptRequest[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            final CardBrand brand = brands[random.nextInt(brands.length)];
+            final String[] prefixes = prefixes(brand);
+            cards[i] = new CardEncryptRequest(
+                    pan(random, prefixes[random.nextInt(prefixes.length)], length(brand)),
+                    2030 + random.nextInt(10),
+                    1 + random.nextInt(12),
+                    HOLDER_NAMES[random.nextInt(HOLDER_NAMES.length)],
+                    brand == CardBrand.AMERICAN_EXPRESS ? digits(random, 4) : digits(random, 3),
+                    digits(random, 16)
+            );
+        }
+        return cards;
+    }
+
+    private static String[] prefixes(CardBrand brand) {
+        switch (brand) {
+            case VISA:
+                return new String[]{"4"};
+            case MASTERCARD:
+                return new String[]{"51", "52", "53", "54", "55"};
+            case AMERICAN_EXPRESS:
+                return new String[]{"34", "37"};
+            case DINERS_CLUB:
+                return new String[]{"300", "305", "36", "38"};
+            case DISCOVER:
+                return new String[]{"6011", "65", "644"};
+            case JCB:
+                return new String[]{"3528", "3589"};
+            case TROY:
+                return new String[]{"97920"};
+            case DINACARD:
+                return new String[]{"989100", "989130", "989180"};
+            case UNION_PAY:
+                return new String[]{"62", "81"};
+            case MAESTRO:
+                return new String[]{"5018", "6020", "67"};
+            default:
+                return new String[]{"1", "2", "7"};
+        }
+    }
+
+    private static int length(CardBrand brand) {
+        switch (brand) {
+            case AMERICAN_EXPRESS:
+                return 15;
+            case DINERS_CLUB:
+                return 14;
+            default:
+                return 16;
+        }
+    }
+
+    private static String pan(Random random, String prefix, int length) {
+        final char[] pan = new char[length];
+        prefix.getChars(0, prefix.length(), pan, 0);
+        for (int i = prefix.length(); i < length - 1; i++) {
+            pan[i] = (char) ('0' + random.nextInt(10));
+        }
+        pan[length - 1] = '0';
+        pan[length - 1] = (char) ('0' + (10 - luhnSum(pan) % 10) % 10);
+        return new String(pan);
+    }
+
+    private static int luhnSum(char[] pan) {
+        int sum = 0;
+        for (int i = pan.length - 1, position = 0; i >= 0; i--, position++) {
+            int digit = pan[i] - '0';
+            if (position % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum;
+    }
+
+    private static String breakLuhn(String pan) {
+        final char last = pan.charAt(pan.length() - 1);
+        return pan.substring(0, pan.length() - 1) + (char) ('0' + (last - '0' + 1) % 10);
+    }
+
+    private static String digits(Random random, int count) {
+        final char[] digits = new char[count];
+        for (int i = 0; i < count; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,79 @@
+package com.rnturbomodulemsucsev3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MSU CSE
+ * <p>
+ * Brand detection and issuer lookup with an installed {@link BinDatabase} of evenly spread ranges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinDatabaseBenchmark {
+
+    private static final CardBrand[] BRANDS = {CardBrand.VISA, CardBrand.MASTERCARD, CardBrand.UNION_PAY, CardBrand.MAESTRO};
+
+    @Param({"1000", "100000"})
+    public int ranges;
+
+    private File file;
+    private BinDatabase database;
+    private String[] pans;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Random random = new Random(BenchmarkCorpus.SEED);
+        final BinDatabase.Builder builder = BinDatabase.builder(1);
+        final int step = 90_000_000 / ranges;
+        for (int i = 0; i < ranges; i++) {
+            final int low = 10_000_000 + i * step;
+            builder.add(String.valueOf(low), String.valueOf(low + random.nextInt(step)),
+                    BRANDS[random.nextInt(BRANDS.length)], BinInfo.CardType.CREDIT, "RS", "Issuer " + i % 100);
+        }
+        file = File.createTempFile("bins", ".bin");
+        try (OutputStream output = new FileOutputStream(file)) {
+            builder.writeTo(output);
+        }
+        database = BinDatabase.open(file);
+        BinDatabase.install(database);
+        pans = BenchmarkCorpus.mixedPans();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BinDatabase.install(null);
+        file.delete();
+    }
+
+    private String nextPan() {
+        return pans[index++ & BenchmarkCorpus.MASK];
+    }
+
+    @Benchmark
+    public CardBrand detectBrand() {
+        return CardUtils.detectBrand(nextPan());
+    }
+
+    @Benchmark
+    public BinInfo lookup() {
+        return database.lookup(nextPan());
+    }
+}
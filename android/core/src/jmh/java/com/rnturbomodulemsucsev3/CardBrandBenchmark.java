@@ -0,0 +1,49 @@
+package com.rnturbomodulemsucsev3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MSU CSE
+ * <p>
+ * Brand detection for card numbers of every {@link CardBrand}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CardBrandBenchmark {
+
+    @Param({"VISA", "MASTERCARD", "AMERICAN_EXPRESS", "DINERS_CLUB", "DISCOVER", "JCB", "TROY", "DINACARD",
+            "UNION_PAY", "UNKNOWN", "MAESTRO"})
+    public CardBrand brand;
+
+    private String[] pans;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        pans = BenchmarkCorpus.pans(brand);
+    }
+
+    private String nextPan() {
+        return pans[index++ & BenchmarkCorpus.MASK];
+    }
+
+    @Benchmark
+    public CardBrand getCardBrand() {
+        return CardUtils.getCardBrand(nextPan());
+    }
+
+    @Benchmark
+    public CardBrand detectBrand() {
+        return CardUtils.detectBrand(nextPan());
+    }
+}
@@ -0,0 +1,100 @@
+package com.rnturbomodulemsucsev3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+
+/**
+ * MSU CSE
+ * <p>
+ * Key parsing, cipher setup, payload building and end-to-end encryption with
+ * {@link BenchmarkCorpus#PUBLIC_KEY}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncryptionBenchmark {
+
+    private CardEncryptRequest[] cards;
+    private PublicKey publicKey;
+    private CachedPublicKey cachedPublicKey;
+    private Envelope envelope;
+    // recording stays enabled, as in the library
+    private final CSEMetrics metrics = new CSEMetrics();
+    private int index;
+
+    @Setup
+    public void setUp() {
+        cards = BenchmarkCorpus.cards();
+        publicKey = RSAEncryption.getKey(BenchmarkCorpus.PUBLIC_KEY);
+        cachedPublicKey = CachedPublicKey.parse(BenchmarkCorpus.PUBLIC_KEY, 0);
+        try {
+            envelope = Envelope.create(cachedPublicKey, metrics);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public PublicKey parseKey() {
+        return RSAEncryption.getKey(BenchmarkCorpus.PUBLIC_KEY);
+    }
+
+    @Benchmark
+    public Cipher cipherSetup() throws Exception {
+        return RSAEncryption.getEncryptionCipher(publicKey);
+    }
+
+    @Benchmark
+    public int writePlain() {
+        final PayloadWriter writer = PayloadWriter.get();
+        try {
+            cards[index++ & BenchmarkCorpus.MASK].writePlain(writer);
+            return writer.length();
+        } finally {
+            writer.clear();
+        }
+    }
+
+    /**
+     * Steady state encryption, the calling thread's cipher for the key is reused.
+     */
+    @Benchmark
+    public String encrypt() throws Exception {
+        return RSAEncryption.encrypt(cachedPublicKey, cards[index++ & BenchmarkCorpus.MASK], metrics);
+    }
+
+    /**
+     * Single encryption in envelope mode, one key wrap and one AES-GCM seal.
+     */
+    @Benchmark
+    public String encryptEnvelope() throws Exception {
+        return Envelope.create(cachedPublicKey, metrics).seal(cards[index++ & BenchmarkCorpus.MASK], metrics);
+    }
+
+    /**
+     * Per item cost of a batch in envelope mode, the AES key is wrapped once for the batch.
+     */
+    @Benchmark
+    public String sealEnvelope() throws Exception {
+        return envelope.seal(cards[index++ & BenchmarkCorpus.MASK], metrics);
+    }
+
+    /**
+     * First encryption after the key was fetched, including key parsing and cipher setup.
+     */
+    @Benchmark
+    public String encryptColdKey() throws Exception {
+        return RSAEncryption.encrypt(CachedPublicKey.parse(BenchmarkCorpus.PUBLIC_KEY, 0), cards[index++ & BenchmarkCorpus.MASK], metrics);
+    }
+}
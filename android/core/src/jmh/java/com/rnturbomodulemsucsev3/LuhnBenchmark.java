@@ -0,0 +1,44 @@
+package com.rnturbomodulemsucsev3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MSU CSE
+ * <p>
+ * Luhn and full PAN checks over card numbers of all brands, half of them with a wrong check digit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LuhnBenchmark {
+
+    private String[] pans;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        pans = BenchmarkCorpus.mixedPans();
+    }
+
+    private String nextPan() {
+        return pans[index++ & BenchmarkCorpus.MASK];
+    }
+
+    @Benchmark
+    public boolean isValidLuhnNumber() {
+        return CardUtils.isValidLuhnNumber(nextPan());
+    }
+
+    @Benchmark
+    public boolean isValidPan() {
+        return CardUtils.isValidPan(nextPan());
+    }
+}
@@ -0,0 +1,49 @@
+package com.rnturbomodulemsucsev3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MSU CSE
+ * <p>
+ * Validation of whole card requests, as done before every encryption.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidationBenchmark {
+
+    // read per validation, like CSECore does
+    private final ExpiryClock clock = ExpiryClock.system();
+    private CardEncryptRequest[] cards;
+    private int maxPlainBytes;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        cards = BenchmarkCorpus.cards();
+        maxPlainBytes = RSAEncryption.maxPlainBytes(RSAEncryption.getKey(BenchmarkCorpus.PUBLIC_KEY));
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return cards[index++ & BenchmarkCorpus.MASK].validate(clock.currentYearMonth(), maxPlainBytes);
+    }
+
+    @Benchmark
+    public CardValidationResult validateCard() {
+        return cards[index++ & BenchmarkCorpus.MASK].validateCard(clock.currentYearMonth(), maxPlainBytes);
+    }
+
+    @Benchmark
+    public boolean isValidExpiry() {
+        return CardUtils.isValidExpiry(clock.currentYearMonth(), 12, 30);
+    }
+}
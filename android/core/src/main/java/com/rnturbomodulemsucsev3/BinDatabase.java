@@ -0,0 +1,506 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MSU CSE
+ * <p>
+ * BIN ranges with issuer details, read from a compact binary file that is memory-mapped instead of
+ * loaded onto the heap. Ranges are sorted and don't overlap, so a lookup is a binary search over
+ * fixed size records and resolving a brand allocates nothing.
+ * <p>
+ * Once {@link #install(BinDatabase) installed}, every brand detection, validation and
+ * {@link PanInputState} prefers the brand of the range a card number falls into and falls back to the
+ * built-in rules outside of all ranges. Installing another dataset swaps it atomically, lookups
+ * already running finish on the previous one. The file must not change while it is mapped, write a
+ * new version to a new file instead.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header   magic "MSUB", format version (u16), record size (u16), dataset version (i32), range count (i32)
+ * ranges   low (i32), high (i32), brand (u8), card type (u8), country (2 ASCII bytes), issuer (i32)
+ * strings  UTF-8 length (u16) and bytes of every issuer, a range refers to one by its offset here
+ * </pre>
+ * Bounds are the first {@link #BIN_DIGITS} digits of a card number, both inclusive. {@link Builder}
+ * writes such files.
+ */
+public final class BinDatabase {
+
+    /**
+     * Leading digits of a card number compared against the ranges, shorter numbers are padded with 0.
+     */
+    public static final int BIN_DIGITS = 8;
+
+    // shorter prefixes can't tell ranges apart, the built-in rules handle them
+    private static final int MIN_DIGITS = BinTable.BIN_LENGTH;
+
+    private static final int MAGIC = 0x4D535542;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RANGE_BYTES = 16;
+    private static final int NO_ISSUER = -1;
+    private static final int NOT_FOUND = -1;
+    // ranges looked at to tell which brands can follow a prefix, bounds the work per keystroke
+    private static final int MAX_SCANNED_RANGES = 64;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+
+    /**
+     * Brand codes of the file format, the index is the code. Append only, files outlive releases.
+     * {@link CardBrand#UNKNOWN} keeps the brand of the built-in rules and only adds issuer details.
+     */
+    private static final CardBrand[] BRAND_CODES = {
+            CardBrand.UNKNOWN,
+            CardBrand.VISA,
+            CardBrand.MASTERCARD,
+            CardBrand.AMERICAN_EXPRESS,
+            CardBrand.DINERS_CLUB,
+            CardBrand.DISCOVER,
+            CardBrand.JCB,
+            CardBrand.TROY,
+            CardBrand.DINACARD,
+            CardBrand.UNION_PAY,
+            CardBrand.MAESTRO
+    };
+
+    /**
+     * Card type codes of the file format, append only like {@link #BRAND_CODES}.
+     */
+    private static final BinInfo.CardType[] CARD_TYPE_CODES = {
+            BinInfo.CardType.UNKNOWN,
+            BinInfo.CardType.CREDIT,
+            BinInfo.CardType.DEBIT,
+            BinInfo.CardType.PREPAID
+    };
+
+    private static final AtomicReference<BinDatabase> INSTALLED = new AtomicReference<>();
+
+    // absolute reads only, they don't touch the position so concurrent lookups are safe
+    private final ByteBuffer data;
+    private final int version;
+    private final int size;
+    private final int strings;
+    private final int brands;
+
+    private BinDatabase(ByteBuffer data) throws IOException {
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a BIN database");
+        }
+        final int format = data.getShort(4) & 0xFFFF;
+        if (format != FORMAT_VERSION || (data.getShort(6) & 0xFFFF) != RANGE_BYTES) {
+            throw new IOException("Unsupported BIN database format " + format);
+        }
+        this.data = data;
+        this.version = data.getInt(8);
+        this.size = data.getInt(12);
+        if (size < 0 || HEADER_BYTES + (long) size * RANGE_BYTES > data.limit()) {
+            throw new IOException("BIN database is truncated");
+        }
+        this.strings = HEADER_BYTES + size * RANGE_BYTES;
+
+        // checked once here so that lookups can trust every range
+        int brands = 0;
+        long previousHigh = -1;
+        for (int i = 0; i < size; i++) {
+            final int range = HEADER_BYTES + i * RANGE_BYTES;
+            final int low = data.getInt(range);
+            final int high = data.getInt(range + 4);
+            if (low <= previousHigh || high < low || high >= POWERS_OF_TEN[BIN_DIGITS]) {
+                throw new IOException("BIN range " + i + " is out of order or overlaps the previous one");
+            }
+            if ((data.get(range + 8) & 0xFF) >= BRAND_CODES.length || (data.get(range + 9) & 0xFF) >= CARD_TYPE_CODES.length) {
+                throw new IOException("BIN range " + i + " has an unknown brand or card type");
+            }
+            final int issuer = data.getInt(range + 12);
+            if (issuer != NO_ISSUER && (issuer < 0 || (long) strings + issuer + 2 > data.limit()
+                    || (long) strings + issuer + 2 + (data.getShort(strings + issuer) & 0xFFFF) > data.limit())) {
+                throw new IOException("BIN range " + i + " refers to a missing issuer");
+            }
+            brands |= 1 << brandAt(range).ordinal();
+            previousHigh = high;
+        }
+        this.brands = brands & ~(1 << CardBrand.UNKNOWN.ordinal());
+    }
+
+    /**
+     * Maps file into memory and checks its ranges, the file is not read onto the heap.
+     *
+     * @throws IOException if the file can't be read or is not a valid BIN database
+     */
+    @NonNull
+    public static BinDatabase open(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("BIN database is larger than 2 GB");
+            }
+            // the mapping stays valid after the channel is closed
+            return new BinDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Makes database the one every brand detection uses, {@code null} goes back to the built-in rules.
+     *
+     * @return the database installed before, released once no lookup uses it anymore
+     */
+    @Nullable
+    public static BinDatabase install(@Nullable BinDatabase database) {
+        return INSTALLED.getAndSet(database);
+    }
+
+    @Nullable
+    public static BinDatabase installed() {
+        return INSTALLED.get();
+    }
+
+    public static Builder builder(int version) {
+        return new Builder(version);
+    }
+
+    /**
+     * @return version of the dataset, as given to {@link #builder(int)}
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return number of BIN ranges
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param pan card number, characters other than digits are skipped
+     * @return details of the range holding the card number, {@code null} if it has fewer than six
+     * digits or no range holds it
+     */
+    @Nullable
+    public BinInfo lookup(@Nullable CharSequence pan) {
+        if (pan == null) {
+            return null;
+        }
+        final char[] digits = new char[BIN_DIGITS];
+        int count = 0;
+        int bin = 0;
+        for (int i = 0; i < pan.length() && count < BIN_DIGITS; i++) {
+            final char c = pan.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c;
+                bin = bin * 10 + c - '0';
+            }
+        }
+        if (count < MIN_DIGITS) {
+            return null;
+        }
+
+        final int range = find(bin * POWERS_OF_TEN[BIN_DIGITS - count]);
+        if (range == NOT_FOUND) {
+            return null;
+        }
+        final CardBrand brand = brandAt(range);
+        return new BinInfo(
+                brand == CardBrand.UNKNOWN ? BinTable.lookup(new String(digits, 0, count)) : brand,
+                CARD_TYPE_CODES[data.get(range + 9) & 0xFF],
+                countryAt(range),
+                issuerAt(range)
+        );
+    }
+
+    /**
+     * @param fallback brand of the built-in rules
+     * @param bin      leading digits of a card number
+     * @param digits   number of digits in bin, at most {@link #BIN_DIGITS}
+     * @return brand of the installed range holding bin, fallback if there is none
+     */
+    static CardBrand resolve(CardBrand fallback, int bin, int digits) {
+        final BinDatabase database = INSTALLED.get();
+        if (database == null || digits < MIN_DIGITS) {
+            return fallback;
+        }
+        final int range = database.find(bin * POWERS_OF_TEN[BIN_DIGITS - digits]);
+        if (range == NOT_FOUND) {
+            return fallback;
+        }
+        final CardBrand brand = database.brandAt(range);
+        return brand == CardBrand.UNKNOWN ? fallback : brand;
+    }
+
+    /**
+     * Like {@link #resolve(CardBrand, int, int)} for the digits pan starts with, as
+     * {@link BinTable#lookup(CharSequence)} reads them.
+     */
+    static CardBrand resolve(CardBrand fallback, @Nullable CharSequence pan) {
+        if (pan == null || INSTALLED.get() == null) {
+            return fallback;
+        }
+        int bin = 0;
+        int digits = 0;
+        while (digits < pan.length() && digits < BIN_DIGITS) {
+            final char c = pan.charAt(digits);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            bin = bin * 10 + c - '0';
+            digits++;
+        }
+        return resolve(fallback, bin, digits);
+    }
+
+    /**
+     * @param builtIn brands the built-in rules reach from bin, as a bit mask of
+     *                {@code 1 << CardBrand.ordinal()}
+     * @param bin     leading digits of a card number
+     * @param digits  number of digits in bin, fewer than {@link #BIN_DIGITS}
+     * @return brands of card numbers starting with bin as the same kind of bit mask, builtIn without
+     * a database or where its ranges leave BINs to the built-in rules
+     */
+    static int reachableBrands(int builtIn, int bin, int digits) {
+        final BinDatabase database = INSTALLED.get();
+        if (database == null) {
+            return builtIn;
+        }
+        final int scale = POWERS_OF_TEN[BIN_DIGITS - digits];
+        return database.brandsBetween(builtIn, bin * scale, bin * scale + scale - 1);
+    }
+
+    private int brandsBetween(int builtIn, int low, int high) {
+        int brands = 0;
+        // highest BIN from low on that every range so far gives a brand of its own
+        int covered = low - 1;
+        int scanned = 0;
+        for (int i = firstEndingAtOrAfter(low); i < size; i++) {
+            final int range = HEADER_BYTES + i * RANGE_BYTES;
+            if (data.getInt(range) > high) {
+                break;
+            }
+            if (++scanned > MAX_SCANNED_RANGES) {
+                // a short prefix spanning many ranges, any brand of the database may follow
+                return builtIn | this.brands;
+            }
+            final CardBrand brand = brandAt(range);
+            if (brand != CardBrand.UNKNOWN) {
+                brands |= 1 << brand.ordinal();
+                if (data.getInt(range) <= covered + 1) {
+                    covered = data.getInt(range + 4);
+                }
+            }
+        }
+        return covered >= high ? brands : brands | builtIn;
+    }
+
+    /**
+     * @return index of the first range whose high bound is at least bin, {@link #size} if there is none
+     */
+    private int firstEndingAtOrAfter(int bin) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (data.getInt(HEADER_BYTES + middle * RANGE_BYTES + 4) < bin) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return offset of the range holding bin, {@link #NOT_FOUND} if there is none
+     */
+    private int find(int bin) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int range = HEADER_BYTES + middle * RANGE_BYTES;
+            if (bin < data.getInt(range)) {
+                high = middle - 1;
+            } else if (bin > data.getInt(range + 4)) {
+                low = middle + 1;
+            } else {
+                return range;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private CardBrand brandAt(int range) {
+        return BRAND_CODES[data.get(range + 8) & 0xFF];
+    }
+
+    @Nullable
+    private String countryAt(int range) {
+        final char first = (char) data.get(range + 10);
+        final char second = (char) data.get(range + 11);
+        return first == 0 ? null : new String(new char[]{first, second});
+    }
+
+    @Nullable
+    private String issuerAt(int range) {
+        final int issuer = data.getInt(range + 12);
+        if (issuer == NO_ISSUER) {
+            return null;
+        }
+        final byte[] bytes = new byte[data.getShort(strings + issuer) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(strings + issuer + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects BIN ranges and writes them in the file format {@link BinDatabase#open(File)} reads.
+     */
+    public static final class Builder {
+
+        private final int version;
+        private final List<Range> ranges = new ArrayList<>();
+
+        private Builder(int version) {
+            this.version = version;
+        }
+
+        /**
+         * Adds every BIN from lowPrefix to highPrefix, e.g. {@code "622126"} to {@code "622925"}.
+         * Prefixes have one to {@link #BIN_DIGITS} digits, the low one is padded with 0 and the high one
+         * with 9.
+         *
+         * @param brand    {@link CardBrand#UNKNOWN} keeps the brand of the built-in rules
+         * @param country  ISO 3166-1 alpha-2 code, {@code null} if unknown
+         * @param issuer   issuing bank name, {@code null} if unknown
+         */
+        public Builder add(String lowPrefix,
+                           String highPrefix,
+                           CardBrand brand,
+                           BinInfo.CardType cardType,
+                           @Nullable String country,
+                           @Nullable String issuer) {
+            final int low = bound(lowPrefix, 0);
+            final int high = bound(highPrefix, 9);
+            if (high < low) {
+                throw new IllegalArgumentException("BIN range " + lowPrefix + "-" + highPrefix + " is empty");
+            }
+            if (country != null && !(country.length() == 2 && isUpperCase(country.charAt(0)) && isUpperCase(country.charAt(1)))) {
+                throw new IllegalArgumentException("country must be an ISO 3166-1 alpha-2 code, was " + country);
+            }
+            if (issuer != null && issuer.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+                throw new IllegalArgumentException("issuer is longer than 65535 bytes");
+            }
+            ranges.add(new Range(low, high, code(BRAND_CODES, brand), code(CARD_TYPE_CODES, cardType), country, issuer));
+            return this;
+        }
+
+        /**
+         * Writes the ranges sorted by their low bound. Output is flushed but not closed.
+         *
+         * @throws IllegalStateException if two ranges overlap
+         */
+        public void writeTo(OutputStream output) throws IOException {
+            final List<Range> sorted = new ArrayList<>(ranges);
+            Collections.sort(sorted, (a, b) -> Integer.compare(a.low, b.low));
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i).low <= sorted.get(i - 1).high) {
+                    throw new IllegalStateException("BIN ranges starting at " + sorted.get(i - 1).low + " and "
+                            + sorted.get(i).low + " overlap");
+                }
+            }
+
+            // every issuer is stored once, however many ranges it has
+            final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+            final DataOutputStream stringsOut = new DataOutputStream(strings);
+            final Map<String, Integer> offsets = new HashMap<>();
+
+            final DataOutputStream out = new DataOutputStream(output);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeShort(RANGE_BYTES);
+            out.writeInt(version);
+            out.writeInt(sorted.size());
+            for (Range range : sorted) {
+                out.writeInt(range.low);
+                out.writeInt(range.high);
+                out.writeByte(range.brand);
+                out.writeByte(range.cardType);
+                out.writeByte(range.country == null ? 0 : range.country.charAt(0));
+                out.writeByte(range.country == null ? 0 : range.country.charAt(1));
+                if (range.issuer == null) {
+                    out.writeInt(NO_ISSUER);
+                } else {
+                    Integer offset = offsets.get(range.issuer);
+                    if (offset == null) {
+                        offset = strings.size();
+                        offsets.put(range.issuer, offset);
+                        final byte[] bytes = range.issuer.getBytes(StandardCharsets.UTF_8);
+                        stringsOut.writeShort(bytes.length);
+                        stringsOut.write(bytes);
+                    }
+                    out.writeInt(offset);
+                }
+            }
+            strings.writeTo(out);
+            out.flush();
+        }
+
+        private static int bound(String prefix, int padding) {
+            if (prefix == null || prefix.isEmpty() || prefix.length() > BIN_DIGITS || !CardUtils.isDigitsOnly(prefix)) {
+                throw new IllegalArgumentException("BIN prefix must have 1 to " + BIN_DIGITS + " digits, was " + prefix);
+            }
+            final int scale = POWERS_OF_TEN[BIN_DIGITS - prefix.length()];
+            return Integer.parseInt(prefix) * scale + padding * (scale - 1) / 9;
+        }
+
+        private static boolean isUpperCase(char c) {
+            return c >= 'A' && c <= 'Z';
+        }
+
+        private static <T> int code(T[] codes, T value) {
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] == value) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("No code for " + value);
+        }
+    }
+
+    private static final class Range {
+
+        final int low;
+        final int high;
+        final int brand;
+        final int cardType;
+        @Nullable
+        final String country;
+        @Nullable
+        final String issuer;
+
+        Range(int low, int high, int brand, int cardType, @Nullable String country, @Nullable String issuer) {
+            this.low = low;
+            this.high = high;
+            this.brand = brand;
+            this.cardType = cardType;
+            this.country = country;
+            this.issuer = issuer;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * Issuer details of the BIN range a card number falls into, see {@link BinDatabase#lookup(CharSequence)}.
+ */
+public final class BinInfo {
+
+    public enum CardType {
+        UNKNOWN,
+        CREDIT,
+        DEBIT,
+        PREPAID
+    }
+
+    private final CardBrand brand;
+    private final CardType cardType;
+    @Nullable
+    private final String country;
+    @Nullable
+    private final String issuer;
+
+    BinInfo(CardBrand brand, CardType cardType, @Nullable String country, @Nullable String issuer) {
+        this.brand = brand;
+        this.cardType = cardType;
+        this.country = country;
+        this.issuer = issuer;
+    }
+
+    @NonNull
+    public CardBrand getBrand() {
+        return brand;
+    }
+
+    @NonNull
+    public CardType getCardType() {
+        return cardType;
+    }
+
+    /**
+     * @return ISO 3166-1 alpha-2 country code of the issuer, {@code null} if the dataset doesn't say
+     */
+    @Nullable
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * @return issuing bank name, {@code null} if the dataset doesn't say
+     */
+    @Nullable
+    public String getIssuer() {
+        return issuer;
+    }
+}
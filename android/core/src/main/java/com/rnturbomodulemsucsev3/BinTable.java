@@ -0,0 +1,281 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MSU CSE
+ * <p>
+ * Brand detection rules compiled once into a digit trie backed by primitive arrays.
+ * A lookup walks at most {@link #BIN_LENGTH} characters and allocates nothing.
+ */
+final class BinTable {
+
+    static final int BIN_LENGTH = 6;
+
+    static final int ROOT = 0;
+    // the root is never a child, so its index doubles as the missing child marker
+    static final int NO_NODE = 0;
+    static final int NO_MATCHES = 0;
+
+    private static final int NO_RULE = -1;
+
+    /**
+     * Brands in precedence order, a lower index wins when several rules match the same BIN.
+     */
+    private static final CardBrand[] PRECEDENCE = {
+            CardBrand.VISA,
+            CardBrand.MAESTRO,
+            CardBrand.MASTERCARD,
+            CardBrand.AMERICAN_EXPRESS,
+            CardBrand.DINERS_CLUB,
+            CardBrand.DISCOVER,
+            CardBrand.JCB,
+            CardBrand.TROY,
+            CardBrand.DINACARD
+    };
+
+    /**
+     * Prefix rules per brand, indexed like {@link #PRECEDENCE}. Each rule is a sequence of digits
+     * and {@code [a-b]} digit ranges.
+     */
+    private static final String[][] RULES = {
+            {"4"},
+            {"56", "58", "67", "502", "503", "506", "639", "5018", "6020"},
+            {"5[1-5]"},
+            {"34", "37"},
+            {"30[0-5]", "309", "36", "38", "39"},
+            {"6011", "65", "6221[2-9][6-9]", "622[2-8][0-9][0-9]", "6229[0-1][0-9]", "62292[0-5]", "64[4-9]"},
+            {"352[8-9]", "35[3-8][0-9]"},
+            {"9792[0-9]"},
+            {"98910[0-4]", "98910[6-7]", "989109", "98911[1-5]", "98911[7-9]", "98912[1-5]", "989127",
+                    "989129", "989130", "989131", "989135", "989136", "98914[0-4]", "989146", "989149",
+                    "98915[0-3]", "98915[5-9]", "98916[0-1]", "98916[4-9]", "989170", "98917[3-8]", "989180",
+                    "98918[6-9]"}
+    };
+
+    /**
+     * Maestro prefixes are plain {@code startsWith} checks, every other brand additionally requires
+     * the rest of the BIN to be digits.
+     */
+    private static final int PREFIX_ONLY_RULE = 1;
+
+    // node * 10 + digit -> child node, NO_NODE when absent
+    private static final int[] NEXT;
+    // rule index (into PRECEDENCE) terminating at a node, NO_RULE when none
+    private static final byte[] TERMINAL;
+    // brands a BIN passing through a node can still resolve to, 1 << CardBrand.ordinal() each
+    private static final int[] REACHABLE;
+
+    static {
+        List<int[]> next = new ArrayList<>();
+        List<Byte> terminal = new ArrayList<>();
+        next.add(emptyNode());
+        terminal.add((byte) NO_RULE);
+
+        for (int rule = 0; rule < RULES.length; rule++) {
+            for (String pattern : RULES[rule]) {
+                insert(next, terminal, expand(pattern), rule);
+            }
+        }
+
+        NEXT = new int[next.size() * 10];
+        TERMINAL = new byte[terminal.size()];
+        for (int node = 0; node < next.size(); node++) {
+            System.arraycopy(next.get(node), 0, NEXT, node * 10, 10);
+            TERMINAL[node] = terminal.get(node);
+        }
+
+        REACHABLE = new int[terminal.size()];
+        reach(ROOT, 0, NO_MATCHES);
+    }
+
+    private BinTable() {
+    }
+
+    /**
+     * Resolves the brand of a PAN, only the first {@link #BIN_LENGTH} characters are inspected.
+     *
+     * @param pan card number, expected without spaces
+     * @return detected brand, {@link CardBrand#UNKNOWN} if no rule matches
+     */
+    @NonNull
+    static CardBrand lookup(@Nullable CharSequence pan) {
+        if (pan == null) {
+            return CardBrand.UNKNOWN;
+        }
+
+        final int binLength = Math.min(pan.length(), BIN_LENGTH);
+        int node = ROOT;
+        int depth = 0;
+        int matches = NO_MATCHES;
+
+        while (depth < binLength) {
+            final int digit = pan.charAt(depth) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            node = next(node, digit);
+            if (node == NO_NODE) {
+                break;
+            }
+            depth++;
+            matches = accept(matches, node);
+        }
+
+        return brand(matches, isDigits(pan, depth, binLength));
+    }
+
+    /**
+     * Steps for callers walking the trie themselves one digit at a time: start at {@link #ROOT},
+     * follow {@link #next(int, int)} until it returns {@link #NO_NODE} or the BIN is complete,
+     * folding every node reached into the matches with {@link #accept(int, int)}.
+     *
+     * @return child of {@code node} for {@code digit}, {@link #NO_NODE} if no rule continues that way
+     */
+    static int next(int node, int digit) {
+        return NEXT[node * 10 + digit];
+    }
+
+    /**
+     * @param matches matches collected so far, {@link #NO_MATCHES} at the root
+     * @param node    node just reached
+     * @return matches including the rule terminating at {@code node}, if any
+     */
+    static int accept(int matches, int node) {
+        final int rule = TERMINAL[node];
+        if (rule == NO_RULE) {
+            return matches;
+        }
+        if (rule == PREFIX_ONLY_RULE) {
+            return (matches & ~0xFF) | min(prefixMatch(matches), rule) + 1;
+        }
+        return (matches & 0xFF) | (min(digitMatch(matches), rule) + 1) << 8;
+    }
+
+    /**
+     * @param matches    matches collected while walking the BIN
+     * @param binIsDigits whether every character of the BIN, up to {@link #BIN_LENGTH}, is a digit
+     */
+    @NonNull
+    static CardBrand brand(int matches, boolean binIsDigits) {
+        final int rule = min(prefixMatch(matches), binIsDigits ? digitMatch(matches) : NO_RULE);
+        return rule == NO_RULE ? CardBrand.UNKNOWN : PRECEDENCE[rule];
+    }
+
+    /**
+     * @param node node reached after fewer than {@link #BIN_LENGTH} digits
+     * @return every brand, {@link CardBrand#UNKNOWN} included, that a complete BIN continuing from
+     * {@code node} resolves to, as a bit mask of {@code 1 << CardBrand.ordinal()}
+     */
+    static int reachableBrands(int node) {
+        return REACHABLE[node];
+    }
+
+    // matches pack the best prefix-only rule in the low byte and the best digit rule in the next,
+    // both stored + 1 so that 0 means no match
+    private static int prefixMatch(int matches) {
+        return (matches & 0xFF) - 1;
+    }
+
+    private static int digitMatch(int matches) {
+        return (matches >>> 8) - 1;
+    }
+
+    private static boolean isDigits(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int min(int a, int b) {
+        if (a == NO_RULE) {
+            return b;
+        }
+        if (b == NO_RULE) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+
+    private static int reach(int node, int depth, int matches) {
+        int brands = 0;
+        if (depth == BIN_LENGTH) {
+            brands = 1 << brand(matches, true).ordinal();
+        } else {
+            for (int digit = 0; digit < 10; digit++) {
+                final int child = next(node, digit);
+                brands |= child == NO_NODE
+                        ? 1 << brand(matches, true).ordinal()
+                        : reach(child, depth + 1, accept(matches, child));
+            }
+        }
+        REACHABLE[node] = brands;
+        return brands;
+    }
+
+    private static int[] emptyNode() {
+        int[] node = new int[10];
+        Arrays.fill(node, NO_NODE);
+        return node;
+    }
+
+    private static void insert(List<int[]> next, List<Byte> terminal, List<String> prefixes, int rule) {
+        for (String prefix : prefixes) {
+            int node = ROOT;
+            for (int i = 0; i < prefix.length(); i++) {
+                final int digit = prefix.charAt(i) - '0';
+                int child = next.get(node)[digit];
+                if (child == NO_NODE) {
+                    child = next.size();
+                    next.add(emptyNode());
+                    terminal.add((byte) NO_RULE);
+                    next.get(node)[digit] = child;
+                }
+                node = child;
+            }
+            if (terminal.get(node) == NO_RULE) {
+                terminal.set(node, (byte) rule);
+            }
+        }
+    }
+
+    /**
+     * Expands a rule like {@code 6221[2-9][6-9]} into every concrete digit prefix it describes.
+     */
+    private static List<String> expand(String pattern) {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add("");
+        int i = 0;
+        while (i < pattern.length()) {
+            final char from;
+            final char to;
+            if (pattern.charAt(i) == '[') {
+                from = pattern.charAt(i + 1);
+                to = pattern.charAt(i + 2) == '-' ? pattern.charAt(i + 3) : from;
+                i = pattern.indexOf(']', i) + 1;
+            } else {
+                from = pattern.charAt(i);
+                to = from;
+                i++;
+            }
+
+            List<String> expanded = new ArrayList<>();
+            for (String prefix : prefixes) {
+                for (char c = from; c <= to; c++) {
+                    expanded.add(prefix + c);
+                }
+            }
+            prefixes = expanded;
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,515 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * MSU CSE
+ * <p>
+ * Validates card records of a delimited text file with the rules {@link CSECore#validateCard}
+ * applies to PAN, expiry and CVV. The file is memory-mapped one window at a time, each window is
+ * split into chunks validated in parallel on a fork-join pool, and results are written in input order
+ * as soon as their chunk is done. Heap use depends on the window size, not on the file size.
+ * <p>
+ * Records are lines, fields are separated by the delimiter and not quoted. For every record one line
+ * {@code BRAND,valid,ERRORS} is written, e.g. {@code VISA,true,} or
+ * {@code UNKNOWN,false,PAN_INVALID|CVV_INVALID}, so line n of the output belongs to record n of the
+ * input. Card data is never written out.
+ * <p>
+ * Java offers no way to unmap a file, every window stays mapped until its buffer is garbage collected.
+ * The heap stays small, but a multi-GB input can take as much address space until the collector
+ * catches up, which a 32-bit process may not have. Split inputs of that size into smaller files.
+ */
+public final class BulkCardValidator {
+
+    /**
+     * Column index meaning the field is not in the file, its check is skipped.
+     */
+    public static final int NO_COLUMN = -1;
+
+    static final int DEFAULT_WINDOW_BYTES = 8 * 1024 * 1024;
+    private static final int CHUNK_BYTES = 256 * 1024;
+
+    private static final byte[][] BRANDS = brandNames();
+    private static final byte[] TRUE = ascii(",true,");
+    private static final byte[] FALSE = ascii(",false,");
+    private static final byte[] PAN_INVALID = ascii("PAN_INVALID");
+    private static final byte[] EXPIRY_INVALID = ascii("EXPIRY_INVALID");
+    private static final byte[] CVV_INVALID = ascii("CVV_INVALID");
+
+    private final byte delimiter;
+    private final int panColumn;
+    private final int expiryMonthColumn;
+    private final int expiryYearColumn;
+    private final int cvvColumn;
+    private final boolean skipHeader;
+    private final ForkJoinPool pool;
+    private final int windowBytes;
+    private final ExpiryClock clock;
+
+    private BulkCardValidator(Builder builder) {
+        this.delimiter = (byte) builder.delimiter;
+        this.panColumn = builder.panColumn;
+        this.expiryMonthColumn = builder.expiryMonthColumn;
+        this.expiryYearColumn = builder.expiryYearColumn;
+        this.cvvColumn = builder.cvvColumn;
+        this.skipHeader = builder.skipHeader;
+        this.pool = builder.pool != null ? builder.pool : ForkJoinPool.commonPool();
+        this.windowBytes = builder.windowBytes;
+        this.clock = builder.clock;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Validates every record of input and writes one result line per record to output. Output is
+     * neither flushed nor closed.
+     *
+     * @throws IOException if reading or writing fails, or a record is longer than the mapping window
+     */
+    @NonNull
+    public Summary validate(File input, OutputStream output) throws IOException {
+        final int currentYearMonth = clock.currentYearMonth();
+        long records = 0;
+        long valid = 0;
+
+        try (RandomAccessFile file = new RandomAccessFile(input, "r");
+             FileChannel channel = file.getChannel()) {
+            final long size = channel.size();
+            long position = 0;
+            boolean header = skipHeader;
+
+            while (position < size) {
+                final long remaining = size - position;
+                // unmapped once garbage collected, see the class documentation
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, remaining));
+                int end = window.limit();
+                if (end < remaining) {
+                    end = lineStartBefore(window, end);
+                    if (end == 0) {
+                        throw new IOException("Record at byte " + position + " is longer than " + windowBytes + " bytes");
+                    }
+                }
+
+                int start = 0;
+                if (header) {
+                    start = nextLineStart(window, 0, end);
+                    header = false;
+                }
+
+                // chunks of the window in input order, written as soon as the oldest one completes
+                final ArrayDeque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+                while (start < end) {
+                    final int chunkEnd = start + CHUNK_BYTES >= end ? end : lineStartBefore(window, start + CHUNK_BYTES);
+                    final int to = chunkEnd > start ? chunkEnd : nextLineStart(window, start + CHUNK_BYTES, end);
+                    pending.add(pool.submit(new Chunk(window, start, to, currentYearMonth)));
+                    start = to;
+                }
+                while (!pending.isEmpty()) {
+                    final Chunk chunk = pending.poll().join();
+                    output.write(chunk.out, 0, chunk.count);
+                    records += chunk.records;
+                    valid += chunk.valid;
+                }
+
+                position += end;
+            }
+        }
+        return new Summary(records, valid);
+    }
+
+    /**
+     * @return index after the last line break before end, 0 if there is none
+     */
+    private static int lineStartBefore(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return index after the first line break at or after from, end if there is none
+     */
+    private static int nextLineStart(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static byte[][] brandNames() {
+        final CardBrand[] brands = CardBrand.values();
+        final byte[][] names = new byte[brands.length][];
+        for (int i = 0; i < brands.length; i++) {
+            names[i] = ascii(brands[i].name());
+        }
+        return names;
+    }
+
+    private static byte[] ascii(String value) {
+        final byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Lines of one chunk and their results. Reads the shared window with absolute gets only.
+     */
+    private final class Chunk implements Callable<Chunk> {
+
+        private final ByteBuffer window;
+        private final int from;
+        private final int to;
+        private final int currentYearMonth;
+
+        private final int[] fieldStart = new int[4];
+        private final int[] fieldEnd = new int[4];
+        private char[] pan = new char[32];
+
+        byte[] out;
+        int count;
+        long records;
+        long valid;
+
+        Chunk(ByteBuffer window, int from, int to, int currentYearMonth) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+            this.currentYearMonth = currentYearMonth;
+        }
+
+        @Override
+        public Chunk call() {
+            // a result line is shorter than a typical record, the buffer grows if not
+            out = new byte[Math.max(64, (to - from) / 2)];
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && window.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                final int next = lineEnd + 1;
+                if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                validateRecord(lineStart, lineEnd);
+                lineStart = next;
+            }
+            return this;
+        }
+
+        private void validateRecord(int start, int end) {
+            split(start, end);
+
+            final PanAnalysis analysis = analyzePan();
+            final boolean panValid = analysis.isValid();
+            final boolean expiryValid = expiryMonthColumn == NO_COLUMN || isValidExpiry();
+            final boolean cvvValid = cvvColumn == NO_COLUMN || isValidCvv(analysis);
+
+            records++;
+            append(BRANDS[analysis.getBrand().ordinal()]);
+            if (panValid && expiryValid && cvvValid) {
+                valid++;
+                append(TRUE);
+            } else {
+                append(FALSE);
+                boolean first = true;
+                if (!panValid) {
+                    first = appendError(PAN_INVALID, first);
+                }
+                if (!expiryValid) {
+                    first = appendError(EXPIRY_INVALID, first);
+                }
+                if (!cvvValid) {
+                    appendError(CVV_INVALID, first);
+                }
+            }
+            ensureCapacity(1);
+            out[count++] = '\n';
+        }
+
+        /**
+         * Finds the fields of the record, slots are pan, expiry month, expiry year and cvv. A missing
+         * field is empty.
+         */
+        private void split(int start, int end) {
+            Arrays.fill(fieldStart, start);
+            Arrays.fill(fieldEnd, start);
+            int column = 0;
+            int fieldFrom = start;
+            for (int i = start; i <= end; i++) {
+                if (i == end || window.get(i) == delimiter) {
+                    final int slot = slot(column);
+                    if (slot >= 0) {
+                        fieldStart[slot] = fieldFrom;
+                        fieldEnd[slot] = i;
+                    }
+                    column++;
+                    fieldFrom = i + 1;
+                }
+            }
+        }
+
+        private int slot(int column) {
+            if (column == panColumn) {
+                return 0;
+            }
+            if (column == expiryMonthColumn) {
+                return 1;
+            }
+            if (column == expiryYearColumn) {
+                return 2;
+            }
+            if (column == cvvColumn) {
+                return 3;
+            }
+            return -1;
+        }
+
+        private PanAnalysis analyzePan() {
+            final int length = fieldEnd[0] - fieldStart[0];
+            if (pan.length < length) {
+                pan = new char[length];
+            }
+            for (int i = 0; i < length; i++) {
+                pan[i] = (char) (window.get(fieldStart[0] + i) & 0xFF);
+            }
+            return PanAnalysis.of(pan, 0, length);
+        }
+
+        private boolean isValidExpiry() {
+            final Integer month = parseInt(fieldStart[1], fieldEnd[1]);
+            final Integer year = parseInt(fieldStart[2], fieldEnd[2]);
+            return CardUtils.isValidExpiry(currentYearMonth, month, year);
+        }
+
+        /**
+         * {@link CardUtils#isValidCVV(String, String)} of the field with non-digits other than '.' removed,
+         * as {@link CardEncryptRequest} does.
+         */
+        private boolean isValidCvv(PanAnalysis analysis) {
+            int digits = 0;
+            for (int i = fieldStart[3]; i < fieldEnd[3]; i++) {
+                final byte b = window.get(i);
+                if (b == '.') {
+                    return false;
+                }
+                if (b >= '0' && b <= '9') {
+                    digits++;
+                }
+            }
+            if (digits == 0) {
+                return false;
+            }
+
+            if (isBlank(fieldStart[0], fieldEnd[0])) {
+                return digits >= 3 && digits <= 4;
+            }
+            return analysis.getBrand() == CardBrand.AMERICAN_EXPRESS ? digits == 4 || digits == 3 : digits == 3;
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if ((window.get(i) & 0xFF) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the field as a number ignoring surrounding whitespace, null if it is anything else
+         */
+        private Integer parseInt(int start, int end) {
+            while (start < end && (window.get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (window.get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+            if (start == end || end - start > 9) {
+                return null;
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                final byte b = window.get(i);
+                if (b < '0' || b > '9') {
+                    return null;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private boolean appendError(byte[] error, boolean first) {
+            if (!first) {
+                ensureCapacity(1);
+                out[count++] = '|';
+            }
+            append(error);
+            return false;
+        }
+
+        private void append(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, out, count, bytes.length);
+            count += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (count + extra > out.length) {
+                out = Arrays.copyOf(out, Math.max(out.length * 2, count + extra));
+            }
+        }
+    }
+
+    public static final class Summary {
+
+        private final long records;
+        private final long valid;
+
+        Summary(long records, long valid) {
+            this.records = records;
+            this.valid = valid;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getValid() {
+            return valid;
+        }
+
+        public long getInvalid() {
+            return records - valid;
+        }
+    }
+
+    public static final class Builder {
+
+        private char delimiter = ',';
+        private int panColumn = 0;
+        private int expiryMonthColumn = 1;
+        private int expiryYearColumn = 2;
+        private int cvvColumn = NO_COLUMN;
+        private boolean skipHeader;
+        private ForkJoinPool pool;
+        private int windowBytes = DEFAULT_WINDOW_BYTES;
+        private ExpiryClock clock = ExpiryClock.system();
+
+        private Builder() {
+        }
+
+        /**
+         * @param delimiter an ASCII character separating fields, default ','
+         */
+        public Builder delimiter(char delimiter) {
+            if (delimiter > 127 || delimiter == '\n' || delimiter == '\r') {
+                throw new IllegalArgumentException("delimiter must be an ASCII character other than a line break");
+            }
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * @param column zero based index of the card number, default 0
+         */
+        public Builder panColumn(int column) {
+            if (column < 0) {
+                throw new IllegalArgumentException("panColumn must be >= 0");
+            }
+            this.panColumn = column;
+            return this;
+        }
+
+        /**
+         * Zero based indexes of the expiry month and year, default 1 and 2. {@link #NO_COLUMN} for both
+         * skips the expiry check.
+         */
+        public Builder expiryColumns(int monthColumn, int yearColumn) {
+            if ((monthColumn == NO_COLUMN) != (yearColumn == NO_COLUMN) || monthColumn < NO_COLUMN || yearColumn < NO_COLUMN) {
+                throw new IllegalArgumentException("expiry columns must both be >= 0 or both NO_COLUMN");
+            }
+            this.expiryMonthColumn = monthColumn;
+            this.expiryYearColumn = yearColumn;
+            return this;
+        }
+
+        /**
+         * @param column zero based index of the CVV, default {@link #NO_COLUMN}
+         */
+        public Builder cvvColumn(int column) {
+            if (column < NO_COLUMN) {
+                throw new IllegalArgumentException("cvvColumn must be >= 0 or NO_COLUMN");
+            }
+            this.cvvColumn = column;
+            return this;
+        }
+
+        /**
+         * @param skipHeader {@code true} if the first line holds column names, default false
+         */
+        public Builder skipHeader(boolean skipHeader) {
+            this.skipHeader = skipHeader;
+            return this;
+        }
+
+        /**
+         * @param pool runs the chunk validation, default {@link ForkJoinPool#commonPool()}
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * @param clock month expiry dates are checked against, default {@link ExpiryClock#system()}
+         */
+        public Builder clock(ExpiryClock clock) {
+            if (clock == null) {
+                throw new IllegalArgumentException("clock must not be null");
+            }
+            this.clock = clock;
+            return this;
+        }
+
+        Builder windowBytes(int windowBytes) {
+            this.windowBytes = windowBytes;
+            return this;
+        }
+
+        public BulkCardValidator build() {
+            final int[] columns = {panColumn, expiryMonthColumn, expiryYearColumn, cvvColumn};
+            for (int i = 0; i < columns.length; i++) {
+                for (int j = i + 1; j < columns.length; j++) {
+                    if (columns[i] != NO_COLUMN && columns[i] == columns[j]) {
+                        throw new IllegalArgumentException("column " + columns[i] + " is used for two fields");
+                    }
+                }
+            }
+            return new BulkCardValidator(this);
+        }
+    }
+}
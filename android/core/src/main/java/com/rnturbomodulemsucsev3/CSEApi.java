@@ -0,0 +1,22 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ */
+interface CSEApi {
+    PublicKeyFetchResult fetchPublicKey();
+
+    /**
+     * @return the public key if it is available without a network request, {@code null} otherwise
+     */
+    @Nullable
+    CachedPublicKey cachedPublicKey();
+
+    /**
+     * Drops publicKey after encryption with it failed, the next fetch goes to the network.
+     */
+    void invalidate(CachedPublicKey publicKey);
+}
@@ -0,0 +1,222 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ * <p>
+ * A cached key is served right away while it is younger than the refresh age, past that it is still
+ * served but refreshed in the background. Only a key older than the TTL makes callers wait for the network.
+ */
+final class CSEApiImpl implements CSEApi {
+
+    // wait before retrying a failed background refresh, the stale key keeps being served meanwhile
+    private static final long REFRESH_RETRY_MILLIS = 60 * 1000L;
+
+    private final String publicKeyUrl;
+    private final PublicKeyRegistry registry;
+    @Nullable
+    private final PublicKeyStore store;
+    private final long publicKeyRefreshAfterMillis;
+    private final long publicKeyTtlMillis;
+    private final KeyTransport transport;
+    private final KeyFetchPolicy fetchPolicy;
+    private final Executor refreshExecutor;
+    private final CSEMetrics metrics;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long nextRefreshAtMillis;
+
+    CSEApiImpl(boolean developmentMode, CSEConfig config, CSEExecutors executors, CSEMetrics metrics) {
+        this(developmentMode, config, executors, metrics, PublicKeyRegistry.getInstance());
+    }
+
+    CSEApiImpl(boolean developmentMode, CSEConfig config, CSEExecutors executors, CSEMetrics metrics, PublicKeyRegistry registry) {
+        this.publicKeyUrl = config.getPublicKeyEndpoint() != null ? config.getPublicKeyEndpoint() : endpoint(developmentMode);
+        this.registry = registry;
+        this.store = config.getPublicKeyStore();
+        this.publicKeyRefreshAfterMillis = config.getPublicKeyRefreshAfterMillis();
+        this.publicKeyTtlMillis = config.getPublicKeyTtlMillis();
+        this.transport = config.getKeyTransport() != null
+                ? config.getKeyTransport()
+                : new HttpKeyTransport(config.getKeyFetchConnectTimeoutMillis(), config.getKeyFetchReadTimeoutMillis());
+        this.fetchPolicy = KeyFetchPolicy.from(config, executors.keyRequest());
+        this.refreshExecutor = executors.keyFetch();
+        this.metrics = metrics;
+    }
+
+    @Nullable
+    @Override
+    public CachedPublicKey cachedPublicKey() {
+        final CachedPublicKey cached = registry.get(publicKeyUrl);
+        if (cached == null) {
+            return null;
+        }
+
+        final long age = System.currentTimeMillis() - cached.getFetchedAtMillis();
+        if (age >= publicKeyTtlMillis) {
+            return null;
+        }
+        if (age >= publicKeyRefreshAfterMillis) {
+            refreshInBackground();
+        }
+        return cached;
+    }
+
+    @Override
+    public void invalidate(CachedPublicKey publicKey) {
+        if (registry.invalidate(publicKeyUrl, publicKey) && store != null) {
+            removePersistedKey();
+        }
+    }
+
+    @Override
+    public PublicKeyFetchResult fetchPublicKey() {
+
+        final CachedPublicKey cached = cachedPublicKey();
+        if (cached != null) {
+            return PublicKeyFetchResult.success(cached);
+        }
+
+        return registry.fetchOnce(publicKeyUrl, new Callable<PublicKeyFetchResult>() {
+            @Override
+            public PublicKeyFetchResult call() {
+                // a fetch that completed after the check above already published the key
+                final CachedPublicKey published = cachedPublicKey();
+                if (published != null) {
+                    return PublicKeyFetchResult.success(published);
+                }
+                final CachedPublicKey restored = restorePublicKey();
+                if (restored != null) {
+                    return PublicKeyFetchResult.success(restored);
+                }
+                return requestPublicKey();
+            }
+        });
+    }
+
+    private void refreshInBackground() {
+        if (System.currentTimeMillis() < nextRefreshAtMillis || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final PublicKeyFetchResult result = registry.fetchOnce(publicKeyUrl, new Callable<PublicKeyFetchResult>() {
+                            @Override
+                            public PublicKeyFetchResult call() {
+                                return requestPublicKey();
+                            }
+                        });
+                        nextRefreshAtMillis = result.getCause() == null ? 0 : System.currentTimeMillis() + REFRESH_RETRY_MILLIS;
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Loads the persisted key if it is younger than the TTL and still matches its fingerprint.
+     */
+    @Nullable
+    private CachedPublicKey restorePublicKey() {
+        if (store == null) {
+            return null;
+        }
+
+        try {
+            final StoredPublicKey stored = store.load(publicKeyUrl);
+            if (stored == null) {
+                return null;
+            }
+
+            final long age = System.currentTimeMillis() - stored.getFetchedAtMillis();
+            if (age < 0 || age >= publicKeyTtlMillis) {
+                return null;
+            }
+
+            final long started = CSEMetrics.start();
+            final CachedPublicKey restored = CachedPublicKey.parse(stored.getEncoded(), stored.getFetchedAtMillis());
+            metrics.recordSince(MetricsPhase.KEY_PARSE, started);
+            if (!restored.getFingerprint().equals(stored.getFingerprint())) {
+                removePersistedKey();
+                return null;
+            }
+            metrics.count(MetricsCounter.KEY_RESTORED);
+            return registry.put(publicKeyUrl, restored);
+        } catch (Exception e) {
+            Platform.get().warn("CSEApiImpl", "Discarding persisted public key", e);
+            removePersistedKey();
+            return null;
+        }
+    }
+
+    private void removePersistedKey() {
+        try {
+            store.remove(publicKeyUrl);
+        } catch (Exception e) {
+            // a failing store must not fail the fetch, the entry is checked again on the next restore
+            Platform.get().warn("CSEApiImpl", "Failed to remove persisted public key", e);
+        }
+    }
+
+    private void persistPublicKey(CachedPublicKey publicKey) {
+        if (store == null) {
+            return;
+        }
+
+        try {
+            store.save(publicKeyUrl, StoredPublicKey.from(publicKey));
+        } catch (Exception e) {
+            Platform.get().warn("CSEApiImpl", "Failed to persist public key", e);
+        }
+    }
+
+    private PublicKeyFetchResult requestPublicKey() {
+        try {
+            final long started = CSEMetrics.start();
+            final String publicKey;
+            try {
+                publicKey = fetchPolicy.execute(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return transport.fetchPublicKey(publicKeyUrl);
+                    }
+                });
+            } finally {
+                metrics.recordSince(MetricsPhase.KEY_FETCH, started);
+            }
+            final CachedPublicKey fetched = registry.put(publicKeyUrl, publicKey, System.currentTimeMillis(), metrics);
+            persistPublicKey(fetched);
+            return PublicKeyFetchResult.success(fetched);
+        } catch (EncryptException e) {
+            return PublicKeyFetchResult.failed(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PublicKeyFetchResult.failed(EncryptException.create(e, EncryptExceptionCode.REQUEST_FAILED));
+        } catch (Exception e) {
+            return PublicKeyFetchResult.failed(EncryptException.create(e, EncryptExceptionCode.REQUEST_FAILED));
+        }
+    }
+
+    private String endpoint(boolean developmentMode) {
+        if (developmentMode) {
+            return "https://test.merchantsafeunipay.com/msu/cse/publickey";
+        } else {
+            return "https://merchantsafeunipay.com/msu/cse/publickey";
+        }
+    }
+}
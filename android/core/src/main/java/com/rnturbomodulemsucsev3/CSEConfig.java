@@ -0,0 +1,425 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * MSU CSE
+ * <p>
+ * Tuning options for a {@link CSECore} instance, use {@link #builder()} to override the defaults.
+ */
+public final class CSEConfig {
+
+    /**
+     * What happens to an encryption submitted while all workers are busy and the queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * Fail the new request with {@link EncryptExceptionCode#REQUEST_REJECTED}
+         */
+        ABORT,
+        /**
+         * Run the new request on the submitting thread
+         */
+        CALLER_RUNS,
+        /**
+         * Fail the oldest queued request with {@link EncryptExceptionCode#REQUEST_REJECTED} and queue the new one
+         */
+        DISCARD_OLDEST
+    }
+
+    /**
+     * How the payload of a request is encrypted with the public key.
+     */
+    public enum EncryptionMode {
+        /**
+         * RSA-OAEP over the whole payload. Payloads longer than the public key allows, 190 UTF-8 bytes
+         * for a 2048 bit key, e.g. with a long card holder name, fail validation with
+         * {@code PAYLOAD_TOO_LARGE}.
+         */
+        RSA,
+        /**
+         * A random AES-256 key wrapped with RSA-OAEP and AES-GCM over the payload, a batch wraps one
+         * key for all its items. Payloads of any size, {@link ReferenceDecryptor} shows how to
+         * decrypt them.
+         */
+        ENVELOPE;
+
+        /**
+         * @param publicKey the key requests will be encrypted with, {@code null} if it isn't known
+         *                  yet, then the size is checked once it is
+         * @return largest UTF-8 payload this mode encrypts
+         */
+        int maxPlainBytes(@Nullable CachedPublicKey publicKey) {
+            return this == RSA && publicKey != null ? publicKey.getMaxPlainBytes() : Integer.MAX_VALUE;
+        }
+    }
+
+    static final int DEFAULT_ENCRYPTION_THREADS = 2;
+    static final int DEFAULT_ENCRYPTION_QUEUE_SIZE = 32;
+    static final int DEFAULT_KEY_FETCH_THREADS = 2;
+    static final long DEFAULT_PUBLIC_KEY_REFRESH_AFTER_MILLIS = 60 * 60 * 1000L;
+    static final long DEFAULT_PUBLIC_KEY_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    static final int DEFAULT_KEY_FETCH_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+    static final int DEFAULT_KEY_FETCH_READ_TIMEOUT_MILLIS = 10 * 1000;
+    static final int DEFAULT_KEY_FETCH_MAX_RETRIES = 2;
+    static final long DEFAULT_KEY_FETCH_RETRY_BACKOFF_MILLIS = 250;
+    static final long DEFAULT_KEY_FETCH_TOTAL_TIMEOUT_MILLIS = 30 * 1000L;
+
+    private final int encryptionThreads;
+    private final int encryptionQueueSize;
+    private final RejectionPolicy rejectionPolicy;
+    private final int keyFetchThreads;
+    private final boolean warmUp;
+    @Nullable
+    private final PublicKeyStore publicKeyStore;
+    private final long publicKeyRefreshAfterMillis;
+    private final long publicKeyTtlMillis;
+    private final int keyFetchConnectTimeoutMillis;
+    private final int keyFetchReadTimeoutMillis;
+    private final int keyFetchMaxRetries;
+    private final long keyFetchRetryBackoffMillis;
+    private final long keyFetchHedgeAfterMillis;
+    private final long keyFetchTotalTimeoutMillis;
+    @Nullable
+    private final String publicKeyEndpoint;
+    @Nullable
+    private final KeyTransport keyTransport;
+    private final EncryptionMode encryptionMode;
+    private final ExpiryClock expiryClock;
+
+    private CSEConfig(Builder builder) {
+        this.encryptionThreads = builder.encryptionThreads;
+        this.encryptionQueueSize = builder.encryptionQueueSize;
+        this.rejectionPolicy = builder.rejectionPolicy;
+        this.keyFetchThreads = builder.keyFetchThreads;
+        this.warmUp = builder.warmUp;
+        this.publicKeyStore = builder.publicKeyStore;
+        this.publicKeyRefreshAfterMillis = builder.publicKeyRefreshAfterMillis;
+        this.publicKeyTtlMillis = builder.publicKeyTtlMillis;
+        this.keyFetchConnectTimeoutMillis = builder.keyFetchConnectTimeoutMillis;
+        this.keyFetchReadTimeoutMillis = builder.keyFetchReadTimeoutMillis;
+        this.keyFetchMaxRetries = builder.keyFetchMaxRetries;
+        this.keyFetchRetryBackoffMillis = builder.keyFetchRetryBackoffMillis;
+        this.keyFetchHedgeAfterMillis = builder.keyFetchHedgeAfterMillis;
+        this.keyFetchTotalTimeoutMillis = builder.keyFetchTotalTimeoutMillis;
+        this.publicKeyEndpoint = builder.publicKeyEndpoint;
+        this.keyTransport = builder.keyTransport;
+        this.encryptionMode = builder.encryptionMode;
+        this.expiryClock = builder.expiryClock;
+    }
+
+    public static CSEConfig defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getEncryptionThreads() {
+        return encryptionThreads;
+    }
+
+    public int getEncryptionQueueSize() {
+        return encryptionQueueSize;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public int getKeyFetchThreads() {
+        return keyFetchThreads;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    @Nullable
+    PublicKeyStore getPublicKeyStore() {
+        return publicKeyStore;
+    }
+
+    public long getPublicKeyRefreshAfterMillis() {
+        return publicKeyRefreshAfterMillis;
+    }
+
+    public long getPublicKeyTtlMillis() {
+        return publicKeyTtlMillis;
+    }
+
+    public int getKeyFetchConnectTimeoutMillis() {
+        return keyFetchConnectTimeoutMillis;
+    }
+
+    public int getKeyFetchReadTimeoutMillis() {
+        return keyFetchReadTimeoutMillis;
+    }
+
+    public int getKeyFetchMaxRetries() {
+        return keyFetchMaxRetries;
+    }
+
+    public long getKeyFetchRetryBackoffMillis() {
+        return keyFetchRetryBackoffMillis;
+    }
+
+    public long getKeyFetchHedgeAfterMillis() {
+        return keyFetchHedgeAfterMillis;
+    }
+
+    public long getKeyFetchTotalTimeoutMillis() {
+        return keyFetchTotalTimeoutMillis;
+    }
+
+    @Nullable
+    public String getPublicKeyEndpoint() {
+        return publicKeyEndpoint;
+    }
+
+    @Nullable
+    KeyTransport getKeyTransport() {
+        return keyTransport;
+    }
+
+    public EncryptionMode getEncryptionMode() {
+        return encryptionMode;
+    }
+
+    public ExpiryClock getExpiryClock() {
+        return expiryClock;
+    }
+
+    public static final class Builder {
+        private int encryptionThreads = DEFAULT_ENCRYPTION_THREADS;
+        private int encryptionQueueSize = DEFAULT_ENCRYPTION_QUEUE_SIZE;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+        private int keyFetchThreads = DEFAULT_KEY_FETCH_THREADS;
+        private boolean warmUp;
+        private PublicKeyStore publicKeyStore;
+        private long publicKeyRefreshAfterMillis = DEFAULT_PUBLIC_KEY_REFRESH_AFTER_MILLIS;
+        private long publicKeyTtlMillis = DEFAULT_PUBLIC_KEY_TTL_MILLIS;
+        private int keyFetchConnectTimeoutMillis = DEFAULT_KEY_FETCH_CONNECT_TIMEOUT_MILLIS;
+        private int keyFetchReadTimeoutMillis = DEFAULT_KEY_FETCH_READ_TIMEOUT_MILLIS;
+        private int keyFetchMaxRetries = DEFAULT_KEY_FETCH_MAX_RETRIES;
+        private long keyFetchRetryBackoffMillis = DEFAULT_KEY_FETCH_RETRY_BACKOFF_MILLIS;
+        private long keyFetchHedgeAfterMillis;
+        private long keyFetchTotalTimeoutMillis = DEFAULT_KEY_FETCH_TOTAL_TIMEOUT_MILLIS;
+        @Nullable
+        private String publicKeyEndpoint;
+        @Nullable
+        private KeyTransport keyTransport;
+        private EncryptionMode encryptionMode = EncryptionMode.RSA;
+        private ExpiryClock expiryClock = ExpiryClock.system();
+
+        private Builder() {
+        }
+
+        /**
+         * @param encryptionThreads number of threads running RSA encryption, at least 1
+         */
+        public Builder encryptionThreads(int encryptionThreads) {
+            if (encryptionThreads < 1) {
+                throw new IllegalArgumentException("encryptionThreads must be at least 1, was " + encryptionThreads);
+            }
+            this.encryptionThreads = encryptionThreads;
+            return this;
+        }
+
+        /**
+         * @param encryptionQueueSize number of encryptions waiting for a free thread, at least 1
+         */
+        public Builder encryptionQueueSize(int encryptionQueueSize) {
+            if (encryptionQueueSize < 1) {
+                throw new IllegalArgumentException("encryptionQueueSize must be at least 1, was " + encryptionQueueSize);
+            }
+            this.encryptionQueueSize = encryptionQueueSize;
+            return this;
+        }
+
+        public Builder rejectionPolicy(RejectionPolicy rejectionPolicy) {
+            if (rejectionPolicy == null) {
+                throw new IllegalArgumentException("rejectionPolicy must not be null");
+            }
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        /**
+         * @param keyFetchThreads number of threads fetching public keys, kept apart from encryption threads
+         */
+        public Builder keyFetchThreads(int keyFetchThreads) {
+            if (keyFetchThreads < 1) {
+                throw new IllegalArgumentException("keyFetchThreads must be at least 1, was " + keyFetchThreads);
+            }
+            this.keyFetchThreads = keyFetchThreads;
+            return this;
+        }
+
+        /**
+         * @param warmUp fetch the public key and initialize the encryption path in the background
+         *               as soon as {@link CSECore} is created
+         */
+        public Builder warmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * Keep fetched public keys in {@code publicKeyStore}, so the first encryption after a restart
+         * doesn't need the network while the persisted key is younger than
+         * {@link #publicKeyTtlMillis(long)}. On Android use {@code SharedPreferencesPublicKeyStore}.
+         */
+        public Builder publicKeyStore(@Nullable PublicKeyStore publicKeyStore) {
+            this.publicKeyStore = publicKeyStore;
+            return this;
+        }
+
+        /**
+         * @param publicKeyRefreshAfterMillis age after which a cached public key is still used, but
+         *                                    refreshed in the background
+         */
+        public Builder publicKeyRefreshAfterMillis(long publicKeyRefreshAfterMillis) {
+            if (publicKeyRefreshAfterMillis <= 0) {
+                throw new IllegalArgumentException("publicKeyRefreshAfterMillis must be positive, was " + publicKeyRefreshAfterMillis);
+            }
+            this.publicKeyRefreshAfterMillis = publicKeyRefreshAfterMillis;
+            return this;
+        }
+
+        /**
+         * @param publicKeyTtlMillis age after which a cached or persisted public key is no longer used
+         *                           and encryptions wait for a new one
+         */
+        public Builder publicKeyTtlMillis(long publicKeyTtlMillis) {
+            if (publicKeyTtlMillis <= 0) {
+                throw new IllegalArgumentException("publicKeyTtlMillis must be positive, was " + publicKeyTtlMillis);
+            }
+            this.publicKeyTtlMillis = publicKeyTtlMillis;
+            return this;
+        }
+
+        /**
+         * @param connectTimeoutMillis connect timeout of a public key request
+         * @param readTimeoutMillis    read timeout of a public key request
+         */
+        public Builder keyFetchTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+            if (connectTimeoutMillis <= 0 || readTimeoutMillis <= 0) {
+                throw new IllegalArgumentException("key fetch timeouts must be positive, were " + connectTimeoutMillis + " and " + readTimeoutMillis);
+            }
+            this.keyFetchConnectTimeoutMillis = connectTimeoutMillis;
+            this.keyFetchReadTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param maxRetries     retries after a failed public key request, 0 disables retrying
+         * @param backoffMillis  upper bound of the first retry delay, doubled for every further retry,
+         *                       the actual delay is picked at random below that bound
+         */
+        public Builder keyFetchRetries(int maxRetries, long backoffMillis) {
+            if (maxRetries < 0 || backoffMillis < 0) {
+                throw new IllegalArgumentException("key fetch retries and backoff must not be negative, were " + maxRetries + " and " + backoffMillis);
+            }
+            this.keyFetchMaxRetries = maxRetries;
+            this.keyFetchRetryBackoffMillis = backoffMillis;
+            return this;
+        }
+
+        /**
+         * @param hedgeAfterMillis send a second public key request if the first one hasn't completed
+         *                         after this long and use whichever completes first, 0 disables hedging
+         */
+        public Builder keyFetchHedgeAfterMillis(long hedgeAfterMillis) {
+            if (hedgeAfterMillis < 0) {
+                throw new IllegalArgumentException("keyFetchHedgeAfterMillis must not be negative, was " + hedgeAfterMillis);
+            }
+            this.keyFetchHedgeAfterMillis = hedgeAfterMillis;
+            return this;
+        }
+
+        /**
+         * @param totalTimeoutMillis bound of a public key fetch including all retries, backoff and
+         *                           hedged requests, the fetch fails once it has passed
+         */
+        public Builder keyFetchTotalTimeoutMillis(long totalTimeoutMillis) {
+            if (totalTimeoutMillis <= 0) {
+                throw new IllegalArgumentException("keyFetchTotalTimeoutMillis must be positive, was " + totalTimeoutMillis);
+            }
+            this.keyFetchTotalTimeoutMillis = totalTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param publicKeyEndpoint https URL the public key is fetched from, {@code null} selects the
+         *                          test or production endpoint depending on development mode. Plain
+         *                          http is only accepted for a local stand-in on localhost or 127.0.0.1
+         */
+        public Builder publicKeyEndpoint(@Nullable String publicKeyEndpoint) {
+            if (publicKeyEndpoint != null && !isSecureEndpoint(publicKeyEndpoint)) {
+                throw new IllegalArgumentException("publicKeyEndpoint must be an https URL, or http on localhost, was " + publicKeyEndpoint);
+            }
+            this.publicKeyEndpoint = publicKeyEndpoint;
+            return this;
+        }
+
+        /**
+         * @param encryptionMode {@link EncryptionMode#RSA} by default, the receiving server has to
+         *                       support {@link EncryptionMode#ENVELOPE} before it is enabled
+         */
+        public Builder encryptionMode(EncryptionMode encryptionMode) {
+            if (encryptionMode == null) {
+                throw new IllegalArgumentException("encryptionMode must not be null");
+            }
+            this.encryptionMode = encryptionMode;
+            return this;
+        }
+
+        /**
+         * @param expiryClock month expiry dates are checked against, {@link ExpiryClock#system()} by
+         *                    default, tests can freeze it with {@link ExpiryClock#fixed(int, int)}
+         */
+        public Builder expiryClock(ExpiryClock expiryClock) {
+            if (expiryClock == null) {
+                throw new IllegalArgumentException("expiryClock must not be null");
+            }
+            this.expiryClock = expiryClock;
+            return this;
+        }
+
+        // over plain http a network attacker could hand out their own public key
+        private static boolean isSecureEndpoint(String endpoint) {
+            final URI uri;
+            try {
+                uri = new URI(endpoint);
+            } catch (URISyntaxException e) {
+                return false;
+            }
+            final String host = uri.getHost();
+            if (host == null) {
+                return false;
+            }
+            if ("https".equalsIgnoreCase(uri.getScheme())) {
+                return true;
+            }
+            return "http".equalsIgnoreCase(uri.getScheme())
+                    && ("localhost".equalsIgnoreCase(host) || "127.0.0.1".equals(host));
+        }
+
+        Builder keyTransport(@Nullable KeyTransport keyTransport) {
+            this.keyTransport = keyTransport;
+            return this;
+        }
+
+        public CSEConfig build() {
+            if (publicKeyRefreshAfterMillis > publicKeyTtlMillis) {
+                publicKeyRefreshAfterMillis = publicKeyTtlMillis;
+            }
+            return new CSEConfig(this);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * MSU CSE
+ * <p>
+ * Platform neutral validation and encryption, usable on any JVM. Callbacks are invoked on the
+ * callback executor. The Android library wraps this in {@code CSE}, which delivers callbacks on the
+ * main thread.
+ * <p>
+ * Safe to use from several threads, concurrent encryptions don't affect each other.
+ */
+public final class CSECore {
+
+    private volatile List<String> errors = Collections.emptyList();
+    private final InFlightTasks inFlight;
+    private final Executor callbackExecutor;
+    private final CSEApi cseApi;
+    private final CSEExecutors executors;
+    private final WarmUp warmUp;
+    private final CSEMetrics metrics;
+    private final CSEConfig.EncryptionMode encryptionMode;
+    private final ExpiryClock expiryClock;
+
+    /**
+     * @param callbackExecutor runs every callback, e.g. a UI thread or a direct executor
+     */
+    public CSECore(boolean developmentMode, CSEConfig config, Executor callbackExecutor) {
+        this(callbackExecutor, new CSEExecutors(config), new CSEMetrics(), developmentMode, config);
+    }
+
+    private CSECore(Executor callbackExecutor, CSEExecutors executors, CSEMetrics metrics, boolean developmentMode, CSEConfig config) {
+        this(callbackExecutor, executors, new CSEApiImpl(developmentMode, config, executors, metrics), metrics, config);
+    }
+
+    /**
+     * @param cseApi public key source used instead of {@link CSEApiImpl}, e.g. a stub in tests
+     */
+    CSECore(Executor callbackExecutor, CSEExecutors executors, CSEApi cseApi, CSEConfig config) {
+        this(callbackExecutor, executors, cseApi, new CSEMetrics(), config);
+    }
+
+    private CSECore(Executor callbackExecutor, CSEExecutors executors, CSEApi cseApi, CSEMetrics metrics, CSEConfig config) {
+        this.callbackExecutor = callbackExecutor;
+        this.executors = executors;
+        this.inFlight = new InFlightTasks(executors);
+        this.cseApi = cseApi;
+        this.metrics = metrics;
+        this.encryptionMode = config.getEncryptionMode();
+        this.expiryClock = config.getExpiryClock();
+        this.warmUp = new WarmUp(cseApi, executors, callbackExecutor, metrics);
+        if (config.isWarmUp()) {
+            warmUp.start();
+        }
+    }
+
+
+    public boolean isValidCVV(String cvv) {
+        return isValidCVV(cvv, null);
+    }
+
+    /**
+     * @return validation errors of the most recent {@link #encrypt} call, concurrent callers should use
+     * {@link EncryptException#getErrors()} of their own request instead
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public boolean isValidCVV(String cvv, String pan) {
+        return CardUtils.isValidCVV(cvv, pan);
+    }
+
+    public boolean isValidCardHolderName(String name) {
+        return CardUtils.isValidCardHolderName(name);
+    }
+
+    public boolean isValidPan(String pan) {
+        return CardUtils.isValidPan(pan);
+    }
+
+    public boolean isValidCardToken(String cardToken) {
+        return CardUtils.isValidCardToken(cardToken);
+    }
+
+    public CardBrand detectBrand(String pan) {
+        return CardUtils.detectBrand(pan);
+    }
+
+    /**
+     * @return issuer details from the {@link BinDatabase#installed() installed} BIN database,
+     * {@code null} without a database or if no range holds pan
+     */
+    @Nullable
+    public BinInfo lookupBin(String pan) {
+        final BinDatabase database = BinDatabase.installed();
+        return database == null ? null : database.lookup(pan);
+    }
+
+    /**
+     * Checks every field of a card with the rules {@link #encrypt} applies, without changing
+     * {@link #getErrors()}.
+     */
+    public CardValidationResult validateCard(String pan,
+                                             String cardHolderName,
+                                             Integer expiryYear,
+                                             Integer expiryMonth,
+                                             String cvv,
+                                             String nonce) {
+        return new CardEncryptRequest(pan, expiryYear, expiryMonth, cardHolderName, cvv, nonce)
+                .validateCard(expiryClock.currentYearMonth(), encryptionMode.maxPlainBytes(cseApi.cachedPublicKey()));
+    }
+
+    public void encrypt(String pan,
+                        String cardHolderName,
+                        Integer expiryYear,
+                        Integer expiryMonth,
+                        String cvv,
+                        String nonce,
+                        EncryptCallback callback
+    ) {
+
+        encrypt(new CardEncryptRequest(
+                pan, expiryYear, expiryMonth, cardHolderName, cvv, nonce
+        ), callback);
+    }
+
+    public void encrypt(String cvv,
+                        String nonce,
+                        EncryptCallback callback
+    ) {
+        encrypt(new CvvEncryptRequest(cvv, nonce), callback);
+    }
+
+    private void encrypt(EncryptRequest request, final EncryptCallback callback) {
+
+        final long started = CSEMetrics.start();
+        try {
+            final boolean valid = request.validate(expiryClock.currentYearMonth(), encryptionMode.maxPlainBytes(cseApi.cachedPublicKey()));
+            metrics.recordSince(MetricsPhase.VALIDATION, started);
+            if (valid) {
+                this.errors = Collections.emptyList();
+                new EncryptTask(callback, request, encryptionMode, cseApi, executors, callbackExecutor, metrics, started, inFlight).execute();
+            } else {
+                final EncryptException validationFailed = EncryptException.validationFailed(request.errors());
+                this.errors = validationFailed.getErrors();
+                metrics.failure(EncryptExceptionCode.VALIDATION_FAILED);
+                callback.onError(validationFailed);
+            }
+        } catch (final Exception e) {
+            metrics.failure(EncryptExceptionCode.UNKNOWN_EXCEPTION);
+            callbackExecutor.execute(() -> callback.onError(EncryptException.create(e, EncryptExceptionCode.UNKNOWN_EXCEPTION)));
+        }
+    }
+
+    /**
+     * Fetches the public key and initializes the encryption path in the background, unless that
+     * already happened.
+     */
+    public void warmUp() {
+        warmUp.start();
+    }
+
+    /**
+     * Starts {@link #warmUp()} if needed and invokes callback on the callback executor once the first
+     * encryption no longer has to wait for the network or crypto initialization.
+     */
+    public void whenReady(WarmUpCallback callback) {
+        warmUp.whenReady(callback);
+    }
+
+    /**
+     * Validates every item, resolves the public key once and encrypts the valid items in parallel,
+     * in {@link CSEConfig.EncryptionMode#ENVELOPE} mode with a single RSA operation for the batch.
+     * Results are delivered together, one per item in submission order. Shared {@link #getErrors()}
+     * are not touched, validation errors are reported per item.
+     */
+    public void encryptBatch(List<EncryptBatchItem> items, final EncryptBatchCallback callback) {
+        try {
+            final List<EncryptRequest> requests = new ArrayList<>(items.size());
+            for (EncryptBatchItem item : items) {
+                requests.add(item.getRequest());
+            }
+            new EncryptBatchTask(callback, requests, encryptionMode, expiryClock, cseApi, executors, callbackExecutor, metrics, inFlight).execute();
+        } catch (final Exception e) {
+            final EncryptException encryptException = EncryptException.create(e, EncryptExceptionCode.UNKNOWN_EXCEPTION);
+            final List<EncryptBatchResult> results = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                results.add(EncryptBatchResult.failed(i, encryptException));
+                metrics.failure(EncryptExceptionCode.UNKNOWN_EXCEPTION);
+            }
+            callbackExecutor.execute(() -> callback.onComplete(results));
+        }
+    }
+
+    /**
+     * @return timings, counters and failures recorded by this instance so far
+     */
+    public CSEMetricsSnapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * @param listener receives every measurement as it is recorded, {@code null} removes it
+     */
+    public void setMetricsListener(@Nullable CSEMetricsListener listener) {
+        metrics.setListener(listener);
+    }
+
+    /**
+     * Stops accepting new encryptions, already started ones still complete and invoke their callbacks.
+     */
+    public void shutdown() {
+        executors.shutdown();
+    }
+
+    /**
+     * Cancels every encryption and batch that hasn't delivered its result yet, their callbacks are
+     * not invoked. New encryptions are still accepted.
+     */
+    public void cancelAll() {
+        inFlight.cancelAll();
+    }
+
+    /**
+     * @return encryptions and batches that haven't delivered their result yet
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public void onDestroy() {
+        inFlight.cancelAll();
+        executors.shutdown();
+    }
+
+    /**
+     * @param month
+     * @param year
+     * @return
+     */
+    public boolean isValidExpiry(Integer month, Integer year) {
+        return CardUtils.isValidExpiry(expiryClock.currentYearMonth(), month, year);
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MSU CSE
+ * <p>
+ * Executors owned by a {@link CSECore} instance. Public key fetches run on their own pool so a slow
+ * network can't occupy the threads doing RSA work.
+ */
+final class CSEExecutors {
+
+    /**
+     * Work item that must complete its callback when dropped by {@link CSEConfig.RejectionPolicy#DISCARD_OLDEST}.
+     */
+    interface Task extends Runnable {
+        void reject(RejectedExecutionException e);
+
+        /**
+         * @return {@code true} if running the task would do nothing, it may be dropped from the queue
+         */
+        boolean isCancelled();
+    }
+
+    private static final long KEEP_ALIVE_MILLIS = 30 * 1000L;
+    private static final int MAX_KEY_REQUEST_THREADS = 4;
+
+    private final ThreadPoolExecutor encryption;
+    private final ThreadPoolExecutor keyFetch;
+    private final ThreadPoolExecutor keyRequest;
+
+    CSEExecutors(CSEConfig config) {
+        this(config, KEEP_ALIVE_MILLIS);
+    }
+
+    /**
+     * @param keepAliveMillis how long idle key fetch and key request threads are kept, encryption
+     *                        threads are kept for the lifetime of the instance
+     */
+    CSEExecutors(CSEConfig config, long keepAliveMillis) {
+        // no core thread timeout, each encryption thread holds its initialized cipher and seeded
+        // random source, a new thread would have to set both up again in the next encryption
+        this.encryption = new ThreadPoolExecutor(
+                config.getEncryptionThreads(),
+                config.getEncryptionThreads(),
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(config.getEncryptionQueueSize()),
+                new NamedThreadFactory("cse-encrypt"),
+                new Rejection(config.getRejectionPolicy())
+        );
+
+        this.keyFetch = new ThreadPoolExecutor(
+                config.getKeyFetchThreads(),
+                config.getKeyFetchThreads(),
+                keepAliveMillis,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamedThreadFactory("cse-key-fetch")
+        );
+        this.keyFetch.allowCoreThreadTimeOut(true);
+
+        // hedged key requests, no queue so a busy pool rejects instead of delaying the request
+        this.keyRequest = new ThreadPoolExecutor(
+                0,
+                MAX_KEY_REQUEST_THREADS,
+                keepAliveMillis,
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(),
+                new NamedThreadFactory("cse-key-request")
+        );
+    }
+
+    Executor encryption() {
+        return encryption;
+    }
+
+    Executor keyFetch() {
+        return keyFetch;
+    }
+
+    Executor keyRequest() {
+        return keyRequest;
+    }
+
+    int encryptionParallelism() {
+        return encryption.getMaximumPoolSize();
+    }
+
+    /**
+     * Drops queued tasks that were cancelled, without invoking {@link Task#reject}.
+     */
+    void purgeCancelled() {
+        purgeCancelled(encryption);
+        purgeCancelled(keyFetch);
+    }
+
+    private static void purgeCancelled(ThreadPoolExecutor executor) {
+        final Iterator<Runnable> queued = executor.getQueue().iterator();
+        while (queued.hasNext()) {
+            final Runnable runnable = queued.next();
+            if (runnable instanceof Task && ((Task) runnable).isCancelled()) {
+                queued.remove();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new work, already submitted work still completes.
+     */
+    void shutdown() {
+        encryption.shutdown();
+        keyFetch.shutdown();
+        keyRequest.shutdown();
+    }
+
+    private static final class Rejection implements RejectedExecutionHandler {
+
+        private final CSEConfig.RejectionPolicy policy;
+
+        Rejection(CSEConfig.RejectionPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (!executor.isShutdown()) {
+                switch (policy) {
+                    case CALLER_RUNS:
+                        task.run();
+                        return;
+                    case DISCARD_OLDEST:
+                        final Runnable oldest = executor.getQueue().poll();
+                        if (oldest instanceof Task) {
+                            ((Task) oldest).reject(new RejectedExecutionException("Discarded by a newer encryption request"));
+                        }
+                        executor.execute(task);
+                        return;
+                    case ABORT:
+                    default:
+                        break;
+                }
+            }
+            throw new RejectedExecutionException("Encryption request rejected, queue is full or CSE was destroyed");
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MSU CSE
+ * <p>
+ * Records phase timings, counters and failures of one {@link CSECore} and forwards them to the
+ * optional {@link CSEMetricsListener}.
+ */
+final class CSEMetrics {
+
+    private static final MetricsPhase[] PHASES = MetricsPhase.values();
+    private static final MetricsCounter[] COUNTERS = MetricsCounter.values();
+    private static final EncryptExceptionCode[] CODES = EncryptExceptionCode.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+    private final AtomicLongArray failures = new AtomicLongArray(CODES.length);
+
+    @Nullable
+    private volatile CSEMetricsListener listener;
+
+    CSEMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    void setListener(@Nullable CSEMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return start of a phase, pass it to {@link #recordSince}
+     */
+    static long start() {
+        return System.nanoTime();
+    }
+
+    void recordSince(MetricsPhase phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    void record(MetricsPhase phase, long durationNanos) {
+        histograms[phase.ordinal()].record(durationNanos);
+        final CSEMetricsListener current = listener;
+        if (current != null) {
+            try {
+                current.onTiming(phase, durationNanos);
+            } catch (RuntimeException e) {
+                Platform.get().warn("CSEMetrics", "Metrics listener failed", e);
+            }
+        }
+    }
+
+    void count(MetricsCounter counter) {
+        counters.incrementAndGet(counter.ordinal());
+        final CSEMetricsListener current = listener;
+        if (current != null) {
+            try {
+                current.onCount(counter);
+            } catch (RuntimeException e) {
+                Platform.get().warn("CSEMetrics", "Metrics listener failed", e);
+            }
+        }
+    }
+
+    void failure(EncryptExceptionCode code) {
+        failures.incrementAndGet(code.ordinal());
+        final CSEMetricsListener current = listener;
+        if (current != null) {
+            try {
+                current.onFailure(code);
+            } catch (RuntimeException e) {
+                Platform.get().warn("CSEMetrics", "Metrics listener failed", e);
+            }
+        }
+    }
+
+    CSEMetricsSnapshot snapshot() {
+        final LatencyHistogram.Snapshot[] phases = new LatencyHistogram.Snapshot[PHASES.length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = histograms[i].snapshot();
+        }
+        final long[] counts = new long[COUNTERS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = counters.get(i);
+        }
+        final long[] failed = new long[CODES.length];
+        for (int i = 0; i < failed.length; i++) {
+            failed[i] = failures.get(i);
+        }
+        return new CSEMetricsSnapshot(phases, counts, failed);
+    }
+}
@@ -0,0 +1,15 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * Receives every measurement as it is recorded, on the thread that recorded it. Implementations
+ * must be thread safe and return quickly, they run on the encryption path.
+ */
+public interface CSEMetricsListener {
+    void onTiming(MetricsPhase phase, long durationNanos);
+
+    void onCount(MetricsCounter counter);
+
+    void onFailure(EncryptExceptionCode code);
+}
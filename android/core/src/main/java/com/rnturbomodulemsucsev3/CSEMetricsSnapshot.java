@@ -0,0 +1,53 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * Timings, counters and failures recorded since a {@link CSECore} was created. Durations are in
+ * nanoseconds, percentiles are accurate to about 6% of their value.
+ */
+public final class CSEMetricsSnapshot {
+
+    private final LatencyHistogram.Snapshot[] phases;
+    private final long[] counters;
+    private final long[] failures;
+
+    CSEMetricsSnapshot(LatencyHistogram.Snapshot[] phases, long[] counters, long[] failures) {
+        this.phases = phases;
+        this.counters = counters;
+        this.failures = failures;
+    }
+
+    /**
+     * @return how many times phase was timed
+     */
+    public long getCount(MetricsPhase phase) {
+        return phases[phase.ordinal()].getCount();
+    }
+
+    public long getMeanNanos(MetricsPhase phase) {
+        return phases[phase.ordinal()].getMean();
+    }
+
+    public long getMaxNanos(MetricsPhase phase) {
+        return phases[phase.ordinal()].getMax();
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99 for p99
+     */
+    public long getPercentileNanos(MetricsPhase phase, double percentile) {
+        return phases[phase.ordinal()].getPercentile(percentile);
+    }
+
+    public long getCount(MetricsCounter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /**
+     * @return how many encryptions and batch items failed with code
+     */
+    public long getFailures(EncryptExceptionCode code) {
+        return failures[code.ordinal()];
+    }
+}
@@ -24,15 +24,17 @@ class CSETextUtils {
         if (isBlank(cardNumberWithSpaces)) {
             return null;
         }
-        return cardNumberWithSpaces.replaceAll("[^\\d.]", "");
-    }
-
-    static String safeSubstring(String pan, @SuppressWarnings("SameParameterValue") int beginIndex, int endIndex) {
-
-        if (pan.length() >= endIndex) {
-            return pan.substring(beginIndex, endIndex);
-        } else {
-            return pan.substring(beginIndex);
+        final int length = cardNumberWithSpaces.length();
+        StringBuilder digits = null;
+        for (int i = 0; i < length; i++) {
+            final char c = cardNumberWithSpaces.charAt(i);
+            final boolean keep = (c >= '0' && c <= '9') || c == '.';
+            if (digits == null && !keep) {
+                digits = new StringBuilder(length).append(cardNumberWithSpaces, 0, i);
+            } else if (digits != null && keep) {
+                digits.append(c);
+            }
         }
+        return digits == null ? cardNumberWithSpaces : digits.toString();
     }
 }
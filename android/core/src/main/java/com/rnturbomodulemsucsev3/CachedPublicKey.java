@@ -0,0 +1,99 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * MSU CSE
+ * <p>
+ * Parsed public key together with the Base64 form it was decoded from and its SHA-256 fingerprint.
+ * <p>
+ * Each thread gets its own encryption cipher initialized with this key. A cipher returns to its
+ * initialized state after {@code doFinal}, so it is reused as is. When the key rotates a new instance
+ * replaces this one and its ciphers are dropped with it.
+ */
+final class CachedPublicKey {
+
+    private final String encoded;
+    private final PublicKey publicKey;
+    private final String fingerprint;
+    private final int maxPlainBytes;
+    private volatile long fetchedAtMillis;
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
+    private CachedPublicKey(String encoded, PublicKey publicKey, String fingerprint, long fetchedAtMillis) {
+        this.encoded = encoded;
+        this.publicKey = publicKey;
+        this.fingerprint = fingerprint;
+        this.maxPlainBytes = RSAEncryption.maxPlainBytes(publicKey);
+        this.fetchedAtMillis = fetchedAtMillis;
+    }
+
+    /**
+     * @param encoded         Base64 encoded X.509 public key, as returned by the public key endpoint
+     * @param fetchedAtMillis wall clock time the key was fetched from the endpoint
+     * @throws EncryptException with {@link EncryptExceptionCode#PUBLIC_KEY_DECODING_FAILED} if the key can't be parsed
+     */
+    @NonNull
+    static CachedPublicKey parse(String encoded, long fetchedAtMillis) {
+        final PublicKey publicKey = RSAEncryption.getKey(encoded);
+        return new CachedPublicKey(encoded, publicKey, RSAEncryption.fingerprint(publicKey), fetchedAtMillis);
+    }
+
+    String getEncoded() {
+        return encoded;
+    }
+
+    PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return largest payload RSA encryption with this key takes, depends on the key size
+     */
+    int getMaxPlainBytes() {
+        return maxPlainBytes;
+    }
+
+    long getFetchedAtMillis() {
+        return fetchedAtMillis;
+    }
+
+    /**
+     * The endpoint returned this key again, it stays in use along with its ciphers.
+     */
+    void refetched(long fetchedAtMillis) {
+        this.fetchedAtMillis = fetchedAtMillis;
+    }
+
+    Cipher acquireCipher(CSEMetrics metrics) throws NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            metrics.count(MetricsCounter.CIPHER_CACHE_MISS);
+            final long started = CSEMetrics.start();
+            cipher = RSAEncryption.getEncryptionCipher(publicKey);
+            metrics.recordSince(MetricsPhase.CIPHER_INIT, started);
+            ciphers.set(cipher);
+        } else {
+            metrics.count(MetricsCounter.CIPHER_CACHE_HIT);
+        }
+        return cipher;
+    }
+
+    void releaseCipher() {
+        ciphers.remove();
+    }
+}
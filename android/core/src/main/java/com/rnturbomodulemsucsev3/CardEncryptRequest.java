@@ -0,0 +1,108 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.rnturbomodulemsucsev3.CardUtils.isValidCVV;
+import static com.rnturbomodulemsucsev3.CardUtils.isValidCardHolderName;
+import static com.rnturbomodulemsucsev3.CardUtils.isValidExpiry;
+import static com.rnturbomodulemsucsev3.CardUtils.isValidPan;
+import static com.rnturbomodulemsucsev3.CardUtils.normalizeYear;
+import static com.rnturbomodulemsucsev3.CardUtils.validateNonce;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ */
+final class CardEncryptRequest implements EncryptRequest {
+
+    private final String pan;
+    private final Integer rawExpiryYear;
+    // normalized to four digits for the month the request was last validated in
+    private Integer expiryYear;
+    private final Integer expiryMonth;
+    private final String cardHolderName;
+    private final String cvv;
+    private final String nonce;
+    private List<String> errors = new ArrayList<>();
+
+    CardEncryptRequest(String pan, Integer expiryYear, Integer expiryMonth, String cardHolderName, String cvv, String nonce) {
+        this.pan = CSETextUtils.removeNonDigits(pan);
+        this.rawExpiryYear = expiryYear;
+        this.expiryYear = expiryYear;
+        this.expiryMonth = expiryMonth;
+        this.cardHolderName = cardHolderName;
+        this.cvv = CSETextUtils.removeNonDigits(cvv);
+        this.nonce = nonce;
+    }
+
+
+    @Override
+    public boolean validate(int currentYearMonth, int maxPlainBytes) {
+        return validateCard(currentYearMonth, maxPlainBytes).isValid();
+    }
+
+    /**
+     * @param currentYearMonth see {@link EncryptRequest#validate(int, int)}
+     * @param maxPlainBytes    see {@link EncryptRequest#validate(int, int)}
+     */
+    CardValidationResult validateCard(int currentYearMonth, int maxPlainBytes) {
+
+        errors.clear();
+        expiryYear = rawExpiryYear == null ? null : normalizeYear(rawExpiryYear, currentYearMonth);
+
+        final boolean panValid = isValidPan(pan);
+        if (!panValid) {
+            this.errors.add("PAN_INVALID");
+        }
+
+        final boolean expiryValid = isValidExpiry(currentYearMonth, expiryMonth, expiryYear);
+        if (!expiryValid) {
+            this.errors.add("EXPIRY_INVALID");
+        }
+
+        final boolean cardHolderNameValid = isValidCardHolderName(cardHolderName);
+        if (!cardHolderNameValid) {
+            this.errors.add("CARD_HOLDER_NAME_INVALID");
+        }
+
+        final boolean cvvValid = isValidCVV(cvv, pan);
+        if (!cvvValid) {
+            this.errors.add("CVV_INVALID");
+        }
+
+        final boolean nonceValid = validateNonce(nonce);
+        if (!nonceValid) {
+            this.errors.add("NONCE_MISSING_OR_INVALID");
+        }
+
+        // measured only for valid fields, the payload of invalid ones may not even be writable
+        if (errors.isEmpty() && PayloadWriter.measure(this) > maxPlainBytes) {
+            this.errors.add("PAYLOAD_TOO_LARGE");
+        }
+
+        return new CardValidationResult(panValid, expiryValid, cardHolderNameValid, cvvValid, nonceValid,
+                PanAnalysis.of(pan).getBrand(), Collections.unmodifiableList(new ArrayList<>(errors)));
+    }
+
+    @Override
+    public List<String> errors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public void writePlain(PayloadWriter out) {
+        out.ascii("p=").text(pan)
+                .ascii("&y=").number(expiryYear)
+                .ascii("&m=");
+        // month padded to two digits
+        if (expiryMonth < 10) {
+            out.ascii('0');
+        }
+        out.number(expiryMonth)
+                .ascii("&c=").text(cvv)
+                .ascii("&cn=").text(cardHolderName)
+                .ascii("&n=").text(nonce);
+    }
+}
@@ -0,0 +1,249 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.rnturbomodulemsucsev3.CSETextUtils.isBlank;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ */
+class CardUtils {
+
+    /**
+     * @param currentYearMonth see {@link ExpiryClock#currentYearMonth()}
+     * @param month            1 to 12
+     * @param year             four digits, or two within the current century
+     * @return {@code true} if the card hasn't expired by the current month
+     */
+    static boolean isValidExpiry(int currentYearMonth, Integer month, Integer year) {
+        if (!validateExpMonth(month)) {
+            return false;
+        }
+
+        if (!validateExpYear(currentYearMonth, year)) {
+            return false;
+        }
+
+        return !hasMonthPassed(year, month, currentYearMonth);
+    }
+
+    static boolean hasMonthPassed(int year, int month, int currentYearMonth) {
+        if (hasYearPassed(year, currentYearMonth)) {
+            return true;
+        }
+
+        // Expires at end of specified month
+        return normalizeYear(year, currentYearMonth) == ExpiryClock.yearOf(currentYearMonth)
+                && month < ExpiryClock.monthOf(currentYearMonth);
+    }
+
+    /**
+     * Checks whether or not the expMonth is valid.
+     *
+     * @return {@code true} if valid, {@code false} otherwise.
+     */
+    static boolean validateExpMonth(Integer expMonth) {
+        return expMonth != null && expMonth >= 1 && expMonth <= 12;
+    }
+
+    /**
+     * Checks whether or not the expYear is valid.
+     *
+     * @return {@code true} if valid, {@code false} otherwise.
+     */
+    static boolean validateExpYear(int currentYearMonth, Integer expYear) {
+        return expYear != null && !hasYearPassed(expYear, currentYearMonth);
+    }
+
+    /**
+     * Determines whether or not the input year has already passed.
+     *
+     * @param year             the input year, as a two or four-digit integer
+     * @param currentYearMonth see {@link ExpiryClock#currentYearMonth()}
+     * @return {@code true} if the input year has passed the current year
+     * {@code false} otherwise.
+     */
+    static boolean hasYearPassed(int year, int currentYearMonth) {
+        return normalizeYear(year, currentYearMonth) < ExpiryClock.yearOf(currentYearMonth);
+    }
+
+    /**
+     * @return a two-digit year moved into the current century, any other year unchanged
+     */
+    static int normalizeYear(int year, int currentYearMonth) {
+        if (year < 100 && year >= 0) {
+            final int currentYear = ExpiryClock.yearOf(currentYearMonth);
+            return currentYear - currentYear % 100 + year;
+        }
+        return year;
+    }
+
+    /**
+     * Checks to see whether the input number is of the correct length, after determining its brand.
+     * This function does not perform a Luhn check.
+     *
+     * @param cardNumber the card number with no spaces or dashes
+     * @return {@code true} if the card number is of known type and the correct length
+     */
+    static boolean isValidCardLength(@Nullable String cardNumber) {
+        return cardNumber != null && PanAnalysis.of(cardNumber).isLengthValid();
+    }
+
+    /**
+     * Checks to see whether the input number is of the correct length, given the assumed brand of
+     * the card. This function does not perform a Luhn check.
+     *
+     * @param cardNumber the card number with no spaces or dashes
+     * @param cardBrand  a card used to get the correct size
+     * @return {@code true} if the card number is the correct length for the assumed brand
+     */
+    static boolean isValidCardLength(
+            @Nullable String cardNumber,
+            CardBrand cardBrand) {
+        return cardNumber != null && PanAnalysis.isValidLength(cardBrand, cardNumber.length());
+    }
+
+    private static CardBrand getPossibleCardBrand(@Nullable String cardNumber) {
+        return getPossibleCardBrand(cardNumber, true);
+    }
+
+    @NonNull
+    static CardBrand getPossibleCardBrand(@Nullable String cardNumber,
+                                          boolean shouldNormalize) {
+        return PanAnalysis.of(cardNumber).getBrand();
+    }
+
+    /**
+     * Checks the input string to see whether or not it is a valid Luhn number.
+     *
+     * @param cardNumber a String that may or may not represent a valid Luhn number
+     * @return {@code true} if and only if the input value is a valid Luhn number
+     */
+    static boolean isValidLuhnNumber(@Nullable String cardNumber) {
+        if (cardNumber == null) {
+            return false;
+        }
+
+        boolean isOdd = true;
+        int sum = 0;
+
+        for (int index = cardNumber.length() - 1; index >= 0; index--) {
+            char c = cardNumber.charAt(index);
+            if (!Character.isDigit(c)) {
+                return false;
+            }
+
+            int digitInteger = Character.getNumericValue(c);
+            isOdd = !isOdd;
+
+            if (isOdd) {
+                digitInteger *= 2;
+            }
+
+            if (digitInteger > 9) {
+                digitInteger -= 9;
+            }
+
+            sum += digitInteger;
+        }
+
+        return sum % 10 == 0;
+    }
+
+    static CardBrand getBrand(String number) {
+        if (number == null) {
+            return null;
+        }
+
+        return PanAnalysis.of(number).getBrand();
+    }
+
+    /**
+     * Check to see whether the input string is a whole, positive number.
+     *
+     * @param value the input string to test
+     * @return {@code true} if the input value consists entirely of integers
+     */
+    static boolean isWholePositiveNumber(@Nullable String value) {
+        return value != null && isDigitsOnly(value);
+    }
+
+    static boolean isDigitsOnly(String str) {
+        if (str.equals("")) {
+            return false;
+        }
+        final int len = str.length();
+        for (int i = 0; i < len; i++) {
+            if (!Character.isDigit(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static CardBrand getCardBrand(String pan) {
+        if (CSETextUtils.isBlank(pan)) {
+            return CardBrand.UNKNOWN;
+        }
+        return BinDatabase.resolve(BinTable.lookup(pan), pan);
+    }
+
+    static boolean isValidCardHolderName(String name) {
+        return name != null && name.length() > 0 && name.length() <= 128;
+    }
+
+    static boolean isValidCVV(String cvv) {
+        return isValidCVV(cvv, null);
+    }
+
+    static boolean isValidPan(String pan) {
+        return PanAnalysis.of(pan).isValid();
+    }
+
+    static boolean isValidCardToken(String cardToken) {
+        return cardToken != null && cardToken.length() >= 32 && cardToken.length() <= 64;
+    }
+
+    static CardBrand detectBrand(String pan) {
+        final PanAnalysis analysis = PanAnalysis.of(pan);
+
+        if (analysis.isBlank()) {
+            throw new IllegalStateException("First 4 digits of PAN expected");
+        }
+
+        return analysis.getBrand();
+    }
+
+    static boolean isValidCVV(String cvv, String pan) {
+        if (isBlank(cvv)) {
+            return false;
+        }
+
+        // bounds of cvv.trim(), without creating the trimmed string
+        int start = 0;
+        int end = cvv.length();
+        while (cvv.charAt(start) <= ' ') {
+            start++;
+        }
+        while (cvv.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(cvv.charAt(i))) {
+                return false;
+            }
+        }
+
+        final int length = end - start;
+        final CardBrand brand = getBrand(pan);
+        return (brand == null && length >= 3 && length <= 4)
+                || (CardBrand.AMERICAN_EXPRESS.equals(brand) && length == 4)
+                || length == 3;
+    }
+
+    static boolean validateNonce(String nonce) {
+        return nonce != null && nonce.length() > 0 && nonce.length() <= 16;
+    }
+}
@@ -0,0 +1,77 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * MSU CSE
+ * <p>
+ * Result of {@link CSECore#validateCard}, every field checked with the same rules as an encryption
+ * request. Doesn't affect {@link CSECore#getErrors()}.
+ */
+public final class CardValidationResult {
+
+    private final boolean panValid;
+    private final boolean expiryValid;
+    private final boolean cardHolderNameValid;
+    private final boolean cvvValid;
+    private final boolean nonceValid;
+    private final CardBrand brand;
+    private final List<String> errors;
+
+    CardValidationResult(boolean panValid,
+                         boolean expiryValid,
+                         boolean cardHolderNameValid,
+                         boolean cvvValid,
+                         boolean nonceValid,
+                         CardBrand brand,
+                         List<String> errors) {
+        this.panValid = panValid;
+        this.expiryValid = expiryValid;
+        this.cardHolderNameValid = cardHolderNameValid;
+        this.cvvValid = cvvValid;
+        this.nonceValid = nonceValid;
+        this.brand = brand;
+        this.errors = errors;
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public boolean isPanValid() {
+        return panValid;
+    }
+
+    public boolean isExpiryValid() {
+        return expiryValid;
+    }
+
+    public boolean isCardHolderNameValid() {
+        return cardHolderNameValid;
+    }
+
+    public boolean isCvvValid() {
+        return cvvValid;
+    }
+
+    public boolean isNonceValid() {
+        return nonceValid;
+    }
+
+    /**
+     * @return brand detected from the pan, {@link CardBrand#UNKNOWN} if it is blank or not recognized
+     */
+    @NonNull
+    public CardBrand getBrand() {
+        return brand;
+    }
+
+    /**
+     * @return error codes in the order {@link CSECore#getErrors()} would report them
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
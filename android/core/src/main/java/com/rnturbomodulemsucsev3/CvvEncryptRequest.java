@@ -21,7 +21,7 @@ final class CvvEncryptRequest implements EncryptRequest {
     }
 
     @Override
-    public boolean validate() {
+    public boolean validate(int currentYearMonth, int maxPlainBytes) {
         errors.clear();
         if (!CardUtils.isValidCVV(cvv)) {
             this.errors.add("CVV_INVALID");
@@ -31,6 +31,10 @@ final class CvvEncryptRequest implements EncryptRequest {
             this.errors.add("NONCE_MISSING_OR_INVALID");
         }
 
+        if (errors.isEmpty() && PayloadWriter.measure(this) > maxPlainBytes) {
+            this.errors.add("PAYLOAD_TOO_LARGE");
+        }
+
         return errors.isEmpty();
     }
 
@@ -40,7 +44,7 @@ final class CvvEncryptRequest implements EncryptRequest {
     }
 
     @Override
-    public String plain() {
-        return String.format("c=%s&n=%s", cvv, nonce);
+    public void writePlain(PayloadWriter out) {
+        out.ascii("c=").text(cvv).ascii("&n=").text(nonce);
     }
 }
@@ -0,0 +1,13 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.List;
+
+/**
+ * MSU CSE
+ */
+public interface EncryptBatchCallback {
+    /**
+     * @param results one result per submitted item, in submission order
+     */
+    void onComplete(List<EncryptBatchResult> results);
+}
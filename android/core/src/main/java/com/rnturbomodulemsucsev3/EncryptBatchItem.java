@@ -0,0 +1,32 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * A card or CVV to encrypt as part of {@link CSECore#encryptBatch(java.util.List, EncryptBatchCallback)}.
+ */
+public final class EncryptBatchItem {
+
+    private final EncryptRequest request;
+
+    private EncryptBatchItem(EncryptRequest request) {
+        this.request = request;
+    }
+
+    public static EncryptBatchItem card(String pan,
+                                        String cardHolderName,
+                                        Integer expiryYear,
+                                        Integer expiryMonth,
+                                        String cvv,
+                                        String nonce) {
+        return new EncryptBatchItem(new CardEncryptRequest(pan, expiryYear, expiryMonth, cardHolderName, cvv, nonce));
+    }
+
+    public static EncryptBatchItem cvv(String cvv, String nonce) {
+        return new EncryptBatchItem(new CvvEncryptRequest(cvv, nonce));
+    }
+
+    EncryptRequest getRequest() {
+        return request;
+    }
+}
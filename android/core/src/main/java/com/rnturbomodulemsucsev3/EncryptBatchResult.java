@@ -0,0 +1,70 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MSU CSE
+ * <p>
+ * Outcome of one {@link EncryptBatchItem}, either the encrypted value or the exception with the
+ * validation errors that caused it.
+ */
+public final class EncryptBatchResult {
+
+    private final int index;
+    @Nullable
+    private final String encrypted;
+    @Nullable
+    private final EncryptException encryptException;
+    private final List<String> errors;
+
+    private EncryptBatchResult(int index, @Nullable String encrypted, @Nullable EncryptException encryptException, List<String> errors) {
+        this.index = index;
+        this.encrypted = encrypted;
+        this.encryptException = encryptException;
+        this.errors = errors;
+    }
+
+    static EncryptBatchResult success(int index, String encrypted) {
+        return new EncryptBatchResult(index, encrypted, null, Collections.<String>emptyList());
+    }
+
+    static EncryptBatchResult failed(int index, EncryptException encryptException) {
+        return new EncryptBatchResult(index, null, encryptException, encryptException.getErrors());
+    }
+
+    static EncryptBatchResult invalid(int index, List<String> errors) {
+        final EncryptException encryptException = EncryptException.validationFailed(errors);
+        return new EncryptBatchResult(index, null, encryptException, encryptException.getErrors());
+    }
+
+    /**
+     * @return position of the item in the submitted list
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isSuccess() {
+        return encrypted != null;
+    }
+
+    @Nullable
+    public String getEncrypted() {
+        return encrypted;
+    }
+
+    @Nullable
+    public EncryptException getEncryptException() {
+        return encryptException;
+    }
+
+    /**
+     * @return validation errors of the item, empty unless it failed with {@link EncryptExceptionCode#VALIDATION_FAILED}
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
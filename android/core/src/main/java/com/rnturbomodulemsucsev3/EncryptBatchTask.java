@@ -0,0 +1,291 @@
+package com.rnturbomodulemsucsev3;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MSU CSE
+ * <p>
+ * Validates every item up front, resolves the public key once and encrypts the valid items in
+ * parallel chunks, one per encryption thread. All results are delivered together on the callback executor.
+ * Items that failed because the key itself was unusable are retried once with a freshly fetched key.
+ * <p>
+ * In {@link CSEConfig.EncryptionMode#ENVELOPE} mode the first chunk to run wraps an AES key for the
+ * public key, every item is sealed with that one key.
+ */
+final class EncryptBatchTask implements InFlightTasks.Task {
+
+    private final EncryptBatchCallback callback;
+    private final List<EncryptRequest> requests;
+    private final CSEConfig.EncryptionMode encryptionMode;
+    private final ExpiryClock expiryClock;
+    private final CSEApi cseApi;
+    private final CSEExecutors executors;
+    private final Executor callbackExecutor;
+    private final CSEMetrics metrics;
+    private final long startedAtNanos;
+    private final InFlightTasks inFlight;
+
+    private final EncryptBatchResult[] results;
+    private final AtomicInteger remainingChunks = new AtomicInteger();
+    private final boolean[] keyFailed;
+    private int[] valid;
+    private volatile boolean retried;
+    // guarded by this, replaced when a retry brings a new public key
+    private Envelope envelope;
+
+    private final CSEExecutors.Task fetchStage = new CSEExecutors.Task() {
+        @Override
+        public void run() {
+            fetchPublicKey();
+        }
+
+        @Override
+        public void reject(RejectedExecutionException e) {
+            failAll(EncryptException.create(e, EncryptExceptionCode.REQUEST_REJECTED));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    };
+
+    private volatile boolean cancelled;
+
+    EncryptBatchTask(EncryptBatchCallback callback, List<EncryptRequest> requests, CSEConfig.EncryptionMode encryptionMode,
+                     ExpiryClock expiryClock, CSEApi cseApi, CSEExecutors executors, Executor callbackExecutor, CSEMetrics metrics, InFlightTasks inFlight) {
+        // held strongly until delivery, callers often pass a callback nothing else references
+        this.callback = callback;
+        this.requests = requests;
+        this.encryptionMode = encryptionMode;
+        this.expiryClock = expiryClock;
+        this.cseApi = cseApi;
+        this.executors = executors;
+        this.callbackExecutor = callbackExecutor;
+        this.metrics = metrics;
+        this.startedAtNanos = CSEMetrics.start();
+        this.inFlight = inFlight;
+        this.results = new EncryptBatchResult[requests.size()];
+        this.keyFailed = new boolean[requests.size()];
+    }
+
+    EncryptBatchTask execute() {
+        inFlight.add(this);
+        int validCount = 0;
+        final int[] validIndexes = new int[requests.size()];
+        // one month for the whole batch, even if it is validated across midnight
+        final int currentYearMonth = expiryClock.currentYearMonth();
+        final CachedPublicKey cached = cseApi.cachedPublicKey();
+        final int maxPlainBytes = encryptionMode.maxPlainBytes(cached);
+        for (int i = 0; i < requests.size(); i++) {
+            final EncryptRequest request = requests.get(i);
+            final long started = CSEMetrics.start();
+            final boolean validRequest = request.validate(currentYearMonth, maxPlainBytes);
+            metrics.recordSince(MetricsPhase.VALIDATION, started);
+            if (validRequest) {
+                validIndexes[validCount++] = i;
+            } else {
+                results[i] = EncryptBatchResult.invalid(i, request.errors());
+            }
+        }
+        valid = Arrays.copyOf(validIndexes, validCount);
+
+        if (valid.length == 0) {
+            deliver();
+            return this;
+        }
+
+        if (cached != null) {
+            metrics.count(MetricsCounter.KEY_CACHE_HIT);
+            encryptAll(cached);
+        } else {
+            metrics.count(MetricsCounter.KEY_CACHE_MISS);
+            try {
+                executors.keyFetch().execute(fetchStage);
+            } catch (RejectedExecutionException e) {
+                fetchStage.reject(e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Queued stages do nothing once they run, the callback is not invoked after this call.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void fetchPublicKey() {
+        if (cancelled) {
+            return;
+        }
+
+        try {
+            final PublicKeyFetchResult publicKeyFetchResult = cseApi.fetchPublicKey();
+
+            if (publicKeyFetchResult.getCause() != null) {
+                failAll(publicKeyFetchResult.getCause());
+                return;
+            }
+
+            encryptAll(publicKeyFetchResult.getPublicKey());
+        } catch (Exception e) {
+            failAll(EncryptException.create(e, EncryptExceptionCode.UNKNOWN_EXCEPTION));
+        }
+    }
+
+    private void encryptAll(CachedPublicKey publicKey) {
+        final int chunks = Math.min(executors.encryptionParallelism(), valid.length);
+        remainingChunks.set(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final Chunk stage = new Chunk(publicKey, chunk, chunks);
+            try {
+                executors.encryption().execute(stage);
+            } catch (RejectedExecutionException e) {
+                stage.reject(e);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if items that failed on an unusable key are being retried with a new key
+     */
+    private boolean retryKeyFailures(CachedPublicKey publicKey) {
+        if (retried || cancelled) {
+            return false;
+        }
+
+        int count = 0;
+        final int[] failed = new int[valid.length];
+        for (int index : valid) {
+            if (keyFailed[index]) {
+                failed[count++] = index;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        retried = true;
+        valid = Arrays.copyOf(failed, count);
+        cseApi.invalidate(publicKey);
+        try {
+            executors.keyFetch().execute(fetchStage);
+        } catch (RejectedExecutionException e) {
+            fetchStage.reject(e);
+        }
+        return true;
+    }
+
+    /**
+     * @return the envelope for publicKey, wrapping a new AES key on the first call
+     */
+    private synchronized Envelope envelope(CachedPublicKey publicKey) throws GeneralSecurityException {
+        if (envelope == null || envelope.getPublicKey() != publicKey) {
+            envelope = Envelope.create(publicKey, metrics);
+        }
+        return envelope;
+    }
+
+    private String encrypt(CachedPublicKey publicKey, EncryptRequest request) throws Exception {
+        if (encryptionMode == CSEConfig.EncryptionMode.ENVELOPE) {
+            return envelope(publicKey).seal(request, metrics);
+        }
+        return RSAEncryption.encrypt(publicKey, request, metrics);
+    }
+
+    private void failAll(EncryptException e) {
+        for (int index : valid) {
+            results[index] = EncryptBatchResult.failed(index, e);
+        }
+        deliver();
+    }
+
+    private void deliver() {
+        // chunks stop early once cancelled and leave results unset, nothing is delivered anyway
+        if (cancelled) {
+            return;
+        }
+
+        for (EncryptBatchResult result : results) {
+            if (!result.isSuccess()) {
+                metrics.failure(result.getEncryptException().getCode());
+            }
+        }
+        final long dispatchedAt = CSEMetrics.start();
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                inFlight.remove(EncryptBatchTask.this);
+                metrics.recordSince(MetricsPhase.CALLBACK_DISPATCH, dispatchedAt);
+                metrics.recordSince(MetricsPhase.BATCH_TOTAL, startedAtNanos);
+                if (cancelled) {
+                    return;
+                }
+
+                callback.onComplete(Arrays.asList(results));
+            }
+        });
+    }
+
+    /**
+     * Every n-th valid item starting at offset, so chunks are balanced without copying the item list.
+     */
+    private final class Chunk implements CSEExecutors.Task {
+
+        private final CachedPublicKey publicKey;
+        private final int offset;
+        private final int stride;
+
+        Chunk(CachedPublicKey publicKey, int offset, int stride) {
+            this.publicKey = publicKey;
+            this.offset = offset;
+            this.stride = stride;
+        }
+
+        @Override
+        public void run() {
+            for (int i = offset; i < valid.length && !cancelled; i += stride) {
+                final int index = valid[i];
+                try {
+                    results[index] = EncryptBatchResult.success(index, encrypt(publicKey, requests.get(index)));
+                } catch (Exception e) {
+                    keyFailed[index] = RSAEncryption.isKeyFailure(e);
+                    results[index] = EncryptBatchResult.failed(index, e instanceof EncryptException
+                            ? (EncryptException) e
+                            : EncryptException.create(e, EncryptExceptionCode.UNKNOWN_EXCEPTION));
+                }
+            }
+            chunkDone();
+        }
+
+        @Override
+        public void reject(RejectedExecutionException e) {
+            final EncryptException rejected = EncryptException.create(e, EncryptExceptionCode.REQUEST_REJECTED);
+            for (int i = offset; i < valid.length; i += stride) {
+                results[valid[i]] = EncryptBatchResult.failed(valid[i], rejected);
+            }
+            chunkDone();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void chunkDone() {
+            if (remainingChunks.decrementAndGet() == 0) {
+                if (!retryKeyFailures(publicKey)) {
+                    deliver();
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.rnturbomodulemsucsev3;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Created by jasmin.suljic@monri.com
  * MSU CSE
@@ -7,25 +11,45 @@ package com.rnturbomodulemsucsev3;
 public class EncryptException extends RuntimeException {
 
     private final EncryptExceptionCode code;
+    private final List<String> errors;
 
     private EncryptException(String message, EncryptExceptionCode code) {
+        this(message, code, Collections.<String>emptyList());
+    }
+
+    private EncryptException(String message, EncryptExceptionCode code, List<String> errors) {
         super(message);
         this.code = code;
+        this.errors = errors;
     }
 
     private EncryptException(Throwable cause, EncryptExceptionCode code) {
         super(cause);
         this.code = code;
+        this.errors = Collections.emptyList();
     }
 
     public EncryptExceptionCode getCode() {
         return code;
     }
 
+    /**
+     * @return validation errors of the failed request, empty unless the code is
+     * {@link EncryptExceptionCode#VALIDATION_FAILED}
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
     static EncryptException create(EncryptExceptionCode code) {
         return new EncryptException(code.toString(), code);
     }
 
+    static EncryptException validationFailed(List<String> errors) {
+        return new EncryptException(EncryptExceptionCode.VALIDATION_FAILED.toString(), EncryptExceptionCode.VALIDATION_FAILED,
+                Collections.unmodifiableList(new ArrayList<>(errors)));
+    }
+
     static EncryptException create(String message, EncryptExceptionCode code) {
         return new EncryptException(message, code);
     }
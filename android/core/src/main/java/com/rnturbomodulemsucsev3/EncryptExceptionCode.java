@@ -8,5 +8,6 @@ public enum EncryptExceptionCode {
     REQUEST_FAILED,
     UNKNOWN_EXCEPTION,
     VALIDATION_FAILED,
-    PUBLIC_KEY_DECODING_FAILED
+    PUBLIC_KEY_DECODING_FAILED,
+    REQUEST_REJECTED
 }
@@ -0,0 +1,25 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.List;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ */
+interface EncryptRequest {
+
+    /**
+     * @param currentYearMonth month expiry dates are checked against, see
+     *                         {@link ExpiryClock#currentYearMonth()}
+     * @param maxPlainBytes largest payload the encryption mode and public key take, a longer one is reported as
+     *                      {@code PAYLOAD_TOO_LARGE}
+     */
+    boolean validate(int currentYearMonth, int maxPlainBytes);
+
+    List<String> errors();
+
+    /**
+     * Writes the plaintext payload, the caller clears the writer once it is encrypted.
+     */
+    void writePlain(PayloadWriter out);
+}
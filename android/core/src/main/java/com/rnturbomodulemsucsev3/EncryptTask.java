@@ -0,0 +1,180 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ * <p>
+ * Fetches the public key on the key fetch executor when it isn't cached, encrypts on the encryption
+ * executor and delivers the result to the callback on the callback executor. If the key itself turns
+ * out to be unusable it is invalidated and the request is retried once with a freshly fetched key.
+ */
+final class EncryptTask implements InFlightTasks.Task {
+
+    private final EncryptCallback callback;
+    private final EncryptRequest request;
+    private final CSEConfig.EncryptionMode encryptionMode;
+    private final CSEApi cseApi;
+    private final CSEExecutors executors;
+    private final Executor callbackExecutor;
+    private final CSEMetrics metrics;
+    private final long startedAtNanos;
+    private final InFlightTasks inFlight;
+
+    private final CSEExecutors.Task fetchStage = new CSEExecutors.Task() {
+        @Override
+        public void run() {
+            fetchPublicKey();
+        }
+
+        @Override
+        public void reject(RejectedExecutionException e) {
+            deliver(EncryptTaskResult.failed(e, EncryptExceptionCode.REQUEST_REJECTED));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    };
+
+    private volatile boolean cancelled;
+    private volatile boolean retried;
+
+    EncryptTask(EncryptCallback callback, EncryptRequest request, CSEConfig.EncryptionMode encryptionMode, CSEApi cseApi,
+                CSEExecutors executors, Executor callbackExecutor, CSEMetrics metrics, long startedAtNanos, InFlightTasks inFlight) {
+        // held strongly until delivery, callers often pass a callback nothing else references
+        this.callback = callback;
+        this.request = request;
+        this.encryptionMode = encryptionMode;
+        this.cseApi = cseApi;
+        this.executors = executors;
+        this.callbackExecutor = callbackExecutor;
+        this.metrics = metrics;
+        this.startedAtNanos = startedAtNanos;
+        this.inFlight = inFlight;
+    }
+
+    EncryptTask execute() {
+        inFlight.add(this);
+        final CachedPublicKey cached = cseApi.cachedPublicKey();
+        try {
+            if (cached != null) {
+                metrics.count(MetricsCounter.KEY_CACHE_HIT);
+                submitEncrypt(cached);
+            } else {
+                metrics.count(MetricsCounter.KEY_CACHE_MISS);
+                executors.keyFetch().execute(fetchStage);
+            }
+        } catch (RejectedExecutionException e) {
+            deliver(EncryptTaskResult.failed(e, EncryptExceptionCode.REQUEST_REJECTED));
+        }
+        return this;
+    }
+
+    /**
+     * Queued stages do nothing once they run, the callback is not invoked after this call.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void fetchPublicKey() {
+        if (cancelled) {
+            return;
+        }
+
+        try {
+            final PublicKeyFetchResult publicKeyFetchResult = cseApi.fetchPublicKey();
+
+            if (publicKeyFetchResult.getCause() != null) {
+                deliver(EncryptTaskResult.failed(publicKeyFetchResult.getCause()));
+                return;
+            }
+
+            submitEncrypt(publicKeyFetchResult.getPublicKey());
+        } catch (RejectedExecutionException e) {
+            deliver(EncryptTaskResult.failed(e, EncryptExceptionCode.REQUEST_REJECTED));
+        } catch (Exception e) {
+            deliver(EncryptTaskResult.failed(e, EncryptExceptionCode.UNKNOWN_EXCEPTION));
+        }
+    }
+
+    private void submitEncrypt(final CachedPublicKey publicKey) {
+        final CSEExecutors.Task stage = new CSEExecutors.Task() {
+            @Override
+            public void run() {
+                encrypt(publicKey);
+            }
+
+            @Override
+            public void reject(RejectedExecutionException e) {
+                deliver(EncryptTaskResult.failed(e, EncryptExceptionCode.REQUEST_REJECTED));
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+        };
+        executors.encryption().execute(stage);
+    }
+
+    private void encrypt(CachedPublicKey publicKey) {
+        if (cancelled) {
+            return;
+        }
+
+        try {
+            final String encrypted = encryptionMode == CSEConfig.EncryptionMode.ENVELOPE
+                    ? Envelope.create(publicKey, metrics).seal(request, metrics)
+                    : RSAEncryption.encrypt(publicKey, request, metrics);
+            deliver(EncryptTaskResult.success(encrypted));
+        } catch (Exception e) {
+            if (!retried && RSAEncryption.isKeyFailure(e)) {
+                retried = true;
+                cseApi.invalidate(publicKey);
+                try {
+                    executors.keyFetch().execute(fetchStage);
+                } catch (RejectedExecutionException rejected) {
+                    deliver(EncryptTaskResult.failed(rejected, EncryptExceptionCode.REQUEST_REJECTED));
+                }
+                return;
+            }
+            deliver(e instanceof EncryptException
+                    ? EncryptTaskResult.failed((EncryptException) e)
+                    : EncryptTaskResult.failed(e, EncryptExceptionCode.UNKNOWN_EXCEPTION));
+        }
+    }
+
+    private void deliver(final EncryptTaskResult encryptTaskResult) {
+        if (encryptTaskResult.getEncryptException() != null) {
+            metrics.failure(encryptTaskResult.getEncryptException().getCode());
+        }
+        final long dispatchedAt = CSEMetrics.start();
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                inFlight.remove(EncryptTask.this);
+                metrics.recordSince(MetricsPhase.CALLBACK_DISPATCH, dispatchedAt);
+                metrics.recordSince(MetricsPhase.TOTAL, startedAtNanos);
+                onPostExecute(encryptTaskResult);
+            }
+        });
+    }
+
+    private void onPostExecute(EncryptTaskResult encryptTaskResult) {
+        if (cancelled) {
+            return;
+        }
+
+        if (encryptTaskResult.getEncrypted() != null) {
+            callback.onSuccess(encryptTaskResult.getEncrypted());
+        } else {
+            callback.onError(encryptTaskResult.getEncryptException());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rnturbomodulemsucsev3;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * MSU CSE
+ * <p>
+ * A random AES-256 key wrapped once with the RSA public key, sealing any number of payloads with
+ * AES-GCM. Every sealed payload is self-contained, Base64 encoded without line wraps:
+ * <pre>
+ * version            1 byte, {@link #VERSION}
+ * wrapped key length 2 bytes, big-endian
+ * wrapped key        RSA-OAEP with SHA-256 of the AES key
+ * IV                 12 bytes
+ * ciphertext         AES-GCM of the payload followed by its 16 byte tag, everything before the IV
+ *                    is authenticated as additional data
+ * </pre>
+ * The key never encrypts more than one envelope's payloads, so IVs are a counter instead of random.
+ * Thread safe, items of a batch are sealed in parallel.
+ */
+final class Envelope {
+
+    static final byte VERSION = 1;
+    static final int KEY_BYTES = 32;
+    static final int IV_BYTES = 12;
+    static final int TAG_BITS = 128;
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+    private final CachedPublicKey publicKey;
+    private final SecretKeySpec key;
+    private final byte[] header;
+    private final AtomicInteger nextIv = new AtomicInteger();
+
+    private Envelope(CachedPublicKey publicKey, SecretKeySpec key, byte[] header) {
+        this.publicKey = publicKey;
+        this.key = key;
+        this.header = header;
+    }
+
+    /**
+     * Generates a key and wraps it with publicKey, the one RSA operation of the envelope.
+     */
+    static Envelope create(CachedPublicKey publicKey, CSEMetrics metrics) throws GeneralSecurityException {
+        final long started = CSEMetrics.start();
+        final byte[] raw = new byte[KEY_BYTES];
+        ThreadSecureRandom.get().nextBytes(raw);
+        try {
+            final byte[] wrapped = RSAEncryption.encrypt(publicKey, raw, metrics);
+            final byte[] header = new byte[3 + wrapped.length];
+            header[0] = VERSION;
+            header[1] = (byte) (wrapped.length >>> 8);
+            header[2] = (byte) wrapped.length;
+            System.arraycopy(wrapped, 0, header, 3, wrapped.length);
+            final Envelope envelope = new Envelope(publicKey, new SecretKeySpec(raw, "AES"), header);
+            metrics.recordSince(MetricsPhase.KEY_WRAP, started);
+            return envelope;
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    CachedPublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    /**
+     * Encrypts the payload of request with the calling thread's buffers, the plaintext is wiped as
+     * soon as it is encrypted
+     *
+     * @return the sealed payload, Base64 encoded without line wraps
+     */
+    String seal(EncryptRequest request, CSEMetrics metrics) throws GeneralSecurityException {
+        final int iv = nextIv.getAndIncrement();
+        if (iv < 0) {
+            throw new IllegalStateException("Envelope sealed too many payloads");
+        }
+
+        final PayloadWriter writer = PayloadWriter.get();
+        try {
+            final long started = CSEMetrics.start();
+            request.writePlain(writer);
+            final int ivOffset = header.length;
+            final int ciphertextOffset = ivOffset + IV_BYTES;
+            final byte[] output = writer.output(ciphertextOffset + writer.length() + TAG_BITS / 8);
+            System.arraycopy(header, 0, output, 0, header.length);
+            Arrays.fill(output, ivOffset, ciphertextOffset - 4, (byte) 0);
+            output[ciphertextOffset - 4] = (byte) (iv >>> 24);
+            output[ciphertextOffset - 3] = (byte) (iv >>> 16);
+            output[ciphertextOffset - 2] = (byte) (iv >>> 8);
+            output[ciphertextOffset - 1] = (byte) iv;
+
+            final Cipher cipher = cipher();
+            final int encrypted;
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, output, ivOffset, IV_BYTES));
+                cipher.updateAAD(output, 0, header.length);
+                encrypted = cipher.doFinal(writer.plain(), 0, writer.length(), output, ciphertextOffset);
+            } catch (GeneralSecurityException | RuntimeException e) {
+                CIPHERS.remove();
+                throw e;
+            }
+            final String encoded = writer.base64(output, ciphertextOffset + encrypted);
+            metrics.recordSince(MetricsPhase.ENCRYPTION, started);
+            return encoded;
+        } finally {
+            writer.clear();
+        }
+    }
+
+    private static Cipher cipher() throws GeneralSecurityException {
+        Cipher cipher = CIPHERS.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            CIPHERS.set(cipher);
+        }
+        return cipher;
+    }
+}
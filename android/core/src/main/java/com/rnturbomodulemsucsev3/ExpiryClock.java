@@ -0,0 +1,114 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.util.Calendar;
+
+/**
+ * MSU CSE
+ * <p>
+ * The current month as expiry validation sees it, a card is valid until the end of its expiry month.
+ * Months are plain ints, {@code year * 12 + month - 1}, so expiry checks are integer comparisons.
+ * <p>
+ * {@link #system()} follows the device clock, {@link #fixed(int, int)} freezes time for tests.
+ */
+public abstract class ExpiryClock {
+
+    private static final ExpiryClock SYSTEM = new SystemClock();
+
+    /**
+     * @return the current month, {@code year * 12 + month - 1} with month 1 to 12
+     */
+    public abstract int currentYearMonth();
+
+    /**
+     * The device clock in the default time zone. The month is cached and only recomputed once the
+     * wall clock leaves it, reading it allocates nothing.
+     */
+    @NonNull
+    public static ExpiryClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * @param month 1 to 12
+     */
+    @NonNull
+    public static ExpiryClock fixed(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("month must be 1 to 12, was " + month);
+        }
+        final int yearMonth = yearMonth(year, month);
+        return new ExpiryClock() {
+            @Override
+            public int currentYearMonth() {
+                return yearMonth;
+            }
+        };
+    }
+
+    static int yearMonth(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    static int yearOf(int yearMonth) {
+        return yearMonth / 12;
+    }
+
+    /**
+     * @return month 1 to 12
+     */
+    static int monthOf(int yearMonth) {
+        return yearMonth % 12 + 1;
+    }
+
+    static class SystemClock extends ExpiryClock {
+
+        // replaced as a whole, so a reader never sees a month with the bounds of another
+        private volatile Month month = new Month(0, 0, 0);
+
+        @Override
+        public int currentYearMonth() {
+            final long now = currentTimeMillis();
+            Month current = month;
+            // also recomputed when the clock was set back
+            if (now < current.fromMillis || now >= current.untilMillis) {
+                current = Month.at(now);
+                month = current;
+            }
+            return current.yearMonth;
+        }
+
+        /**
+         * Wall clock time, tests override it to move the clock across month boundaries
+         */
+        long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    }
+
+    private static final class Month {
+
+        final int yearMonth;
+        final long fromMillis;
+        final long untilMillis;
+
+        Month(int yearMonth, long fromMillis, long untilMillis) {
+            this.yearMonth = yearMonth;
+            this.fromMillis = fromMillis;
+            this.untilMillis = untilMillis;
+        }
+
+        static Month at(long millis) {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(millis);
+            // Calendar month starts at 0
+            final int yearMonth = yearMonth(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+            calendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), 1, 0, 0, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            final long from = calendar.getTimeInMillis();
+            calendar.add(Calendar.MONTH, 1);
+            return new Month(yearMonth, from, calendar.getTimeInMillis());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.rnturbomodulemsucsev3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+
+/**
+ * MSU CSE
+ * <p>
+ * Default {@link KeyTransport}. Response bodies are read completely and closed without calling
+ * {@link HttpURLConnection#disconnect()}, so the connection returns to the keep-alive pool and later
+ * refreshes skip the TLS handshake.
+ */
+final class HttpKeyTransport implements KeyTransport {
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    HttpKeyTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public String fetchPublicKey(String endpoint) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setRequestProperty("Accept", "application/json");
+
+        final int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            drain(connection.getErrorStream());
+            final String message = "Public key request failed with HTTP " + status;
+            // a client error other than timeout or throttling comes back the same on every retry
+            if (status >= 400 && status < 500 && status != HTTP_REQUEST_TIMEOUT && status != HTTP_TOO_MANY_REQUESTS) {
+                throw new KeyResponseException(message);
+            }
+            throw new IOException(message);
+        }
+
+        final InputStream in = connection.getInputStream();
+        try {
+            byte[] body = new byte[Math.max(connection.getContentLength(), INITIAL_BUFFER_SIZE)];
+            int length = 0;
+            for (int read; (read = in.read(body, length, body.length - length)) != -1; ) {
+                length += read;
+                if (length == body.length) {
+                    body = Arrays.copyOf(body, body.length * 2);
+                }
+            }
+            return PublicKeyResponseParser.parse(body, length);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void drain(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            final byte[] skip = new byte[INITIAL_BUFFER_SIZE];
+            //noinspection StatementWithEmptyBody
+            while (in.read(skip) != -1) {
+            }
+            in.close();
+        } catch (IOException ignored) {
+            // the connection is simply not reused
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MSU CSE
+ * <p>
+ * Encryptions of one {@link CSECore} that haven't delivered their result yet. Tasks add themselves
+ * when they start and remove themselves once their callback runs.
+ */
+final class InFlightTasks {
+
+    interface Task {
+        /**
+         * Marks the task cancelled, its remaining stages do nothing and its callback is not invoked.
+         */
+        void cancel();
+    }
+
+    private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+    private final CSEExecutors executors;
+
+    InFlightTasks(CSEExecutors executors) {
+        this.executors = executors;
+    }
+
+    void add(Task task) {
+        tasks.add(task);
+    }
+
+    void remove(Task task) {
+        tasks.remove(task);
+    }
+
+    int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Cancels every task, then drops their queued stages in a single pass over the executor queues.
+     */
+    void cancelAll() {
+        for (Task task : tasks) {
+            tasks.remove(task);
+            task.cancel();
+        }
+        executors.purgeCancelled();
+    }
+}
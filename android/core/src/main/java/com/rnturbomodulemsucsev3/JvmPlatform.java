@@ -0,0 +1,27 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.Base64;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MSU CSE
+ * <p>
+ * {@link Platform} of a plain JVM, uses {@link Base64} which Android only has from API 26 on.
+ */
+final class JvmPlatform extends Platform {
+
+    @Override
+    byte[] decodeBase64(String value) {
+        // the MIME decoder skips line wraps and other characters outside the alphabet, like
+        // android.util.Base64 does
+        return Base64.getMimeDecoder().decode(value);
+    }
+
+    @Override
+    void warn(String tag, String message, @Nullable Throwable throwable) {
+        Logger.getLogger(tag).log(Level.WARNING, message, throwable);
+    }
+}
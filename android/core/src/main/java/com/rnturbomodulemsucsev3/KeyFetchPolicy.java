@@ -0,0 +1,168 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MSU CSE
+ * <p>
+ * Runs a public key request with bounded retries, exponential backoff with full jitter and, when
+ * enabled, a hedged second request if the first one is slower than the hedge threshold. The first
+ * successful response wins and the other request is cancelled. Only transport failures are retried,
+ * and the whole fetch is bounded by a total timeout.
+ */
+final class KeyFetchPolicy {
+
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final long hedgeAfterMillis;
+    private final long totalTimeoutMillis;
+    @Nullable
+    private final Executor requestExecutor;
+
+    /**
+     * @param requestExecutor runs the requests so that the caller can stop waiting at the total
+     *                        timeout, {@code null} or a rejection runs them on the calling thread,
+     *                        bounded only by the transport timeouts
+     */
+    KeyFetchPolicy(int maxRetries, long retryBackoffMillis, long hedgeAfterMillis, long totalTimeoutMillis,
+                   @Nullable Executor requestExecutor) {
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.hedgeAfterMillis = hedgeAfterMillis;
+        this.totalTimeoutMillis = totalTimeoutMillis;
+        this.requestExecutor = requestExecutor;
+    }
+
+    static KeyFetchPolicy from(CSEConfig config, Executor requestExecutor) {
+        return new KeyFetchPolicy(
+                config.getKeyFetchMaxRetries(),
+                config.getKeyFetchRetryBackoffMillis(),
+                config.getKeyFetchHedgeAfterMillis(),
+                config.getKeyFetchTotalTimeoutMillis(),
+                requestExecutor
+        );
+    }
+
+    /**
+     * @return result of the first successful attempt
+     * @throws Exception failure of the last attempt once retries are exhausted, the total timeout
+     *                   has passed or the failure isn't transient
+     */
+    <T> T execute(Callable<T> request) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(totalTimeoutMillis);
+        for (int attempt = 0; ; attempt++) {
+            final long backoff;
+            try {
+                return attempt(request, deadline);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (!isTransient(e) || attempt >= maxRetries) {
+                    throw e;
+                }
+                backoff = backoffMillis(attempt);
+                // the retry would start after the deadline
+                if (backoff >= remainingMillis(deadline)) {
+                    throw e;
+                }
+            }
+            Thread.sleep(backoff);
+        }
+    }
+
+    /**
+     * @return {@code true} for failures another request may not run into, a broken connection, a
+     * timeout or a server error
+     */
+    private static boolean isTransient(Exception e) {
+        return e instanceof IOException && !(e instanceof KeyResponseException);
+    }
+
+    long backoffMillis(int attempt) {
+        final long cap = retryBackoffMillis << Math.min(attempt, MAX_BACKOFF_SHIFT);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private <T> T attempt(Callable<T> request, long deadline) throws Exception {
+        if (requestExecutor == null) {
+            return request.call();
+        }
+
+        final ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(requestExecutor);
+        final List<Future<T>> requests = new ArrayList<>(2);
+        try {
+            requests.add(completion.submit(request));
+        } catch (RejectedExecutionException e) {
+            return request.call();
+        }
+
+        try {
+            Future<T> done = null;
+            if (hedgeAfterMillis > 0 && hedgeAfterMillis < remainingMillis(deadline)) {
+                done = completion.poll(hedgeAfterMillis, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    try {
+                        requests.add(completion.submit(request));
+                    } catch (RejectedExecutionException e) {
+                        // no thread for the hedge, keep waiting for the first request
+                    }
+                }
+            }
+            if (done == null) {
+                done = await(completion, deadline);
+            }
+
+            Exception failure;
+            int completed = 1;
+            while (true) {
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = unwrap(e);
+                }
+                if (completed == requests.size()) {
+                    throw failure;
+                }
+                done = await(completion, deadline);
+                completed++;
+            }
+        } finally {
+            for (Future<T> future : requests) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private <T> Future<T> await(ExecutorCompletionService<T> completion, long deadline)
+            throws InterruptedException, SocketTimeoutException {
+        final Future<T> done = completion.poll(remainingMillis(deadline), TimeUnit.MILLISECONDS);
+        if (done == null) {
+            throw new SocketTimeoutException("Public key fetch exceeded its total timeout of " + totalTimeoutMillis + " ms");
+        }
+        return done;
+    }
+
+    private static long remainingMillis(long deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        final Throwable cause = e.getCause();
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+}
@@ -0,0 +1,16 @@
+package com.rnturbomodulemsucsev3;
+
+import java.io.IOException;
+
+/**
+ * MSU CSE
+ * <p>
+ * Public key response that a repeated request would get again, a client error status or a body
+ * without a usable public key. {@link KeyFetchPolicy} doesn't retry it.
+ */
+final class KeyResponseException extends IOException {
+
+    KeyResponseException(String message) {
+        super(message);
+    }
+}
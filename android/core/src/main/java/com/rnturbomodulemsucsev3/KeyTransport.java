@@ -0,0 +1,20 @@
+package com.rnturbomodulemsucsev3;
+
+import java.io.IOException;
+
+/**
+ * MSU CSE
+ * <p>
+ * Performs a single public key request, retries and caching are handled by {@link CSEApiImpl}.
+ */
+interface KeyTransport {
+
+    /**
+     * @param endpoint public key endpoint URL
+     * @return Base64 encoded public key from the response
+     * @throws IOException          if the request fails, retried for as long as the policy allows
+     * @throws KeyResponseException if the response rejects the request or doesn't contain a public
+     *                              key, not retried
+     */
+    String fetchPublicKey(String endpoint) throws IOException;
+}
@@ -0,0 +1,119 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MSU CSE
+ * <p>
+ * Lock free histogram of durations in nanoseconds with a fixed memory footprint. Buckets are
+ * log-linear: every power of two is split into {@link #SUB_BUCKETS} equal buckets, so a percentile
+ * is off by at most 1/16 of its value. Recording is a few atomic increments and allocates nothing.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // durations from about 68 seconds up share the last bucket, max still tracks them exactly
+    private static final int MAX_SHIFT = 32;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_SHIFT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        buckets.incrementAndGet(index(value));
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Copies the current counts. Values recorded meanwhile may be missing from some fields.
+     */
+    Snapshot snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.get(), max.get());
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, MAX_SHIFT);
+        final int subBucket = (int) Math.min(value >>> shift, 2 * SUB_BUCKETS - 1) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return smallest value counted in bucket index
+     */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        final int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the middle of the bucket holding the value at percentile, 0 if nothing was recorded
+         */
+        long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            if (percentile >= 100) {
+                return max;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    final long lower = lowerBound(i);
+                    final long upper = i + 1 < counts.length ? lowerBound(i + 1) : max + 1;
+                    return Math.min(lower + (upper - lower) / 2, max);
+                }
+            }
+            return max;
+        }
+    }
+}
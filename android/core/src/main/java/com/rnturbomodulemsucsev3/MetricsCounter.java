@@ -0,0 +1,39 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * Counted events of the encryption path, see {@link CSEMetricsSnapshot}.
+ */
+public enum MetricsCounter {
+    /**
+     * An encryption found the public key in memory
+     */
+    KEY_CACHE_HIT("keyCacheHit"),
+    /**
+     * An encryption had to wait for the public key
+     */
+    KEY_CACHE_MISS("keyCacheMiss"),
+    /**
+     * The public key was restored from the {@link PublicKeyStore} instead of the network
+     */
+    KEY_RESTORED("keyRestored"),
+    /**
+     * An encryption reused the cipher of its thread
+     */
+    CIPHER_CACHE_HIT("cipherCacheHit"),
+    /**
+     * A cipher was initialized, by an encryption or the warm-up
+     */
+    CIPHER_CACHE_MISS("cipherCacheMiss");
+
+    private final String key;
+
+    MetricsCounter(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,56 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * Timed steps of validation and encryption, see {@link CSEMetricsSnapshot}.
+ */
+public enum MetricsPhase {
+    /**
+     * Validation of a request before it is encrypted
+     */
+    VALIDATION("validation"),
+    /**
+     * Public key request, including retries and hedged requests
+     */
+    KEY_FETCH("keyFetch"),
+    /**
+     * Decoding a fetched or persisted public key
+     */
+    KEY_PARSE("keyParse"),
+    /**
+     * Creating and initializing a cipher, once per encryption thread and key, the first one of a
+     * thread includes seeding its random source
+     */
+    CIPHER_INIT("cipherInit"),
+    /**
+     * Generating and RSA wrapping the AES key of an envelope, once per encryption or batch
+     */
+    KEY_WRAP("keyWrap"),
+    /**
+     * Building the payload and encrypting it, with RSA or with AES-GCM in an envelope
+     */
+    ENCRYPTION("encryption"),
+    /**
+     * From a result being ready to its callback running on the callback executor
+     */
+    CALLBACK_DISPATCH("callbackDispatch"),
+    /**
+     * A single encryption, from the call to its callback
+     */
+    TOTAL("total"),
+    /**
+     * A batch encryption, from the call to its callback
+     */
+    BATCH_TOTAL("batchTotal");
+
+    private final String key;
+
+    MetricsPhase(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,202 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * Everything the validators need to know about a PAN, collected in a single pass over the raw input.
+ * The input is normalized like {@link CSETextUtils#removeNonDigits(String)}: only digits and dots
+ * count, without building the normalized string.
+ */
+final class PanAnalysis {
+
+    private static final PanAnalysis BLANK = new PanAnalysis(true, 0, false, false, CardBrand.UNKNOWN);
+
+    private static final int LENGTH_COMMON_CARD = 16;
+    private static final int LENGTH_AMERICAN_EXPRESS = 15;
+    private static final int LENGTH_DINERS_CLUB = 14;
+    private static final int MIN_LENGTH_MAESTRO = 12;
+    private static final int MAX_LENGTH_MAESTRO = 19;
+    private static final int MAX_LENGTH_VISA = 19;
+    // UnionPay has no built-in BIN rule, only an installed BinDatabase reports it
+    private static final int MIN_LENGTH_UNION_PAY = 16;
+    private static final int MAX_LENGTH_UNION_PAY = 19;
+
+    private final boolean blank;
+    private final int length;
+    private final boolean luhnValid;
+    private final boolean lengthValid;
+    private final CardBrand brand;
+
+    private PanAnalysis(boolean blank, int length, boolean luhnValid, boolean lengthValid, CardBrand brand) {
+        this.blank = blank;
+        this.length = length;
+        this.luhnValid = luhnValid;
+        this.lengthValid = lengthValid;
+        this.brand = brand;
+    }
+
+    @NonNull
+    static PanAnalysis of(@Nullable CharSequence pan) {
+        return pan == null ? BLANK : analyze(pan, null, 0, pan.length());
+    }
+
+    @NonNull
+    static PanAnalysis of(@Nullable char[] pan, int offset, int count) {
+        return pan == null ? BLANK : analyze(null, pan, offset, count);
+    }
+
+    /**
+     * @return {@code true} if the card number is the correct length for {@code brand}
+     */
+    static boolean isValidLength(CardBrand brand, int length) {
+        switch (brand) {
+            case UNKNOWN:
+                return false;
+            case AMERICAN_EXPRESS:
+                return length == LENGTH_AMERICAN_EXPRESS;
+            case DINERS_CLUB:
+                return length == LENGTH_DINERS_CLUB;
+            case MAESTRO:
+                return length >= MIN_LENGTH_MAESTRO && length <= MAX_LENGTH_MAESTRO;
+            case VISA:
+                return length == LENGTH_COMMON_CARD || length == MAX_LENGTH_VISA;
+            case UNION_PAY:
+                return length >= MIN_LENGTH_UNION_PAY && length <= MAX_LENGTH_UNION_PAY;
+            default:
+                return length == LENGTH_COMMON_CARD;
+        }
+    }
+
+    /**
+     * @return longest card number allowed for {@code brand}, 0 for {@link CardBrand#UNKNOWN}
+     */
+    static int maxLength(CardBrand brand) {
+        switch (brand) {
+            case UNKNOWN:
+                return 0;
+            case AMERICAN_EXPRESS:
+                return LENGTH_AMERICAN_EXPRESS;
+            case DINERS_CLUB:
+                return LENGTH_DINERS_CLUB;
+            case MAESTRO:
+                return MAX_LENGTH_MAESTRO;
+            case VISA:
+                return MAX_LENGTH_VISA;
+            case UNION_PAY:
+                return MAX_LENGTH_UNION_PAY;
+            default:
+                return LENGTH_COMMON_CARD;
+        }
+    }
+
+    private static PanAnalysis analyze(@Nullable CharSequence sequence, @Nullable char[] array, int offset, int count) {
+        boolean blank = true;
+        int length = 0;
+        boolean digitsOnly = true;
+        // Luhn sums doubling the digits at even and at odd positions from the left, which one applies
+        // depends on the parity of the final length
+        int evenDoubledSum = 0;
+        int oddDoubledSum = 0;
+
+        int node = BinTable.ROOT;
+        boolean walking = true;
+        boolean binIsDigits = true;
+        int matches = BinTable.NO_MATCHES;
+        // leading digits for the BIN database, collection stops at the first dot
+        int bin = 0;
+        int binDigits = 0;
+
+        for (int i = 0; i < count; i++) {
+            final char c = sequence != null ? sequence.charAt(i) : array[offset + i];
+            if (c > ' ') {
+                blank = false;
+            }
+            if (c == '.') {
+                digitsOnly = false;
+                if (length < BinTable.BIN_LENGTH) {
+                    walking = false;
+                    binIsDigits = false;
+                }
+                length++;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                continue;
+            }
+
+            final int digit = c - '0';
+            final int doubled = digit < 5 ? digit * 2 : digit * 2 - 9;
+            if ((length & 1) == 0) {
+                evenDoubledSum += doubled;
+                oddDoubledSum += digit;
+            } else {
+                evenDoubledSum += digit;
+                oddDoubledSum += doubled;
+            }
+
+            if (binDigits == length && length < BinDatabase.BIN_DIGITS) {
+                bin = bin * 10 + digit;
+                binDigits++;
+            }
+            if (walking && length < BinTable.BIN_LENGTH) {
+                node = BinTable.next(node, digit);
+                if (node == BinTable.NO_NODE) {
+                    walking = false;
+                } else {
+                    matches = BinTable.accept(matches, node);
+                }
+            }
+            length++;
+        }
+
+        if (blank) {
+            return BLANK;
+        }
+
+        final CardBrand brand = length == 0
+                ? CardBrand.UNKNOWN
+                : BinDatabase.resolve(BinTable.brand(matches, binIsDigits), bin, binDigits);
+        final int luhnSum = (length & 1) == 0 ? evenDoubledSum : oddDoubledSum;
+        return new PanAnalysis(false, length, digitsOnly && luhnSum % 10 == 0, isValidLength(brand, length), brand);
+    }
+
+    /**
+     * @return {@code true} if the input was {@code null} or whitespace only
+     */
+    boolean isBlank() {
+        return blank;
+    }
+
+    /**
+     * @return number of digits and dots in the input
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @return {@code true} if the input has digits only, apart from ignored characters, and passes the Luhn check
+     */
+    boolean isLuhnValid() {
+        return luhnValid;
+    }
+
+    /**
+     * @return {@code true} if the brand is known and the length is allowed for it
+     */
+    boolean isLengthValid() {
+        return lengthValid;
+    }
+
+    @NonNull
+    CardBrand getBrand() {
+        return brand;
+    }
+
+    boolean isValid() {
+        return luhnValid && lengthValid;
+    }
+}
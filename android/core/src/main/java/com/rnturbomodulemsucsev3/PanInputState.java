@@ -0,0 +1,212 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+/**
+ * MSU CSE
+ * <p>
+ * Validation state of a card number field, updated digit by digit as the user types. Every edit
+ * costs O(1): Luhn sums for both parities and the BIN trie position are kept per prefix length, so
+ * deleting a digit only steps back. Results match {@link CSECore#isValidPan(String)} and
+ * {@link CSECore#detectBrand(String)} for the digits entered so far.
+ * <p>
+ * Not thread safe, meant to be owned by a single input field.
+ */
+public final class PanInputState {
+
+    public static final int MAX_LENGTH = 19;
+
+    private static final int OFF_TRIE = -1;
+    private static final CardBrand[] BRANDS = CardBrand.values();
+
+    private final byte[] digits = new byte[MAX_LENGTH];
+    // Luhn sums of the first i digits, doubling the digits at even resp. odd positions from the left
+    private final int[] evenDoubledSums = new int[MAX_LENGTH + 1];
+    private final int[] oddDoubledSums = new int[MAX_LENGTH + 1];
+    // BIN trie node and matches after the first i digits, OFF_TRIE once no rule continues
+    private final int[] nodes = new int[BinTable.BIN_LENGTH + 1];
+    private final int[] matches = new int[BinTable.BIN_LENGTH + 1];
+
+    private int length;
+    // digits typed past MAX_LENGTH, not stored but they make the number invalid
+    private int overflow;
+
+    public PanInputState() {
+        nodes[0] = BinTable.ROOT;
+        matches[0] = BinTable.NO_MATCHES;
+    }
+
+    /**
+     * @param digit character in {@code 0-9}
+     * @return {@code false} if the digit didn't fit in {@link #MAX_LENGTH}, the state is invalid until it is deleted
+     */
+    public boolean append(char digit) {
+        if (digit < '0' || digit > '9') {
+            throw new IllegalArgumentException("Expected a digit, was " + digit);
+        }
+        if (length == MAX_LENGTH) {
+            overflow++;
+            return false;
+        }
+
+        final int value = digit - '0';
+        final int doubled = value < 5 ? value * 2 : value * 2 - 9;
+        final boolean even = (length & 1) == 0;
+        evenDoubledSums[length + 1] = evenDoubledSums[length] + (even ? doubled : value);
+        oddDoubledSums[length + 1] = oddDoubledSums[length] + (even ? value : doubled);
+
+        if (length < BinTable.BIN_LENGTH) {
+            final int parent = nodes[length];
+            final int node = parent == OFF_TRIE ? BinTable.NO_NODE : BinTable.next(parent, value);
+            if (node == BinTable.NO_NODE) {
+                nodes[length + 1] = OFF_TRIE;
+                matches[length + 1] = matches[length];
+            } else {
+                nodes[length + 1] = node;
+                matches[length + 1] = BinTable.accept(matches[length], node);
+            }
+        }
+
+        digits[length++] = (byte) value;
+        return true;
+    }
+
+    /**
+     * Appends the digits of {@code text}, skipping any other character.
+     */
+    public void append(@NonNull CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                append(c);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if there was nothing to delete
+     */
+    public boolean deleteLast() {
+        if (overflow > 0) {
+            overflow--;
+            return true;
+        }
+        if (length == 0) {
+            return false;
+        }
+        length--;
+        return true;
+    }
+
+    public void delete(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!deleteLast()) {
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        length = 0;
+        overflow = 0;
+    }
+
+    /**
+     * Replaces the state with the digits of {@code text}, other characters like spaces are skipped.
+     * Only the digits after the first one that differs are recomputed, so passing the whole field
+     * text on every keystroke costs O(1) for edits at the end.
+     */
+    public void update(@NonNull CharSequence text) {
+        int same = 0;
+        int i = 0;
+        for (; i < text.length() && same < length; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (c - '0' != digits[same]) {
+                break;
+            }
+            same++;
+        }
+
+        length = same;
+        overflow = 0;
+        for (; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                append(c);
+            }
+        }
+    }
+
+    /**
+     * @return number of digits entered
+     */
+    public int getLength() {
+        return length + overflow;
+    }
+
+    @NonNull
+    public CardBrand getBrand() {
+        if (length == 0) {
+            return CardBrand.UNKNOWN;
+        }
+        final CardBrand brand = BinTable.brand(matches[Math.min(length, BinTable.BIN_LENGTH)], true);
+        if (length < BinTable.BIN_LENGTH) {
+            return brand;
+        }
+        final int binDigits = Math.min(length, BinDatabase.BIN_DIGITS);
+        return BinDatabase.resolve(brand, bin(binDigits), binDigits);
+    }
+
+    private int bin(int binDigits) {
+        int bin = 0;
+        for (int i = 0; i < binDigits; i++) {
+            bin = bin * 10 + digits[i];
+        }
+        return bin;
+    }
+
+    public boolean isLuhnValid() {
+        if (length == 0 || overflow > 0) {
+            return false;
+        }
+        final int sum = (length & 1) == 0 ? evenDoubledSums[length] : oddDoubledSums[length];
+        return sum % 10 == 0;
+    }
+
+    public boolean isLengthValid() {
+        return overflow == 0 && PanAnalysis.isValidLength(getBrand(), length);
+    }
+
+    public boolean isValid() {
+        return isLuhnValid() && isLengthValid();
+    }
+
+    /**
+     * @return {@code true} if appending digits can still produce a valid number, the last digit can
+     * always fix the Luhn check so this depends on the reachable brands and their lengths
+     */
+    public boolean canBecomeValid() {
+        if (overflow > 0) {
+            return false;
+        }
+        if (isValid()) {
+            return true;
+        }
+        final int builtIn = length < BinTable.BIN_LENGTH && nodes[length] != OFF_TRIE
+                ? BinTable.reachableBrands(nodes[length])
+                : 1 << BinTable.brand(matches[Math.min(length, BinTable.BIN_LENGTH)], true).ordinal();
+        // until the database BIN is complete the ranges it may still fall into decide
+        final int reachable = length < BinDatabase.BIN_DIGITS
+                ? BinDatabase.reachableBrands(builtIn, bin(length), length)
+                : 1 << getBrand().ordinal();
+        for (CardBrand brand : BRANDS) {
+            if ((reachable & 1 << brand.ordinal()) != 0 && PanAnalysis.maxLength(brand) > length) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
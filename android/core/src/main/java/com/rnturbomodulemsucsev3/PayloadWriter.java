@@ -0,0 +1,209 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * MSU CSE
+ * <p>
+ * Per-thread buffers for one encryption: the UTF-8 plaintext written by an {@link EncryptRequest},
+ * the ciphertext and its Base64 form. Buffers only grow, so steady state encryptions allocate
+ * nothing but the resulting string. {@link #clear()} wipes the plaintext.
+ */
+final class PayloadWriter {
+
+    // a card payload with a long holder name still fits, buffers grow for larger keys and envelopes
+    private static final int INITIAL_CAPACITY = 256;
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private static final ThreadLocal<PayloadWriter> WRITERS = new ThreadLocal<PayloadWriter>() {
+        @Override
+        protected PayloadWriter initialValue() {
+            return new PayloadWriter();
+        }
+    };
+
+    private byte[] plain = new byte[INITIAL_CAPACITY];
+    private int length;
+    private byte[] output = new byte[INITIAL_CAPACITY];
+    private char[] base64 = new char[base64Length(INITIAL_CAPACITY)];
+
+    private PayloadWriter() {
+    }
+
+    /**
+     * @return the calling thread's writer, empty unless a caller forgot to {@link #clear()} it
+     */
+    static PayloadWriter get() {
+        return WRITERS.get();
+    }
+
+    /**
+     * @return UTF-8 length of the payload of request, written to the calling thread's writer and wiped
+     */
+    static int measure(EncryptRequest request) {
+        final PayloadWriter writer = get();
+        try {
+            request.writePlain(writer);
+            return writer.length();
+        } finally {
+            writer.clear();
+        }
+    }
+
+    PayloadWriter ascii(char c) {
+        ensureCapacity(1);
+        plain[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * @param literal ASCII only, like the {@code "&n="} separators of a payload
+     */
+    PayloadWriter ascii(String literal) {
+        final int count = literal.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            plain[length++] = (byte) literal.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Writes {@code value} as UTF-8, {@code null} is written as {@code "null"} like {@link String#valueOf(Object)}.
+     * Unpaired surrogates become {@code '?'} as with {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    PayloadWriter text(@Nullable CharSequence value) {
+        if (value == null) {
+            ensureCapacity(NULL.length);
+            System.arraycopy(NULL, 0, plain, length, NULL.length);
+            length += NULL.length;
+            return this;
+        }
+
+        final int count = value.length();
+        for (int i = 0; i < count; i++) {
+            ensureCapacity(4);
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                plain[length++] = (byte) c;
+            } else if (c < 0x800) {
+                plain[length++] = (byte) (0xC0 | c >> 6);
+                plain[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                plain[length++] = (byte) (0xE0 | c >> 12);
+                plain[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                plain[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                plain[length++] = (byte) (0xF0 | codePoint >> 18);
+                plain[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                plain[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                plain[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                plain[length++] = '?';
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes {@code value} in ASCII decimal digits, {@code null} is written as {@code "null"}.
+     */
+    PayloadWriter number(@Nullable Integer value) {
+        if (value == null) {
+            return text(null);
+        }
+
+        int remaining = value;
+        if (remaining == Integer.MIN_VALUE) {
+            return text(String.valueOf(remaining));
+        }
+        if (remaining < 0) {
+            ascii('-');
+            remaining = -remaining;
+        }
+
+        int digits = 1;
+        for (int bound = 10; digits < 10 && remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            plain[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    byte[] plain() {
+        return plain;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * @param size bytes needed for the ciphertext
+     * @return reusable buffer of at least {@code size} bytes
+     */
+    byte[] output(int size) {
+        if (output.length < size) {
+            output = new byte[size];
+        }
+        return output;
+    }
+
+    /**
+     * Base64 without line wraps, same as {@code Base64.encodeToString(data, 0, count, Base64.NO_WRAP)}.
+     */
+    String base64(byte[] data, int count) {
+        final int size = base64Length(count);
+        if (base64.length < size) {
+            base64 = new char[size];
+        }
+
+        int out = 0;
+        int i = 0;
+        for (; i + 2 < count; i += 3) {
+            final int bits = (data[i] & 0xFF) << 16 | (data[i + 1] & 0xFF) << 8 | data[i + 2] & 0xFF;
+            base64[out++] = BASE64[bits >>> 18];
+            base64[out++] = BASE64[bits >>> 12 & 0x3F];
+            base64[out++] = BASE64[bits >>> 6 & 0x3F];
+            base64[out++] = BASE64[bits & 0x3F];
+        }
+        if (i < count) {
+            final int bits = (data[i] & 0xFF) << 16 | (i + 1 < count ? (data[i + 1] & 0xFF) << 8 : 0);
+            base64[out++] = BASE64[bits >>> 18];
+            base64[out++] = BASE64[bits >>> 12 & 0x3F];
+            base64[out++] = i + 1 < count ? BASE64[bits >>> 6 & 0x3F] : '=';
+            base64[out++] = '=';
+        }
+        return new String(base64, 0, out);
+    }
+
+    /**
+     * Zeroes the plaintext written so far and resets the writer.
+     */
+    void clear() {
+        Arrays.fill(plain, 0, length, (byte) 0);
+        length = 0;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra <= plain.length) {
+            return;
+        }
+        final byte[] grown = Arrays.copyOf(plain, Math.max(plain.length * 2, length + extra));
+        Arrays.fill(plain, 0, length, (byte) 0);
+        plain = grown;
+    }
+
+    private static int base64Length(int count) {
+        return (count + 2) / 3 * 4;
+    }
+}
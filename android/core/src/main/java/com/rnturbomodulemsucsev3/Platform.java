@@ -0,0 +1,32 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * The few services the core needs from the platform it runs on. A plain JVM is assumed until
+ * another platform is installed, the Android library installs its own before any {@code CSE} is
+ * created. Scheduling of callbacks is a {@link java.util.concurrent.Executor} passed to
+ * {@link CSECore} and HTTP goes through {@link KeyTransport}.
+ */
+abstract class Platform {
+
+    private static volatile Platform current = new JvmPlatform();
+
+    static Platform get() {
+        return current;
+    }
+
+    static void install(Platform platform) {
+        current = platform;
+    }
+
+    /**
+     * @param value Base64, line wraps and other characters outside the alphabet are skipped
+     * @throws IllegalArgumentException if value isn't valid Base64
+     */
+    abstract byte[] decodeBase64(String value);
+
+    abstract void warn(String tag, String message, @Nullable Throwable throwable);
+}
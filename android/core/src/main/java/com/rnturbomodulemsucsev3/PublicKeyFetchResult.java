@@ -5,10 +5,10 @@ package com.rnturbomodulemsucsev3;
  * MSU CSE
  */
 class PublicKeyFetchResult {
-    private String publicKey;
+    private CachedPublicKey publicKey;
     private EncryptException cause;
 
-    public PublicKeyFetchResult(String publicKey, EncryptException cause) {
+    public PublicKeyFetchResult(CachedPublicKey publicKey, EncryptException cause) {
         this.publicKey = publicKey;
         this.cause = cause;
     }
@@ -17,11 +17,11 @@ class PublicKeyFetchResult {
         return new PublicKeyFetchResult(null, e);
     }
 
-    static PublicKeyFetchResult success(String publicKey) {
+    static PublicKeyFetchResult success(CachedPublicKey publicKey) {
         return new PublicKeyFetchResult(publicKey, null);
     }
 
-    public String getPublicKey() {
+    public CachedPublicKey getPublicKey() {
         return publicKey;
     }
 
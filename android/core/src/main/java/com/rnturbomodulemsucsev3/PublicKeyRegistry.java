@@ -0,0 +1,122 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * MSU CSE
+ * <p>
+ * Process wide cache of parsed public keys keyed by endpoint, shared by every {@link CSECore} instance.
+ * Holds at most {@link #MAX_ENTRIES} endpoints and evicts the least recently used one.
+ * <p>
+ * Concurrent fetches for the same endpoint share a single request, see {@link #fetchOnce(String, Callable)}.
+ */
+final class PublicKeyRegistry {
+
+    private static final int MAX_ENTRIES = 4;
+
+    private static final PublicKeyRegistry INSTANCE = new PublicKeyRegistry(MAX_ENTRIES);
+
+    private final Map<String, CachedPublicKey> entries;
+    private final ConcurrentMap<String, FutureTask<PublicKeyFetchResult>> inFlight = new ConcurrentHashMap<>();
+
+    PublicKeyRegistry(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, CachedPublicKey>(maxEntries + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPublicKey> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static PublicKeyRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    synchronized CachedPublicKey get(String endpoint) {
+        return entries.get(endpoint);
+    }
+
+    /**
+     * Stores the key fetched from endpoint. Parsing is skipped if the same key is already cached.
+     *
+     * @throws EncryptException with {@link EncryptExceptionCode#PUBLIC_KEY_DECODING_FAILED} if the key can't be parsed
+     */
+    @NonNull
+    CachedPublicKey put(String endpoint, String encodedKey, long fetchedAtMillis, CSEMetrics metrics) {
+        final CachedPublicKey current = get(endpoint);
+        if (current != null && current.getEncoded().equals(encodedKey)) {
+            if (fetchedAtMillis > current.getFetchedAtMillis()) {
+                current.refetched(fetchedAtMillis);
+            }
+            return current;
+        }
+
+        final long started = CSEMetrics.start();
+        final CachedPublicKey parsed = CachedPublicKey.parse(encodedKey, fetchedAtMillis);
+        metrics.recordSince(MetricsPhase.KEY_PARSE, started);
+        synchronized (this) {
+            entries.put(endpoint, parsed);
+        }
+        return parsed;
+    }
+
+    @NonNull
+    synchronized CachedPublicKey put(String endpoint, CachedPublicKey publicKey) {
+        entries.put(endpoint, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * Removes the key of endpoint, unless it was already replaced by another one.
+     *
+     * @return {@code true} if publicKey was removed
+     */
+    synchronized boolean invalidate(String endpoint, CachedPublicKey publicKey) {
+        if (entries.get(endpoint) != publicKey) {
+            return false;
+        }
+        entries.remove(endpoint);
+        return true;
+    }
+
+    /**
+     * Runs fetch unless a fetch for the same endpoint is already in flight, in which case the caller
+     * waits for that one and gets its result, success or failure. A failed fetch is not retried here,
+     * the next call after it completes starts a new one.
+     */
+    PublicKeyFetchResult fetchOnce(String endpoint, Callable<PublicKeyFetchResult> fetch) {
+        final FutureTask<PublicKeyFetchResult> task = new FutureTask<>(fetch);
+        final FutureTask<PublicKeyFetchResult> existing = inFlight.putIfAbsent(endpoint, task);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            task.run();
+        } finally {
+            inFlight.remove(endpoint, task);
+        }
+        return await(task);
+    }
+
+    private static PublicKeyFetchResult await(FutureTask<PublicKeyFetchResult> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PublicKeyFetchResult.failed(EncryptException.create(e, EncryptExceptionCode.REQUEST_FAILED));
+        } catch (ExecutionException e) {
+            return PublicKeyFetchResult.failed(EncryptException.create(e.getCause(), EncryptExceptionCode.REQUEST_FAILED));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.rnturbomodulemsucsev3;
+
+import java.io.IOException;
+
+/**
+ * MSU CSE
+ * <p>
+ * Extracts the {@code publicKey} member of the top level JSON object in the key endpoint response,
+ * working on the raw UTF-8 bytes. Other members are skipped without being decoded.
+ */
+final class PublicKeyResponseParser {
+
+    private static final byte[] PUBLIC_KEY = {'p', 'u', 'b', 'l', 'i', 'c', 'K', 'e', 'y'};
+
+    private final byte[] body;
+    private final int length;
+    private int position;
+
+    private PublicKeyResponseParser(byte[] body, int length) {
+        this.body = body;
+        this.length = length;
+    }
+
+    static String parse(byte[] body, int length) throws IOException {
+        return new PublicKeyResponseParser(body, length).publicKey();
+    }
+
+    private String publicKey() throws IOException {
+        expect('{');
+        if (peek() == '}') {
+            throw malformed("publicKey missing");
+        }
+
+        while (true) {
+            final boolean isPublicKey = readKey();
+            expect(':');
+            if (isPublicKey) {
+                if (peek() != '"') {
+                    throw malformed("publicKey is not a string");
+                }
+                return readString();
+            }
+            skipValue();
+
+            final int next = next();
+            if (next == '}') {
+                throw malformed("publicKey missing");
+            } else if (next != ',') {
+                throw malformed("expected , or }");
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the key just read is {@code publicKey}
+     */
+    private boolean readKey() throws IOException {
+        expect('"');
+        final int start = position;
+        boolean escaped = false;
+        while (position < length && body[position] != '"') {
+            if (body[position] == '\\') {
+                escaped = true;
+                position++;
+            }
+            position++;
+        }
+        if (position >= length) {
+            throw malformed("unterminated key");
+        }
+        final int end = position++;
+
+        if (escaped || end - start != PUBLIC_KEY.length) {
+            return false;
+        }
+        for (int i = 0; i < PUBLIC_KEY.length; i++) {
+            if (body[start + i] != PUBLIC_KEY[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        final StringBuilder value = new StringBuilder(length - position);
+        while (position < length) {
+            final byte b = body[position++];
+            if (b == '"') {
+                return value.toString();
+            }
+            if (b != '\\') {
+                // Base64 keys are plain ASCII, any other byte ends up in a key that fails to decode later
+                value.append((char) (b & 0xFF));
+                continue;
+            }
+            if (position >= length) {
+                break;
+            }
+            final byte escape = body[position++];
+            switch (escape) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > length) {
+                        throw malformed("truncated unicode escape");
+                    }
+                    value.append((char) Integer.parseInt(new String(body, position, 4, "US-ASCII"), 16));
+                    position += 4;
+                    break;
+                default:
+                    value.append((char) escape);
+            }
+        }
+        throw malformed("unterminated string");
+    }
+
+    private void skipValue() throws IOException {
+        final int first = peek();
+        if (first == '"') {
+            skipString();
+            return;
+        }
+        if (first != '{' && first != '[') {
+            // number, true, false or null
+            while (position < length && body[position] != ',' && body[position] != '}' && body[position] != ']') {
+                position++;
+            }
+            return;
+        }
+
+        int depth = 0;
+        while (position < length) {
+            final byte b = body[position];
+            if (b == '"') {
+                skipString();
+                continue;
+            }
+            position++;
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    return;
+                }
+            }
+        }
+        throw malformed("unterminated value");
+    }
+
+    private void skipString() throws IOException {
+        position++;
+        while (position < length) {
+            final byte b = body[position++];
+            if (b == '\\') {
+                position++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+        throw malformed("unterminated string");
+    }
+
+    private void expect(char c) throws IOException {
+        if (next() != c) {
+            throw malformed("expected " + c);
+        }
+    }
+
+    private int next() throws IOException {
+        final int c = peek();
+        position++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        while (position < length) {
+            final byte b = body[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+            position++;
+        }
+        throw malformed("unexpected end of response");
+    }
+
+    private KeyResponseException malformed(String reason) {
+        return new KeyResponseException("Malformed public key response: " + reason);
+    }
+}
@@ -0,0 +1,18 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * Persists fetched public keys across process restarts.
+ */
+public interface PublicKeyStore {
+
+    @Nullable
+    StoredPublicKey load(String endpoint);
+
+    void save(String endpoint, StoredPublicKey publicKey);
+
+    void remove(String endpoint);
+}
@@ -0,0 +1,167 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Collections;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+
+/**
+ * Created by jasmin.suljic@monri.com
+ * MSU CSE
+ */
+class RSAEncryption {
+    // SHA-256 output, OAEP padding takes twice this plus two bytes of the modulus
+    private static final int DIGEST_BYTES = 32;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    static final String TRANSFORMATION = "RSA/ECB/OAEPPadding";
+    // To use SHA-256 for both digests
+    static final OAEPParameterSpec OAEP_SPEC = new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+
+    /**
+     * Encrypt a string with RSA using a public key
+     *
+     * @param publicKey the public key
+     * @param inputData the data to encrypt
+     * @return the data encrypted
+     */
+    static byte[] encrypt(PublicKey publicKey, String inputData) throws BadPaddingException, IllegalBlockSizeException, NoSuchPaddingException,
+            NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException, InvalidAlgorithmParameterException {
+        Cipher cipher = getEncryptionCipher(publicKey);
+
+        byte[] messageBytes = inputData.getBytes(StandardCharsets.UTF_8);
+//Uint8Array(13) [99, 61, 49, 50, 51, 38, 110, 61, 49, 50, 51, 52, 53]
+        return cipher.doFinal(messageBytes, 0, messageBytes.length);
+    }
+
+    /**
+     * Encrypt data with a cipher reused by the calling thread for this key
+     *
+     * @param publicKey the cached public key
+     * @param inputData the data to encrypt
+     * @param metrics   records the cipher initialization, if this thread needs one
+     * @return the data encrypted
+     */
+    static byte[] encrypt(CachedPublicKey publicKey, byte[] inputData, CSEMetrics metrics) throws BadPaddingException, IllegalBlockSizeException, NoSuchPaddingException,
+            NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException, InvalidAlgorithmParameterException {
+        Cipher cipher = publicKey.acquireCipher(metrics);
+        try {
+            return cipher.doFinal(inputData, 0, inputData.length);
+        } catch (BadPaddingException | IllegalBlockSizeException | RuntimeException e) {
+            // cipher state is undefined after a failed doFinal, next call on this thread creates a new one
+            publicKey.releaseCipher();
+            throw e;
+        }
+    }
+
+    /**
+     * Create and return the encryption cipher, its OAEP padding draws from the calling thread's
+     * {@link ThreadSecureRandom}, so the cipher must stay on this thread
+     */
+    static Cipher getEncryptionCipher(PublicKey publicKey) throws NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey, OAEP_SPEC, ThreadSecureRandom.get());
+        return cipher;
+    }
+
+    /**
+     * @return largest payload RSA-OAEP with SHA-256 encrypts under publicKey, e.g. 256 - 2 * 32 - 2 = 190
+     * bytes for a 2048 bit key
+     */
+    static int maxPlainBytes(PublicKey publicKey) {
+        final int modulusBytes = (((RSAPublicKey) publicKey).getModulus().bitLength() + 7) / 8;
+        return modulusBytes - 2 * DIGEST_BYTES - 2;
+    }
+
+    @NonNull
+    static PublicKey getKey(String key) {
+        try {
+            byte[] byteKey = Platform.get().decodeBase64(key);
+            X509EncodedKeySpec X509publicKey = new X509EncodedKeySpec(byteKey);
+            KeyFactory kf = KeyFactory.getInstance("RSA");
+
+            return kf.generatePublic(X509publicKey);
+        } catch (Exception e) {
+            throw EncryptException.create(e, EncryptExceptionCode.PUBLIC_KEY_DECODING_FAILED);
+        }
+    }
+
+    /**
+     * @return {@code true} if e means the public key itself is unusable, for example after it was rotated
+     */
+    static boolean isKeyFailure(Exception e) {
+        return e instanceof InvalidKeyException
+                || (e instanceof EncryptException && ((EncryptException) e).getCode() == EncryptExceptionCode.PUBLIC_KEY_DECODING_FAILED);
+    }
+
+    /**
+     * SHA-256 fingerprint of the X.509 encoded key, as lowercase hex
+     */
+    static String fingerprint(PublicKey publicKey) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+            final char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw EncryptException.create(e, EncryptExceptionCode.PUBLIC_KEY_DECODING_FAILED);
+        }
+    }
+
+    /**
+     * Encrypt the payload of a request with the calling thread's cipher and buffers, the plaintext
+     * is wiped as soon as it is encrypted
+     *
+     * @return the encrypted payload, Base64 encoded without line wraps
+     * @throws EncryptException with {@link EncryptExceptionCode#VALIDATION_FAILED} and
+     *                          {@code PAYLOAD_TOO_LARGE} if the payload is too long for the key, which
+     *                          validation can only check once the key is known
+     */
+    static String encrypt(CachedPublicKey publicKey, EncryptRequest request, CSEMetrics metrics) throws BadPaddingException, IllegalBlockSizeException, NoSuchPaddingException,
+            NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException {
+        final PayloadWriter writer = PayloadWriter.get();
+        try {
+            final Cipher cipher = publicKey.acquireCipher(metrics);
+            final long started = CSEMetrics.start();
+            request.writePlain(writer);
+            if (writer.length() > publicKey.getMaxPlainBytes()) {
+                throw EncryptException.validationFailed(Collections.singletonList("PAYLOAD_TOO_LARGE"));
+            }
+            final byte[] output = writer.output(cipher.getOutputSize(writer.length()));
+            final int encrypted;
+            try {
+                encrypted = cipher.doFinal(writer.plain(), 0, writer.length(), output, 0);
+            } catch (BadPaddingException | IllegalBlockSizeException | ShortBufferException | RuntimeException e) {
+                publicKey.releaseCipher();
+                throw e;
+            }
+            final String encoded = writer.base64(output, encrypted);
+            metrics.recordSince(MetricsPhase.ENCRYPTION, started);
+            return encoded;
+        } finally {
+            writer.clear();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.rnturbomodulemsucsev3;
+
+import androidx.annotation.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * MSU CSE
+ * <p>
+ * Decrypts what {@link CSECore} encrypts, for tests and as a reference for servers receiving
+ * {@link CSEConfig.EncryptionMode#ENVELOPE} payloads. Not meant for production use on the client,
+ * which never has the private key.
+ */
+public final class ReferenceDecryptor {
+
+    private ReferenceDecryptor() {
+    }
+
+    /**
+     * @param encrypted result of an encryption in {@link CSEConfig.EncryptionMode#RSA}
+     * @return the payload, e.g. {@code p=...&y=...&m=...&c=...&cn=...&n=...}
+     */
+    @NonNull
+    public static String decryptRsa(PrivateKey privateKey, String encrypted) throws GeneralSecurityException {
+        final Cipher cipher = Cipher.getInstance(RSAEncryption.TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, privateKey, RSAEncryption.OAEP_SPEC);
+        return new String(cipher.doFinal(Platform.get().decodeBase64(encrypted)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param encrypted result of an encryption in {@link CSEConfig.EncryptionMode#ENVELOPE}
+     * @return the payload, same as {@link #decryptRsa} returns for the other mode
+     * @throws GeneralSecurityException if the envelope is malformed or was modified
+     */
+    @NonNull
+    public static String decryptEnvelope(PrivateKey privateKey, String encrypted) throws GeneralSecurityException {
+        final byte[] envelope = Platform.get().decodeBase64(encrypted);
+        if (envelope.length < 3 || envelope[0] != Envelope.VERSION) {
+            throw new GeneralSecurityException("Unsupported envelope version");
+        }
+        final int wrappedLength = (envelope[1] & 0xFF) << 8 | envelope[2] & 0xFF;
+        final int ivOffset = 3 + wrappedLength;
+        final int ciphertextOffset = ivOffset + Envelope.IV_BYTES;
+        if (envelope.length < ciphertextOffset + Envelope.TAG_BITS / 8) {
+            throw new GeneralSecurityException("Envelope is truncated");
+        }
+
+        final Cipher rsa = Cipher.getInstance(RSAEncryption.TRANSFORMATION);
+        rsa.init(Cipher.DECRYPT_MODE, privateKey, RSAEncryption.OAEP_SPEC);
+        final byte[] key = rsa.doFinal(envelope, 3, wrappedLength);
+        if (key.length != Envelope.KEY_BYTES) {
+            throw new GeneralSecurityException("Envelope key has " + key.length + " bytes");
+        }
+
+        final Cipher aes = Cipher.getInstance(Envelope.TRANSFORMATION);
+        aes.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"),
+                new GCMParameterSpec(Envelope.TAG_BITS, envelope, ivOffset, Envelope.IV_BYTES));
+        aes.updateAAD(envelope, 0, ivOffset);
+        return new String(aes.doFinal(envelope, ciphertextOffset, envelope.length - ciphertextOffset), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,35 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ * <p>
+ * Public key as persisted by {@link PublicKeyStore}, the fingerprint guards against a corrupted entry.
+ */
+public final class StoredPublicKey {
+
+    private final String encoded;
+    private final long fetchedAtMillis;
+    private final String fingerprint;
+
+    public StoredPublicKey(String encoded, long fetchedAtMillis, String fingerprint) {
+        this.encoded = encoded;
+        this.fetchedAtMillis = fetchedAtMillis;
+        this.fingerprint = fingerprint;
+    }
+
+    static StoredPublicKey from(CachedPublicKey publicKey) {
+        return new StoredPublicKey(publicKey.getEncoded(), publicKey.getFetchedAtMillis(), publicKey.getFingerprint());
+    }
+
+    public String getEncoded() {
+        return encoded;
+    }
+
+    public long getFetchedAtMillis() {
+        return fetchedAtMillis;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+}
@@ -0,0 +1,36 @@
+package com.rnturbomodulemsucsev3;
+
+import java.security.SecureRandom;
+
+/**
+ * MSU CSE
+ * <p>
+ * A {@link SecureRandom} per thread, handed to every cipher and key generation explicitly. Concurrent
+ * encryptions don't contend on a shared instance, and as the warm-up probe initializes a cipher on
+ * each encryption thread, the possibly blocking seeding happens there instead of in the first
+ * encryption. Encryption threads never time out, see {@link CSEExecutors}, so an instance seeded
+ * by the warm-up serves every later encryption on its thread.
+ */
+final class ThreadSecureRandom {
+
+    private static final ThreadLocal<SecureRandom> RANDOMS = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            final SecureRandom random = new SecureRandom();
+            // seeds itself on first use, never seeded explicitly which would replace the system seed
+            // on some providers
+            random.nextBytes(new byte[1]);
+            return random;
+        }
+    };
+
+    private ThreadSecureRandom() {
+    }
+
+    /**
+     * @return the calling thread's instance, seeded on the first call. Not to be shared with other threads.
+     */
+    static SecureRandom get() {
+        return RANDOMS.get();
+    }
+}
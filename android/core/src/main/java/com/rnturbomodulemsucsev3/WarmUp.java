@@ -0,0 +1,168 @@
+package com.rnturbomodulemsucsev3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MSU CSE
+ * <p>
+ * Fetches and parses the public key on the key fetch executor, then initializes a cipher and seeds
+ * the random source on each encryption thread with a throwaway payload, so the first real encryption
+ * pays for none of it.
+ * A failed warm-up can be started again. Readiness holds for the key that was warmed up, once it is
+ * invalidated, expires or rotates the warm-up runs again for its successor.
+ */
+final class WarmUp {
+
+    private static final byte[] PROBE = {'w', 'a', 'r', 'm', '-', 'u', 'p'};
+    private static final long PROBE_WAIT_MILLIS = 100;
+
+    private enum State {IDLE, RUNNING, READY}
+
+    private final CSEApi cseApi;
+    private final CSEExecutors executors;
+    private final Executor callbackExecutor;
+    private final CSEMetrics metrics;
+
+    private final List<WarmUpCallback> callbacks = new ArrayList<>();
+    private State state = State.IDLE;
+    // the key the ciphers of the encryption threads were initialized with
+    private CachedPublicKey warmedKey;
+
+    WarmUp(CSEApi cseApi, CSEExecutors executors, Executor callbackExecutor, CSEMetrics metrics) {
+        this.cseApi = cseApi;
+        this.executors = executors;
+        this.callbackExecutor = callbackExecutor;
+        this.metrics = metrics;
+    }
+
+    void start() {
+        final CachedPublicKey current = cseApi.cachedPublicKey();
+        synchronized (this) {
+            if (state == State.RUNNING || isWarm(current)) {
+                return;
+            }
+            state = State.RUNNING;
+        }
+
+        try {
+            executors.keyFetch().execute(new Runnable() {
+                @Override
+                public void run() {
+                    fetchPublicKey();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            complete(null, EncryptException.create(e, EncryptExceptionCode.REQUEST_REJECTED));
+        }
+    }
+
+    /**
+     * Starts the warm-up if needed, callback is invoked on the callback executor once it completes.
+     */
+    void whenReady(final WarmUpCallback callback) {
+        final CachedPublicKey current = cseApi.cachedPublicKey();
+        final boolean ready;
+        synchronized (this) {
+            ready = isWarm(current);
+            if (!ready) {
+                callbacks.add(callback);
+            }
+        }
+
+        if (ready) {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onReady();
+                }
+            });
+        } else {
+            start();
+        }
+    }
+
+    boolean isReady() {
+        final CachedPublicKey current = cseApi.cachedPublicKey();
+        synchronized (this) {
+            return isWarm(current);
+        }
+    }
+
+    /**
+     * @param current the key encryptions would use now, {@code null} if they would have to fetch one
+     */
+    private boolean isWarm(CachedPublicKey current) {
+        return state == State.READY && current != null && current == warmedKey;
+    }
+
+    private void fetchPublicKey() {
+        final PublicKeyFetchResult result = cseApi.fetchPublicKey();
+        if (result.getCause() != null) {
+            complete(null, result.getCause());
+            return;
+        }
+
+        final CachedPublicKey publicKey = result.getPublicKey();
+        final int threads = executors.encryptionParallelism();
+        final AtomicInteger remaining = new AtomicInteger(threads);
+        // holds each probe on its thread briefly until all have started, so they spread over the pool threads
+        final CountDownLatch started = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            try {
+                executors.encryption().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        try {
+                            RSAEncryption.encrypt(publicKey, PROBE, metrics);
+                            started.await(PROBE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (Exception e) {
+                            // the real encryption will report it, a failed probe only loses the head start
+                        }
+                        if (remaining.decrementAndGet() == 0) {
+                            complete(publicKey, null);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // pool is busy with real work, which warms it just as well
+                started.countDown();
+                if (remaining.decrementAndGet() == 0) {
+                    complete(publicKey, null);
+                }
+            }
+        }
+    }
+
+    private void complete(CachedPublicKey publicKey, final EncryptException error) {
+        final List<WarmUpCallback> pending;
+        synchronized (this) {
+            state = error == null ? State.READY : State.IDLE;
+            warmedKey = publicKey;
+            pending = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (WarmUpCallback callback : pending) {
+                    if (error == null) {
+                        callback.onReady();
+                    } else {
+                        callback.onError(error);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.rnturbomodulemsucsev3;
+
+/**
+ * MSU CSE
+ */
+public interface WarmUpCallback {
+    /**
+     * Public key is cached and the encryption path is initialized
+     */
+    void onReady();
+
+    void onError(EncryptException encryptException);
+}
@@ -0,0 +1,347 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * Files written by {@link BinDatabase.Builder}, read back and corrupted byte by byte, and brand
+ * detection with a database installed.
+ */
+public class BinDatabaseTest {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int RANGE_BYTES = 16;
+    private static final String POSTANSKA = "Banka Poštanska štedionica Đ";
+    private static final String UNION_PAY = "中国银联";
+    // shorter prefixes have too many BIN continuations to try them all
+    private static final int EXHAUSTIVE_FROM_DIGITS = 5;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        BinDatabase.install(null);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        final BinDatabase database = open(toByteArray(sample()));
+
+        assertEquals(7, database.getVersion());
+        assertEquals(4, database.size());
+
+        final BinInfo visa = database.lookup("4111 1111 1111 1111");
+        assertEquals(CardBrand.VISA, visa.getBrand());
+        assertEquals(BinInfo.CardType.CREDIT, visa.getCardType());
+        assertEquals("US", visa.getCountry());
+        assertEquals("JPMorgan Chase", visa.getIssuer());
+
+        final BinInfo dina = database.lookup("9891 0212 3456 7890");
+        assertEquals(CardBrand.DINACARD, dina.getBrand());
+        assertEquals(BinInfo.CardType.DEBIT, dina.getCardType());
+        assertEquals("RS", dina.getCountry());
+        assertEquals(POSTANSKA, dina.getIssuer());
+
+        final BinInfo unionPay = database.lookup("6200000000000000");
+        assertEquals(CardBrand.UNION_PAY, unionPay.getBrand());
+        assertEquals(BinInfo.CardType.PREPAID, unionPay.getCardType());
+        assertNull(unionPay.getCountry());
+        assertEquals(UNION_PAY, unionPay.getIssuer());
+
+        final BinInfo mastercard = database.lookup("5355 0000");
+        assertEquals(CardBrand.MASTERCARD, mastercard.getBrand());
+        assertEquals(POSTANSKA, mastercard.getIssuer());
+    }
+
+    @Test
+    public void rangeBoundsAreInclusive() throws Exception {
+        final BinDatabase database = open(toByteArray(sample()));
+
+        // 98910200 to 98910299
+        assertNull(database.lookup("98910199"));
+        assertEquals(CardBrand.DINACARD, database.lookup("98910200").getBrand());
+        assertEquals(CardBrand.DINACARD, database.lookup("98910299").getBrand());
+        assertNull(database.lookup("98910300"));
+        // six digits are padded with 0, fewer are too short to look up
+        assertEquals(CardBrand.MASTERCARD, database.lookup("535500").getBrand());
+        assertNull(database.lookup("411111"));
+        assertNull(database.lookup("53550"));
+        assertNull(database.lookup(null));
+    }
+
+    @Test
+    public void sharedIssuerIsStoredOnce() throws Exception {
+        final byte[] file = toByteArray(sample());
+        final ByteBuffer data = ByteBuffer.wrap(file);
+
+        // ranges are sorted: 41111111, 53550000, 62000000, 98910200
+        final int mastercardIssuer = data.getInt(HEADER_BYTES + RANGE_BYTES + 12);
+        final int dinaIssuer = data.getInt(HEADER_BYTES + 3 * RANGE_BYTES + 12);
+        assertEquals(mastercardIssuer, dinaIssuer);
+
+        final int strings = 2 + "JPMorgan Chase".length()
+                + 2 + POSTANSKA.getBytes(StandardCharsets.UTF_8).length
+                + 2 + UNION_PAY.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(HEADER_BYTES + 4 * RANGE_BYTES + strings, file.length);
+    }
+
+    @Test
+    public void builderRejectsOverlappingRanges() throws Exception {
+        final BinDatabase.Builder builder = BinDatabase.builder(1)
+                .add("4111", "4112", CardBrand.VISA, BinInfo.CardType.CREDIT, null, null)
+                .add("41129999", "4113", CardBrand.VISA, BinInfo.CardType.DEBIT, null, null);
+        try {
+            builder.writeTo(new ByteArrayOutputStream());
+            fail();
+        } catch (IllegalStateException expected) {
+            // 41129999 is in both ranges
+        }
+    }
+
+    @Test
+    public void rejectsOverlappingFile() throws Exception {
+        final byte[] file = toByteArray(sample());
+        // second range starts at the high bound of the first
+        ByteBuffer.wrap(file).putInt(HEADER_BYTES + RANGE_BYTES, 41111111);
+
+        assertInvalid(file);
+    }
+
+    @Test
+    public void rejectsUnsortedFile() throws Exception {
+        final byte[] file = toByteArray(sample());
+        // swap the first two ranges
+        final byte[] first = Arrays.copyOfRange(file, HEADER_BYTES, HEADER_BYTES + RANGE_BYTES);
+        System.arraycopy(file, HEADER_BYTES + RANGE_BYTES, file, HEADER_BYTES, RANGE_BYTES);
+        System.arraycopy(first, 0, file, HEADER_BYTES + RANGE_BYTES, RANGE_BYTES);
+
+        assertInvalid(file);
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws Exception {
+        final byte[] file = toByteArray(sample());
+
+        // cut inside the ranges
+        assertInvalid(Arrays.copyOf(file, HEADER_BYTES + 3 * RANGE_BYTES + 5));
+        // cut inside the last issuer string
+        assertInvalid(Arrays.copyOf(file, file.length - 1));
+        // cut inside the header
+        assertInvalid(Arrays.copyOf(file, HEADER_BYTES - 1));
+    }
+
+    @Test
+    public void rejectsUnknownHeader() throws Exception {
+        final byte[] magic = toByteArray(sample());
+        magic[0] = 'X';
+        assertInvalid(magic);
+
+        final byte[] format = toByteArray(sample());
+        ByteBuffer.wrap(format).putShort(4, (short) 2);
+        assertInvalid(format);
+    }
+
+    @Test
+    public void rejectsUnknownBrandCode() throws Exception {
+        final byte[] file = toByteArray(sample());
+        file[HEADER_BYTES + 2 * RANGE_BYTES + 8] = (byte) 200;
+
+        assertInvalid(file);
+    }
+
+    @Test
+    public void rejectsUnknownCardTypeCode() throws Exception {
+        final byte[] file = toByteArray(sample());
+        file[HEADER_BYTES + 9] = 4;
+
+        assertInvalid(file);
+    }
+
+    @Test
+    public void rejectsIssuerOffsetOutOfBounds() throws Exception {
+        final byte[] past = toByteArray(sample());
+        ByteBuffer.wrap(past).putInt(HEADER_BYTES + 12, past.length);
+        assertInvalid(past);
+
+        final byte[] negative = toByteArray(sample());
+        ByteBuffer.wrap(negative).putInt(HEADER_BYTES + 12, -2);
+        assertInvalid(negative);
+
+        // the offset is in bounds, the length stored there runs past the end
+        final byte[] length = toByteArray(sample());
+        final ByteBuffer data = ByteBuffer.wrap(length);
+        data.putShort(HEADER_BYTES + 4 * RANGE_BYTES + data.getInt(HEADER_BYTES + 12), (short) 0xFFFF);
+        assertInvalid(length);
+    }
+
+    @Test
+    public void unknownBrandFallsBackToBinTable() throws Exception {
+        final ByteArrayOutputStream file = new ByteArrayOutputStream();
+        BinDatabase.builder(1)
+                .add("41111111", "41111111", CardBrand.UNKNOWN, BinInfo.CardType.DEBIT, "GB", "Barclays")
+                .add("777777", "777777", CardBrand.UNKNOWN, BinInfo.CardType.CREDIT, null, null)
+                .writeTo(file);
+        final BinDatabase database = open(file.toByteArray());
+
+        final BinInfo visa = database.lookup("4111111111111111");
+        assertEquals(CardBrand.VISA, visa.getBrand());
+        assertEquals(BinInfo.CardType.DEBIT, visa.getCardType());
+        assertEquals("Barclays", visa.getIssuer());
+        assertEquals(CardBrand.UNKNOWN, database.lookup("7777770000000000").getBrand());
+
+        BinDatabase.install(database);
+        assertEquals(CardBrand.VISA, CardUtils.getCardBrand("4111111111111111"));
+        assertEquals(CardBrand.UNKNOWN, CardUtils.getCardBrand("7777770000000000"));
+    }
+
+    @Test
+    public void installNullRestoresBuiltInDetection() throws Exception {
+        final BinDatabase database = open(toByteArray(sample()));
+        final String unionPay = withCheckDigit("620000000000000");
+        assertEquals(CardBrand.UNKNOWN, CardUtils.getCardBrand(unionPay));
+        assertTrue(!CardUtils.isValidPan(unionPay));
+
+        assertNull(BinDatabase.install(database));
+        assertSame(database, BinDatabase.installed());
+        assertEquals(CardBrand.UNION_PAY, CardUtils.getCardBrand(unionPay));
+        assertEquals(CardBrand.UNION_PAY, CardUtils.detectBrand(unionPay));
+        assertTrue(CardUtils.isValidPan(unionPay));
+
+        assertSame(database, BinDatabase.install(null));
+        assertNull(BinDatabase.installed());
+        assertEquals(CardBrand.UNKNOWN, CardUtils.getCardBrand(unionPay));
+        assertTrue(!CardUtils.isValidPan(unionPay));
+    }
+
+    @Test
+    public void panInputAgreesWithCardUtils() throws Exception {
+        BinDatabase.install(open(toByteArray(BinDatabase.builder(1)
+                .add("98910200", "98910299", CardBrand.DINACARD, BinInfo.CardType.DEBIT, "RS", POSTANSKA)
+                .add("41111111", "41111111", CardBrand.UNKNOWN, BinInfo.CardType.CREDIT, "US", null)
+                // the 2-series, which the built-in rules don't know
+                .add("222100", "272099", CardBrand.MASTERCARD, BinInfo.CardType.CREDIT, null, null)
+                // Discover by the built-in rules
+                .add("622126", "622925", CardBrand.UNION_PAY, BinInfo.CardType.DEBIT, "CN", UNION_PAY)
+                .add("5355", "5355", CardBrand.MAESTRO, BinInfo.CardType.DEBIT, "RS", POSTANSKA))));
+
+        final String[] pans = {
+                withCheckDigit("222100000000000"),
+                withCheckDigit("272099123456789"),
+                withCheckDigit("622126000000000"),
+                withCheckDigit("622126000000000000"),
+                withCheckDigit("411111111111111"),
+                withCheckDigit("989102123456789"),
+                withCheckDigit("535500000000000"),
+                withCheckDigit("37828224631000"),
+                withCheckDigit("601100099013942"),
+                withCheckDigit("123456781234567"),
+                withCheckDigit("41111111111111111111")
+        };
+        for (String pan : pans) {
+            final PanInputState state = new PanInputState();
+            for (int length = 1; length <= pan.length(); length++) {
+                final String prefix = pan.substring(0, length);
+                state.append(pan.charAt(length - 1));
+
+                assertEquals(prefix, CardUtils.getCardBrand(prefix), state.getBrand());
+                assertEquals(prefix, CardUtils.isValidPan(prefix), state.isValid());
+                if (length >= EXHAUSTIVE_FROM_DIGITS) {
+                    assertEquals(prefix, hasValidCompletion(prefix), state.canBecomeValid());
+                } else if (CardUtils.isValidPan(pan)) {
+                    assertTrue(prefix, state.canBecomeValid());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if some number of at most {@link PanInputState#MAX_LENGTH} digits that starts
+     * with prefix is valid, trying every continuation of the BIN and every length after it
+     */
+    private static boolean hasValidCompletion(String prefix) {
+        if (CardUtils.isValidPan(prefix)) {
+            return true;
+        }
+        if (prefix.length() < BinDatabase.BIN_DIGITS) {
+            final int open = BinDatabase.BIN_DIGITS - prefix.length();
+            for (int bin = 0; bin < (int) Math.pow(10, open); bin++) {
+                if (hasValidCompletion(prefix + String.format("%0" + open + "d", bin))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int length = prefix.length() + 1; length <= PanInputState.MAX_LENGTH; length++) {
+            final StringBuilder body = new StringBuilder(prefix);
+            while (body.length() < length - 1) {
+                body.append('0');
+            }
+            if (CardUtils.isValidPan(withCheckDigit(body.toString()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withCheckDigit(String body) {
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            int digit = body.charAt(body.length() - 1 - i) - '0';
+            if (i % 2 == 0) {
+                digit = digit < 5 ? digit * 2 : digit * 2 - 9;
+            }
+            sum += digit;
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    private static BinDatabase.Builder sample() {
+        return BinDatabase.builder(7)
+                .add("98910200", "98910299", CardBrand.DINACARD, BinInfo.CardType.DEBIT, "RS", POSTANSKA)
+                .add("41111111", "41111111", CardBrand.VISA, BinInfo.CardType.CREDIT, "US", "JPMorgan Chase")
+                .add("62", "62", CardBrand.UNION_PAY, BinInfo.CardType.PREPAID, null, UNION_PAY)
+                .add("5355", "5355", CardBrand.MASTERCARD, BinInfo.CardType.CREDIT, "RS", POSTANSKA);
+    }
+
+    private static byte[] toByteArray(BinDatabase.Builder builder) throws IOException {
+        final ByteArrayOutputStream file = new ByteArrayOutputStream();
+        builder.writeTo(file);
+        return file.toByteArray();
+    }
+
+    private BinDatabase open(byte[] file) throws IOException {
+        final File path = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            out.write(file);
+        }
+        return BinDatabase.open(path);
+    }
+
+    private void assertInvalid(byte[] file) throws IOException {
+        try {
+            open(file);
+            fail();
+        } catch (IOException expected) {
+            // rejected up front, lookups never see the file
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MSU CSE
+ * <p>
+ * Bulk validation of small files, with windows small enough that records span several of them.
+ */
+public class BulkCardValidatorTest {
+
+    private File input;
+
+    @Before
+    public void setUp() throws IOException {
+        input = File.createTempFile("cards", ".csv");
+    }
+
+    @After
+    public void tearDown() {
+        input.delete();
+    }
+
+    @Test
+    public void writesOneResultPerRecord() throws IOException {
+        write("pan,month,year,cvv\n"
+                + "4111111111111111,12,2030,123\n"
+                + "4111111111111112,12,2030,123\r\n"
+                + "5555555555554444,5,30,12\n"
+                + "4111111111111111,5,2030,123");
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final BulkCardValidator.Summary summary = BulkCardValidator.builder()
+                .cvvColumn(3)
+                .skipHeader(true)
+                .clock(ExpiryClock.fixed(2030, 6))
+                .build()
+                .validate(input, output);
+
+        assertEquals("VISA,true,\n"
+                + "VISA,false,PAN_INVALID\n"
+                + "MASTERCARD,false,EXPIRY_INVALID|CVV_INVALID\n"
+                + "VISA,false,EXPIRY_INVALID\n", new String(output.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(4, summary.getRecords());
+        assertEquals(1, summary.getValid());
+    }
+
+    @Test
+    public void resultsKeepInputOrderAcrossWindows() throws IOException {
+        final StringBuilder records = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            final boolean valid = i % 3 != 0;
+            records.append(valid ? "4111111111111111" : "4111111111111112").append(",1,").append(2030 + i % 2).append('\n');
+            expected.append(valid ? "VISA,true,\n" : "VISA,false,PAN_INVALID\n");
+        }
+        write(records.toString());
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final BulkCardValidator.Summary summary = BulkCardValidator.builder()
+                .windowBytes(4096)
+                .clock(ExpiryClock.fixed(2030, 1))
+                .build()
+                .validate(input, output);
+
+        assertEquals(expected.toString(), new String(output.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(5000, summary.getRecords());
+    }
+
+    private void write(String content) throws IOException {
+        try (OutputStream out = new FileOutputStream(input)) {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * MSU CSE
+ * <p>
+ * Restoring and persisting public keys through a {@link PublicKeyStore}, with a stub endpoint.
+ */
+public class CSEApiImplPersistenceTest {
+
+    private static final String ENDPOINT = "https://keys.example/publickey";
+    private static final long TTL_MILLIS = 60 * 60 * 1000L;
+
+    private final InMemoryStore store = new InMemoryStore();
+    private final StubTransport transport = new StubTransport();
+    private final CSEMetrics metrics = new CSEMetrics();
+    private CSEExecutors executors;
+
+    @After
+    public void tearDown() {
+        if (executors != null) {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    public void restoresPersistedKeyWithinTtl() {
+        final String encoded = TestKeys.encoded(TestKeys.first());
+        store.save(ENDPOINT, stored(encoded, System.currentTimeMillis() - TTL_MILLIS / 2));
+
+        final PublicKeyFetchResult result = api().fetchPublicKey();
+
+        assertNull(result.getCause());
+        assertEquals(encoded, result.getPublicKey().getEncoded());
+        assertEquals(0, transport.requests.get());
+        assertEquals(1, metrics.snapshot().getCount(MetricsCounter.KEY_RESTORED));
+    }
+
+    @Test
+    public void restoredKeyIsServedFromMemoryAfterwards() {
+        store.save(ENDPOINT, stored(TestKeys.encoded(TestKeys.first()), System.currentTimeMillis()));
+        final CSEApiImpl api = api();
+
+        final CachedPublicKey restored = api.fetchPublicKey().getPublicKey();
+
+        assertSame(restored, api.cachedPublicKey());
+        assertSame(restored, api.fetchPublicKey().getPublicKey());
+        assertEquals(1, store.loads.get());
+    }
+
+    @Test
+    public void discardsExpiredEntry() {
+        store.save(ENDPOINT, stored(TestKeys.encoded(TestKeys.first()), System.currentTimeMillis() - TTL_MILLIS - 1));
+        transport.publicKey = TestKeys.encoded(TestKeys.rotated());
+
+        final PublicKeyFetchResult result = api().fetchPublicKey();
+
+        assertEquals(transport.publicKey, result.getPublicKey().getEncoded());
+        assertEquals(1, transport.requests.get());
+        assertEquals(0, metrics.snapshot().getCount(MetricsCounter.KEY_RESTORED));
+    }
+
+    @Test
+    public void discardsEntryFromTheFuture() {
+        store.save(ENDPOINT, stored(TestKeys.encoded(TestKeys.first()), System.currentTimeMillis() + TTL_MILLIS));
+        transport.publicKey = TestKeys.encoded(TestKeys.first());
+
+        api().fetchPublicKey();
+
+        assertEquals(1, transport.requests.get());
+    }
+
+    @Test
+    public void discardsFingerprintMismatch() {
+        final String encoded = TestKeys.encoded(TestKeys.first());
+        store.save(ENDPOINT, new StoredPublicKey(encoded, System.currentTimeMillis(), "0000"));
+        transport.publicKey = encoded;
+
+        final PublicKeyFetchResult result = api().fetchPublicKey();
+
+        assertNull(result.getCause());
+        assertEquals(1, store.removes.get());
+        assertEquals(1, transport.requests.get());
+        assertEquals(0, metrics.snapshot().getCount(MetricsCounter.KEY_RESTORED));
+        // replaced by the fetched key with its real fingerprint
+        assertEquals(result.getPublicKey().getFingerprint(), store.load(ENDPOINT).getFingerprint());
+    }
+
+    @Test
+    public void discardsUnparsableEntry() {
+        store.save(ENDPOINT, new StoredPublicKey("not a key", System.currentTimeMillis(), "0000"));
+        transport.publicKey = TestKeys.encoded(TestKeys.first());
+
+        final PublicKeyFetchResult result = api().fetchPublicKey();
+
+        assertNull(result.getCause());
+        assertEquals(1, store.removes.get());
+        assertEquals(transport.publicKey, store.load(ENDPOINT).getEncoded());
+    }
+
+    @Test
+    public void persistsFetchedKey() {
+        transport.publicKey = TestKeys.encoded(TestKeys.first());
+
+        final CachedPublicKey fetched = api().fetchPublicKey().getPublicKey();
+
+        final StoredPublicKey stored = store.load(ENDPOINT);
+        assertEquals(fetched.getEncoded(), stored.getEncoded());
+        assertEquals(fetched.getFingerprint(), stored.getFingerprint());
+        assertEquals(fetched.getFetchedAtMillis(), stored.getFetchedAtMillis());
+    }
+
+    @Test
+    public void overwritesRotatedKey() {
+        final String first = TestKeys.encoded(TestKeys.first());
+        store.save(ENDPOINT, stored(first, System.currentTimeMillis()));
+        final CSEApiImpl api = api();
+        final CachedPublicKey restored = api.fetchPublicKey().getPublicKey();
+        assertEquals(first, restored.getEncoded());
+
+        // the endpoint rotated, encryption with the old key failed
+        transport.publicKey = TestKeys.encoded(TestKeys.rotated());
+        api.invalidate(restored);
+        assertNull(store.load(ENDPOINT));
+
+        final CachedPublicKey rotated = api.fetchPublicKey().getPublicKey();
+        assertEquals(transport.publicKey, rotated.getEncoded());
+        assertEquals(rotated.getFingerprint(), store.load(ENDPOINT).getFingerprint());
+        assertEquals(1, transport.requests.get());
+    }
+
+    @Test
+    public void storeFailuresDontFailTheFetch() {
+        store.failing = true;
+        transport.publicKey = TestKeys.encoded(TestKeys.first());
+
+        final PublicKeyFetchResult result = api().fetchPublicKey();
+
+        assertNull(result.getCause());
+        assertEquals(transport.publicKey, result.getPublicKey().getEncoded());
+    }
+
+    private CSEApiImpl api() {
+        final CSEConfig config = CSEConfig.builder()
+                .publicKeyEndpoint(ENDPOINT)
+                .publicKeyStore(store)
+                .publicKeyTtlMillis(TTL_MILLIS)
+                .keyFetchRetries(0, 0)
+                .keyTransport(transport)
+                .build();
+        executors = new CSEExecutors(config);
+        // a registry of its own, the process wide one would leak keys between tests
+        return new CSEApiImpl(false, config, executors, metrics, new PublicKeyRegistry(4));
+    }
+
+    private static StoredPublicKey stored(String encoded, long fetchedAtMillis) {
+        return new StoredPublicKey(encoded, fetchedAtMillis, RSAEncryption.fingerprint(RSAEncryption.getKey(encoded)));
+    }
+
+    private static final class StubTransport implements KeyTransport {
+
+        final AtomicInteger requests = new AtomicInteger();
+        volatile String publicKey;
+
+        @Override
+        public String fetchPublicKey(String endpoint) throws IOException {
+            requests.incrementAndGet();
+            if (publicKey == null) {
+                throw new IOException("endpoint unavailable");
+            }
+            return publicKey;
+        }
+    }
+
+    private static final class InMemoryStore implements PublicKeyStore {
+
+        final Map<String, StoredPublicKey> entries = new HashMap<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger removes = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public synchronized StoredPublicKey load(String endpoint) {
+            loads.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            return entries.get(endpoint);
+        }
+
+        @Override
+        public synchronized void save(String endpoint, StoredPublicKey publicKey) {
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            entries.put(endpoint, publicKey);
+        }
+
+        @Override
+        public synchronized void remove(String endpoint) {
+            removes.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("store unavailable");
+            }
+            entries.remove(endpoint);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * Public key endpoints the builder accepts, plain http only reaches a local stand-in.
+ */
+public class CSEConfigTest {
+
+    @Test
+    public void acceptsHttpsEndpoints() {
+        assertAccepted("https://keys.example/publickey");
+        assertAccepted("HTTPS://keys.example:8443/msu/cse/publickey");
+    }
+
+    @Test
+    public void acceptsHttpOnLoopback() {
+        assertAccepted("http://localhost:8080/publickey");
+        assertAccepted("http://127.0.0.1:50123/publickey");
+    }
+
+    @Test
+    public void rejectsHttpToOtherHosts() {
+        assertRejected("http://keys.example/publickey");
+        assertRejected("http://10.0.2.2:8080/publickey");
+        assertRejected("http://127.0.0.1.keys.example/publickey");
+        // user info, the host is keys.example
+        assertRejected("http://localhost@keys.example/publickey");
+    }
+
+    @Test
+    public void rejectsOtherSchemesAndMalformedUrls() {
+        assertRejected("ftp://keys.example/publickey");
+        assertRejected("file:///data/publickey");
+        assertRejected("keys.example/publickey");
+        assertRejected("https://");
+        assertRejected("https://keys example/publickey");
+    }
+
+    private static void assertAccepted(String endpoint) {
+        assertEquals(endpoint, CSEConfig.builder().publicKeyEndpoint(endpoint).build().getPublicKeyEndpoint());
+    }
+
+    private static void assertRejected(String endpoint) {
+        try {
+            CSEConfig.builder().publicKeyEndpoint(endpoint);
+            fail(endpoint);
+        } catch (IllegalArgumentException expected) {
+            // not https and not loopback
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MSU CSE
+ * <p>
+ * Expiry checks against frozen months, compared with the Calendar and String.format based
+ * implementation they replaced.
+ */
+public class CardUtilsExpiryTest {
+
+    @Test
+    public void cardExpiresAfterItsMonth() {
+        final int october2026 = ExpiryClock.yearMonth(2026, 10);
+
+        assertTrue(CardUtils.isValidExpiry(october2026, 10, 2026));
+        assertTrue(CardUtils.isValidExpiry(october2026, 10, 26));
+        assertFalse(CardUtils.isValidExpiry(october2026, 9, 2026));
+        assertFalse(CardUtils.isValidExpiry(october2026, 12, 2025));
+        assertTrue(CardUtils.isValidExpiry(october2026, 1, 2027));
+    }
+
+    @Test
+    public void rejectsMissingOrInvalidFields() {
+        final int october2026 = ExpiryClock.yearMonth(2026, 10);
+
+        assertFalse(CardUtils.isValidExpiry(october2026, null, 2030));
+        assertFalse(CardUtils.isValidExpiry(october2026, 10, null));
+        assertFalse(CardUtils.isValidExpiry(october2026, 0, 2030));
+        assertFalse(CardUtils.isValidExpiry(october2026, 13, 2030));
+    }
+
+    @Test
+    public void twoDigitYearsStayInCurrentCentury() {
+        assertEquals(2000, CardUtils.normalizeYear(0, ExpiryClock.yearMonth(2026, 10)));
+        assertEquals(2099, CardUtils.normalizeYear(99, ExpiryClock.yearMonth(2026, 10)));
+        assertEquals(2030, CardUtils.normalizeYear(2030, ExpiryClock.yearMonth(2026, 10)));
+        assertEquals(100, CardUtils.normalizeYear(100, ExpiryClock.yearMonth(2026, 10)));
+        assertEquals(-1, CardUtils.normalizeYear(-1, ExpiryClock.yearMonth(2026, 10)));
+    }
+
+    @Test
+    public void centuryBoundary() {
+        final int december2099 = ExpiryClock.yearMonth(2099, 12);
+        final int january2100 = ExpiryClock.yearMonth(2100, 1);
+
+        assertEquals(2099, CardUtils.normalizeYear(99, december2099));
+        assertEquals(2199, CardUtils.normalizeYear(99, january2100));
+        assertEquals(2100, CardUtils.normalizeYear(0, january2100));
+
+        // "00" is 2000 until the century turns, a card expiring in 2100 needs four digits
+        assertFalse(CardUtils.isValidExpiry(december2099, 1, 0));
+        assertTrue(CardUtils.isValidExpiry(december2099, 1, 2100));
+        assertTrue(CardUtils.isValidExpiry(january2100, 1, 0));
+        assertFalse(CardUtils.isValidExpiry(january2100, 12, 2099));
+        // a two-digit year never refers to the previous century
+        assertTrue(CardUtils.isValidExpiry(january2100, 12, 99));
+    }
+
+    @Test
+    public void matchesCalendarImplementation() {
+        final Calendar now = Calendar.getInstance();
+        final Integer[] months = {null, -1, 0, 1, 2, 6, 11, 12, 13};
+        for (int year = 1998; year <= 2101; year++) {
+            for (int month = 1; month <= 12; month++) {
+                now.clear();
+                now.set(year, month - 1, 15);
+                final int currentYearMonth = ExpiryClock.yearMonth(year, month);
+
+                for (Integer expiryMonth : months) {
+                    for (int expiryYear = -2; expiryYear <= 102; expiryYear++) {
+                        assertSame(now, currentYearMonth, expiryMonth, expiryYear);
+                        assertSame(now, currentYearMonth, expiryMonth, year - 1 + expiryYear % 3);
+                    }
+                    assertSame(now, currentYearMonth, expiryMonth, null);
+                }
+            }
+        }
+    }
+
+    private static void assertSame(Calendar now, int currentYearMonth, Integer month, Integer year) {
+        assertEquals(now.getTime() + " " + month + "/" + year,
+                CalendarExpiry.isValidExpiry(now, month, year),
+                CardUtils.isValidExpiry(currentYearMonth, month, year));
+    }
+
+    /**
+     * The expiry checks before they moved to {@link ExpiryClock} months, kept as the reference
+     */
+    private static final class CalendarExpiry {
+
+        static boolean isValidExpiry(Calendar now, Integer month, Integer year) {
+            if (month == null || month < 1 || month > 12) {
+                return false;
+            }
+            if (year == null || hasYearPassed(year, now)) {
+                return false;
+            }
+            return !(normalizeYear(year, now) == now.get(Calendar.YEAR)
+                    && month < (now.get(Calendar.MONTH) + 1));
+        }
+
+        static boolean hasYearPassed(int year, Calendar now) {
+            return normalizeYear(year, now) < now.get(Calendar.YEAR);
+        }
+
+        static int normalizeYear(int year, Calendar now) {
+            if (year < 100 && year >= 0) {
+                String currentYear = String.valueOf(now.get(Calendar.YEAR));
+                String prefix = currentYear.substring(0, currentYear.length() - 2);
+                year = Integer.parseInt(String.format(Locale.US, "%s%02d", prefix, year));
+            }
+            return year;
+        }
+    }
+}
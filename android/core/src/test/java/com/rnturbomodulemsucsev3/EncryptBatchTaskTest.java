@@ -0,0 +1,190 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MSU CSE
+ * <p>
+ * Batch encryption with a stub public key source, in particular cancelling a batch while its
+ * chunks are running.
+ */
+public class EncryptBatchTaskTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final AtomicReference<Throwable> uncaught = new AtomicReference<>();
+    private Thread.UncaughtExceptionHandler previousHandler;
+    private CSEExecutors executors;
+    private CSECore core;
+
+    @Before
+    public void setUp() {
+        previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+        // pool threads report exceptions escaping a task here
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable e) {
+                uncaught.compareAndSet(null, e);
+            }
+        });
+        final CSEConfig config = CSEConfig.builder().encryptionThreads(2).build();
+        executors = new CSEExecutors(config);
+        core = new CSECore(DIRECT, executors, new StubApi(CachedPublicKey.parse(TestKeys.encoded(TestKeys.first()), System.currentTimeMillis())), config);
+    }
+
+    @After
+    public void tearDown() {
+        executors.shutdown();
+        Thread.setDefaultUncaughtExceptionHandler(previousHandler);
+    }
+
+    @Test
+    public void deliversOneResultPerItemInOrder() throws Exception {
+        final List<EncryptBatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(i % 5 == 0 ? EncryptBatchItem.cvv("1", "nonce" + i) : EncryptBatchItem.cvv("123", "nonce" + i));
+        }
+        final AtomicReference<List<EncryptBatchResult>> delivered = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        core.encryptBatch(items, new EncryptBatchCallback() {
+            @Override
+            public void onComplete(List<EncryptBatchResult> results) {
+                delivered.set(results);
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        final List<EncryptBatchResult> results = delivered.get();
+        assertEquals(items.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(i % 5 != 0, results.get(i).isSuccess());
+        }
+        assertEquals(0, core.getInFlightCount());
+    }
+
+    @Test
+    public void cancellingRunningBatchDropsCallback() throws Exception {
+        final List<EncryptBatchItem> items = Collections.nCopies(4000, EncryptBatchItem.cvv("123", "abcdef0123456789"));
+        final AtomicInteger callbacks = new AtomicInteger();
+        final CountDownLatch encrypting = new CountDownLatch(1);
+        core.setMetricsListener(new CSEMetricsListener() {
+            @Override
+            public void onTiming(MetricsPhase phase, long durationNanos) {
+                if (phase == MetricsPhase.ENCRYPTION) {
+                    encrypting.countDown();
+                }
+            }
+
+            @Override
+            public void onCount(MetricsCounter counter) {
+            }
+
+            @Override
+            public void onFailure(EncryptExceptionCode code) {
+            }
+        });
+
+        core.encryptBatch(items, new EncryptBatchCallback() {
+            @Override
+            public void onComplete(List<EncryptBatchResult> results) {
+                callbacks.incrementAndGet();
+            }
+        });
+        assertTrue(encrypting.await(10, TimeUnit.SECONDS));
+        assertEquals(1, core.getInFlightCount());
+        core.cancelAll();
+        assertEquals(0, core.getInFlightCount());
+
+        // chunks notice the cancellation and finish early
+        executors.shutdown();
+        assertTrue(((ThreadPoolExecutor) executors.encryption()).awaitTermination(10, TimeUnit.SECONDS));
+
+        assertNull(uncaught.get());
+        assertEquals(0, callbacks.get());
+        assertEquals(0, core.getInFlightCount());
+        assertFalse(core.getMetrics().getCount(MetricsPhase.ENCRYPTION) >= items.size());
+    }
+
+    @Test
+    public void cancellingBeforeKeyFetchDropsCallback() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CSEConfig config = CSEConfig.builder().build();
+        final CSECore blocked = new CSECore(DIRECT, executors, new StubApi(null) {
+            @Override
+            public PublicKeyFetchResult fetchPublicKey() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.fetchPublicKey();
+            }
+        }, config);
+        final AtomicInteger callbacks = new AtomicInteger();
+
+        blocked.encryptBatch(Collections.singletonList(EncryptBatchItem.cvv("123", "nonce")), new EncryptBatchCallback() {
+            @Override
+            public void onComplete(List<EncryptBatchResult> results) {
+                callbacks.incrementAndGet();
+            }
+        });
+        blocked.cancelAll();
+        release.countDown();
+
+        executors.shutdown();
+        assertTrue(((ThreadPoolExecutor) executors.keyFetch()).awaitTermination(10, TimeUnit.SECONDS));
+        assertNull(uncaught.get());
+        assertEquals(0, callbacks.get());
+    }
+
+    private static class StubApi implements CSEApi {
+
+        private final CachedPublicKey publicKey;
+
+        StubApi(CachedPublicKey publicKey) {
+            this.publicKey = publicKey;
+        }
+
+        @Override
+        public PublicKeyFetchResult fetchPublicKey() {
+            if (publicKey == null) {
+                return PublicKeyFetchResult.failed(EncryptException.create("no key", EncryptExceptionCode.REQUEST_FAILED));
+            }
+            return PublicKeyFetchResult.success(publicKey);
+        }
+
+        @Override
+        public CachedPublicKey cachedPublicKey() {
+            return publicKey;
+        }
+
+        @Override
+        public void invalidate(CachedPublicKey publicKey) {
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * The system clock's cached month with a wall clock the test moves across month boundaries.
+ */
+public class ExpiryClockTest {
+
+    private TimeZone previousZone;
+    private final FrozenClock clock = new FrozenClock();
+
+    @Before
+    public void setUp() {
+        previousZone = TimeZone.getDefault();
+        // months start at local midnight, not UTC, and this zone switches to summer time in March
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Sarajevo"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(previousZone);
+    }
+
+    @Test
+    public void yearMonthRoundTrips() {
+        final int yearMonth = ExpiryClock.yearMonth(2026, 12);
+
+        assertEquals(2026, ExpiryClock.yearOf(yearMonth));
+        assertEquals(12, ExpiryClock.monthOf(yearMonth));
+        assertEquals(yearMonth + 1, ExpiryClock.yearMonth(2027, 1));
+    }
+
+    @Test
+    public void fixedClockRejectsInvalidMonth() {
+        assertEquals(ExpiryClock.yearMonth(2026, 1), ExpiryClock.fixed(2026, 1).currentYearMonth());
+        try {
+            ExpiryClock.fixed(2026, 13);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // months are 1 to 12
+        }
+    }
+
+    @Test
+    public void staysInMonthUntilItsLastMillisecond() {
+        clock.millis = millis(2026, 1, 1);
+        assertEquals(ExpiryClock.yearMonth(2026, 1), clock.currentYearMonth());
+
+        clock.millis = millis(2026, 2, 1) - 1;
+        assertEquals(ExpiryClock.yearMonth(2026, 1), clock.currentYearMonth());
+
+        clock.millis = millis(2026, 2, 1);
+        assertEquals(ExpiryClock.yearMonth(2026, 2), clock.currentYearMonth());
+    }
+
+    @Test
+    public void rollsOverIntoNextYear() {
+        clock.millis = millis(2026, 12, 31);
+        assertEquals(ExpiryClock.yearMonth(2026, 12), clock.currentYearMonth());
+
+        clock.millis = millis(2027, 1, 1);
+        assertEquals(ExpiryClock.yearMonth(2027, 1), clock.currentYearMonth());
+    }
+
+    @Test
+    public void rollsOverAcrossSummerTime() {
+        // March 2026 has 31 days but one hour less
+        clock.millis = millis(2026, 4, 1) - 1;
+        assertEquals(ExpiryClock.yearMonth(2026, 3), clock.currentYearMonth());
+
+        clock.millis = millis(2026, 4, 1);
+        assertEquals(ExpiryClock.yearMonth(2026, 4), clock.currentYearMonth());
+
+        clock.millis = millis(2026, 11, 1) - 1;
+        assertEquals(ExpiryClock.yearMonth(2026, 10), clock.currentYearMonth());
+    }
+
+    @Test
+    public void clockSetBackRecomputesMonth() {
+        clock.millis = millis(2026, 6, 15);
+        assertEquals(ExpiryClock.yearMonth(2026, 6), clock.currentYearMonth());
+
+        clock.millis = millis(2026, 5, 31);
+        assertEquals(ExpiryClock.yearMonth(2026, 5), clock.currentYearMonth());
+
+        clock.millis = millis(2024, 2, 29);
+        assertEquals(ExpiryClock.yearMonth(2024, 2), clock.currentYearMonth());
+    }
+
+    @Test
+    public void matchesCalendarEveryDay() {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis(2019, 12, 31));
+        for (int day = 0; day < 3 * 366; day++) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            clock.millis = calendar.getTimeInMillis();
+
+            assertEquals(ExpiryClock.yearMonth(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1),
+                    clock.currentYearMonth());
+        }
+    }
+
+    /**
+     * @return local midnight at the start of the day
+     */
+    private static long millis(int year, int month, int day) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day);
+        return calendar.getTimeInMillis();
+    }
+
+    private static final class FrozenClock extends ExpiryClock.SystemClock {
+
+        long millis;
+
+        @Override
+        long currentTimeMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.rnturbomodulemsucsev3;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * Key requests against a local server that delays or fails responses on demand.
+ */
+public class HttpKeyTransportTest {
+
+    private static final String KEY = "MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEA";
+    private static final long TOTAL_TIMEOUT_MILLIS = 60 * 1000L;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String endpoint;
+    private final AtomicInteger requests = new AtomicInteger();
+    // per request, in order, the last one repeats
+    private volatile long[] delaysMillis = {0};
+    private volatile int[] statuses = {200};
+    private volatile String body = "{\"publicKey\":\"" + KEY + "\"}";
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/publickey", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final int request = requests.getAndIncrement();
+                try {
+                    Thread.sleep(delaysMillis[Math.min(request, delaysMillis.length - 1)]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                final byte[] response = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(statuses[Math.min(request, statuses.length - 1)], response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                } catch (IOException e) {
+                    // client gave up, e.g. after a read timeout
+                }
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/publickey";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void fetchesKey() throws IOException {
+        assertEquals(KEY, new HttpKeyTransport(1000, 1000).fetchPublicKey(endpoint));
+    }
+
+    @Test
+    public void httpErrorFails() {
+        statuses = new int[]{503};
+        try {
+            new HttpKeyTransport(1000, 1000).fetchPublicKey(endpoint);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("503"));
+        }
+    }
+
+    @Test
+    public void readTimeoutFires() throws IOException {
+        delaysMillis = new long[]{2000};
+        final long started = System.nanoTime();
+        try {
+            new HttpKeyTransport(1000, 200).fetchPublicKey(endpoint);
+            fail();
+        } catch (SocketTimeoutException expected) {
+            // no response within the read timeout
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue("took " + elapsed, elapsed >= 200 && elapsed < 1500);
+    }
+
+    @Test
+    public void connectTimeoutFires() throws IOException {
+        // a listening socket that never accepts, once its backlog is full further connects get no answer
+        final List<Socket> backlog = new ArrayList<>();
+        try (ServerSocket unresponsive = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final InetSocketAddress address = (InetSocketAddress) unresponsive.getLocalSocketAddress();
+            try {
+                for (int i = 0; i < 8; i++) {
+                    final Socket socket = new Socket();
+                    backlog.add(socket);
+                    socket.connect(address, 200);
+                }
+            } catch (SocketTimeoutException full) {
+                // backlog is full
+            }
+
+            final long started = System.nanoTime();
+            try {
+                new HttpKeyTransport(300, 5000).fetchPublicKey("http://127.0.0.1:" + address.getPort() + "/publickey");
+                fail();
+            } catch (SocketTimeoutException expected) {
+                // connect timed out
+            }
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertTrue("took " + elapsed, elapsed >= 300 && elapsed < 3000);
+        } finally {
+            for (Socket socket : backlog) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void retriesFailedResponses() throws Exception {
+        statuses = new int[]{500, 502, 200};
+        final KeyFetchPolicy policy = new KeyFetchPolicy(2, 10, 0, TOTAL_TIMEOUT_MILLIS, null);
+
+        assertEquals(KEY, fetch(policy, new HttpKeyTransport(1000, 1000)));
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void clientErrorIsNotRetried() throws Exception {
+        statuses = new int[]{404, 200};
+        final KeyFetchPolicy policy = new KeyFetchPolicy(2, 10, 0, TOTAL_TIMEOUT_MILLIS, null);
+
+        try {
+            fetch(policy, new HttpKeyTransport(1000, 1000));
+            fail();
+        } catch (KeyResponseException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("404"));
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void throttlingIsRetried() throws Exception {
+        statuses = new int[]{429, 200};
+        final KeyFetchPolicy policy = new KeyFetchPolicy(2, 10, 0, TOTAL_TIMEOUT_MILLIS, null);
+
+        assertEquals(KEY, fetch(policy, new HttpKeyTransport(1000, 1000)));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void malformedResponseIsNotRetried() throws Exception {
+        body = "{\"key\":\"" + KEY + "\"}";
+        final KeyFetchPolicy policy = new KeyFetchPolicy(2, 10, 0, TOTAL_TIMEOUT_MILLIS, null);
+
+        try {
+            fetch(policy, new HttpKeyTransport(1000, 1000));
+            fail();
+        } catch (KeyResponseException expected) {
+            // publicKey missing
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void readTimeoutIsRetried() throws Exception {
+        delaysMillis = new long[]{1000, 0};
+        final KeyFetchPolicy policy = new KeyFetchPolicy(1, 10, 0, TOTAL_TIMEOUT_MILLIS, null);
+
+        assertEquals(KEY, fetch(policy, new HttpKeyTransport(1000, 200)));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void hedgedRequestWinsOverSlowResponse() throws Exception {
+        delaysMillis = new long[]{3000, 0};
+        final CSEExecutors executors = new CSEExecutors(CSEConfig.defaults());
+        try {
+            final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, 100, TOTAL_TIMEOUT_MILLIS, executors.keyRequest());
+
+            final long started = System.nanoTime();
+            assertEquals(KEY, fetch(policy, new HttpKeyTransport(1000, 5000)));
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertTrue("took " + elapsed, elapsed >= 100 && elapsed < 2000);
+            assertEquals(2, requests.get());
+        } finally {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    public void apiFetchesThroughLocalEndpoint() {
+        body = "{\"publicKey\":\"" + TestKeys.encoded(TestKeys.first()) + "\"}";
+        delaysMillis = new long[]{3000, 0};
+        final CSEConfig config = CSEConfig.builder()
+                .publicKeyEndpoint(endpoint)
+                .keyFetchTimeouts(1000, 5000)
+                .keyFetchHedgeAfterMillis(100)
+                .build();
+        final CSEExecutors executors = new CSEExecutors(config);
+        try {
+            final CSEApiImpl api = new CSEApiImpl(false, config, executors, new CSEMetrics(), new PublicKeyRegistry(4));
+            final PublicKeyFetchResult result = api.fetchPublicKey();
+
+            assertNull(result.getCause());
+            assertEquals(TestKeys.encoded(TestKeys.first()), result.getPublicKey().getEncoded());
+        } finally {
+            executors.shutdown();
+        }
+    }
+
+    private String fetch(KeyFetchPolicy policy, final HttpKeyTransport transport) throws Exception {
+        return policy.execute(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return transport.fetchPublicKey(endpoint);
+            }
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MSU CSE
+ * <p>
+ * Base64 decoding of the JVM platform, which has to skip line wraps in a public key response the
+ * way android.util.Base64 does.
+ */
+public class JvmPlatformTest {
+
+    private static final int LINE_LENGTH = 64;
+
+    @Test
+    public void skipsLineWraps() {
+        final JvmPlatform platform = new JvmPlatform();
+        final byte[] expected = "MSU CSE public key".getBytes(StandardCharsets.US_ASCII);
+
+        assertArrayEquals(expected, platform.decodeBase64("TVNVIENTRSBwdWJsaWMga2V5"));
+        assertArrayEquals(expected, platform.decodeBase64("TVNVIENT\nRSBwdWJs\naWMga2V5\n"));
+        assertArrayEquals(expected, platform.decodeBase64("TVNVIENT\r\nRSBwdWJs\r\naWMga2V5"));
+    }
+
+    @Test
+    public void wrappedKeyDecodesLikeUnwrappedKey() throws Exception {
+        final String encoded = TestKeys.encoded(TestKeys.first());
+        final CachedPublicKey unwrapped = CachedPublicKey.parse(encoded, 0);
+
+        for (String lineBreak : new String[]{"\\n", "\\r\\n"}) {
+            final String body = "{\"publicKey\":\"" + wrap(encoded, lineBreak) + "\"}";
+            final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            final String parsed = PublicKeyResponseParser.parse(bytes, bytes.length);
+
+            final CachedPublicKey wrapped = CachedPublicKey.parse(parsed, 0);
+            assertEquals(unwrapped.getFingerprint(), wrapped.getFingerprint());
+            assertEquals(unwrapped.getPublicKey(), wrapped.getPublicKey());
+        }
+    }
+
+    /**
+     * @param lineBreak JSON escaped line break inserted every {@link #LINE_LENGTH} characters, as
+     *                  PEM style encoders do
+     */
+    private static String wrap(String encoded, String lineBreak) {
+        final StringBuilder wrapped = new StringBuilder();
+        for (int i = 0; i < encoded.length(); i += LINE_LENGTH) {
+            wrapped.append(encoded, i, Math.min(encoded.length(), i + LINE_LENGTH)).append(lineBreak);
+        }
+        return wrapped.toString();
+    }
+}
@@ -0,0 +1,446 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * Retries, backoff, hedging and the total timeout of {@link KeyFetchPolicy} with requests that block,
+ * fail or count calls.
+ */
+public class KeyFetchPolicyTest {
+
+    private static final long HEDGE_AFTER_MILLIS = 100;
+    private static final long TOTAL_TIMEOUT_MILLIS = 60 * 1000L;
+
+    // same shape as CSEExecutors#keyRequest(), no queue
+    private final ThreadPoolExecutor hedgeExecutor = new ThreadPoolExecutor(
+            0, 2, 1, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+
+    @After
+    public void tearDown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    @Test
+    public void retriesUpToMaxRetries() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final IOException failure = new IOException("down");
+        final KeyFetchPolicy policy = new KeyFetchPolicy(3, 1, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw failure;
+                }
+            });
+            fail();
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void stopsRetryingOnSuccess() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(5, 1, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final String result = policy.execute(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                if (calls.incrementAndGet() < 3) {
+                    throw new IOException("down");
+                }
+                return "key";
+            }
+        });
+
+        assertEquals("key", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void noRetriesWithZeroMaxRetries() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 1000, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final long started = System.nanoTime();
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw new IOException("down");
+                }
+            });
+            fail();
+        } catch (IOException expected) {
+            // no backoff after the only attempt
+        }
+        assertEquals(1, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 500);
+    }
+
+    @Test
+    public void rejectedResponseIsNotRetried() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(3, 1, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw new KeyResponseException("HTTP 404");
+                }
+            });
+            fail();
+        } catch (KeyResponseException expected) {
+            // the same response would come back
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void unexpectedFailureIsNotRetried() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(3, 1, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("bug");
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            // not a transport failure
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void totalTimeoutStopsWaitingForRequest() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final KeyFetchPolicy policy = new KeyFetchPolicy(3, 1, 0, 200, hedgeExecutor);
+
+        final long started = System.nanoTime();
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return "late";
+                }
+            });
+            fail();
+        } catch (SocketTimeoutException expected) {
+            // no retry once the deadline has passed
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue("took " + elapsed, elapsed >= 200 && elapsed < 1000);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void totalTimeoutBoundsRetries() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(100, 50, 0, 300, hedgeExecutor);
+
+        final long started = System.nanoTime();
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw new IOException("down");
+                }
+            });
+            fail();
+        } catch (IOException expected) {
+            // a backoff past the deadline ends the retries
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue("took " + elapsed, elapsed < 600);
+        assertTrue(calls.get() < 100);
+    }
+
+    @Test
+    public void backoffStaysWithinExponentialBounds() {
+        final KeyFetchPolicy policy = new KeyFetchPolicy(20, 10, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            // full jitter, capped at 2^10 times the base
+            final long cap = 10L << Math.min(attempt, 10);
+            long max = 0;
+            for (int i = 0; i < 2000; i++) {
+                final long backoff = policy.backoffMillis(attempt);
+                assertTrue(backoff >= 0 && backoff <= cap);
+                max = Math.max(max, backoff);
+            }
+            // jitter spreads over the whole range
+            assertTrue("attempt " + attempt + " max " + max, max > cap / 2);
+        }
+    }
+
+    @Test
+    public void retriesWaitForTheBackoff() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(2, 50, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final long started = System.nanoTime();
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw new IOException("down");
+                }
+            });
+            fail();
+        } catch (IOException expected) {
+            // retries exhausted
+        }
+        // at most 50 + 100 ms of backoff
+        assertEquals(3, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+    }
+
+    @Test
+    public void interruptStopsRetries() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(5, 10_000, 0, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+        final Thread caller = Thread.currentThread();
+        final Thread interrupter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sleep(100);
+                caller.interrupt();
+            }
+        });
+        interrupter.start();
+
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    throw new IOException("down");
+                }
+            });
+            fail();
+        } catch (InterruptedException expected) {
+            // the backoff sleep was interrupted
+        } finally {
+            interrupter.join();
+            Thread.interrupted();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void fastRequestSendsNoHedge() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final String result = policy.execute(new Callable<String>() {
+            @Override
+            public String call() {
+                calls.incrementAndGet();
+                return "key";
+            }
+        });
+
+        assertEquals("key", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void hedgeGoesOutAfterThresholdAndLoserIsCancelled() throws Exception {
+        final long started = System.nanoTime();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicLong hedgeSentAfterNanos = new AtomicLong();
+        final CountDownLatch loserInterrupted = new CountDownLatch(1);
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final String result = policy.execute(new Callable<String>() {
+            @Override
+            public String call() {
+                if (calls.incrementAndGet() == 1) {
+                    // the slow first request
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        loserInterrupted.countDown();
+                    }
+                    return "slow";
+                }
+                hedgeSentAfterNanos.set(System.nanoTime() - started);
+                return "hedge";
+            }
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(hedgeSentAfterNanos.get()) >= HEDGE_AFTER_MILLIS);
+        assertTrue(loserInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void firstRequestStillWinsIfFasterThanHedge() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch hedgeInterrupted = new CountDownLatch(1);
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final String result = policy.execute(new Callable<String>() {
+            @Override
+            public String call() {
+                final boolean first = calls.incrementAndGet() == 1;
+                try {
+                    Thread.sleep(first ? HEDGE_AFTER_MILLIS * 2 : 10_000);
+                } catch (InterruptedException e) {
+                    hedgeInterrupted.countDown();
+                }
+                return first ? "first" : "hedge";
+            }
+        });
+
+        assertEquals("first", result);
+        assertTrue(hedgeInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedFirstRequestWaitsForHedge() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        final String result = policy.execute(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                if (calls.incrementAndGet() == 1) {
+                    Thread.sleep(HEDGE_AFTER_MILLIS * 2);
+                    throw new IOException("first failed");
+                }
+                Thread.sleep(HEDGE_AFTER_MILLIS * 2);
+                return "hedge";
+            }
+        });
+
+        assertEquals("hedge", result);
+    }
+
+    @Test
+    public void bothFailingReportsLastFailure() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        try {
+            policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    final int call = calls.incrementAndGet();
+                    Thread.sleep(HEDGE_AFTER_MILLIS * 2);
+                    throw new IOException("request " + call);
+                }
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("request 2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void saturatedPoolRunsRequestOnCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        occupy(hedgeExecutor.getMaximumPoolSize(), release);
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+        final Thread caller = Thread.currentThread();
+
+        try {
+            final String result = policy.execute(new Callable<String>() {
+                @Override
+                public String call() {
+                    return Thread.currentThread() == caller ? "caller" : "pool";
+                }
+            });
+            assertEquals("caller", result);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void noHedgeWhenPoolHasNoThreadLeft() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        // leaves one thread, taken by the first request
+        occupy(hedgeExecutor.getMaximumPoolSize() - 1, release);
+        final AtomicInteger calls = new AtomicInteger();
+        final KeyFetchPolicy policy = new KeyFetchPolicy(0, 0, HEDGE_AFTER_MILLIS, TOTAL_TIMEOUT_MILLIS, hedgeExecutor);
+
+        try {
+            final String result = policy.execute(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    calls.incrementAndGet();
+                    Thread.sleep(HEDGE_AFTER_MILLIS * 3);
+                    return "first";
+                }
+            });
+            assertEquals("first", result);
+            assertEquals(1, calls.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void occupy(int threads, final CountDownLatch release) throws InterruptedException {
+        final CountDownLatch running = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            hedgeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        running.await();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * MSU CSE
+ * <p>
+ * Encrypts through {@link CSECore} with a generated key pair and decrypts the results with
+ * {@link ReferenceDecryptor}.
+ */
+public class ReferenceDecryptorTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    private static final String NONCE = "abcdef0123456789";
+
+    private final List<CSEExecutors> executors = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (CSEExecutors executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rsaRoundTrip() throws Exception {
+        final String encrypted = encryptCard(core(CSEConfig.EncryptionMode.RSA, TestKeys.first()), "Jane Doe");
+
+        assertEquals("p=4111111111111111&y=2030&m=12&c=123&cn=Jane Doe&n=" + NONCE,
+                ReferenceDecryptor.decryptRsa(TestKeys.first().getPrivate(), encrypted));
+    }
+
+    @Test
+    public void envelopeRoundTrip() throws Exception {
+        final String holder = longHolderName();
+        final String encrypted = encryptCard(core(CSEConfig.EncryptionMode.ENVELOPE, TestKeys.first()), holder);
+
+        assertEquals("p=4111111111111111&y=2030&m=12&c=123&cn=" + holder + "&n=" + NONCE,
+                ReferenceDecryptor.decryptEnvelope(TestKeys.first().getPrivate(), encrypted));
+    }
+
+    @Test
+    public void batchEnvelopesShareKeyWithUniqueIvs() throws Exception {
+        final List<EncryptBatchItem> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(EncryptBatchItem.cvv(String.valueOf(100 + i), NONCE));
+        }
+
+        final List<EncryptBatchResult> results = encryptBatch(core(CSEConfig.EncryptionMode.ENVELOPE, TestKeys.first()), items);
+
+        final Set<String> ivs = new HashSet<>();
+        byte[] wrappedKey = null;
+        for (int i = 0; i < results.size(); i++) {
+            final EncryptBatchResult result = results.get(i);
+            assertTrue(result.isSuccess());
+            assertEquals("c=" + (100 + i) + "&n=" + NONCE,
+                    ReferenceDecryptor.decryptEnvelope(TestKeys.first().getPrivate(), result.getEncrypted()));
+
+            final byte[] envelope = Base64.getDecoder().decode(result.getEncrypted());
+            final int ivOffset = 3 + ((envelope[1] & 0xFF) << 8 | envelope[2] & 0xFF);
+            final byte[] wrapped = Arrays.copyOfRange(envelope, 3, ivOffset);
+            if (wrappedKey == null) {
+                wrappedKey = wrapped;
+            }
+            assertArrayEquals(wrappedKey, wrapped);
+            assertTrue(ivs.add(Base64.getEncoder().encodeToString(Arrays.copyOfRange(envelope, ivOffset, ivOffset + Envelope.IV_BYTES))));
+        }
+        assertEquals(items.size(), ivs.size());
+    }
+
+    @Test
+    public void tamperedHeaderIsRejected() throws Exception {
+        final byte[] envelope = Base64.getDecoder().decode(encryptCard(core(CSEConfig.EncryptionMode.ENVELOPE, TestKeys.first()), "Jane Doe"));
+        // last byte of the wrapped key, part of the AAD
+        final int ivOffset = 3 + ((envelope[1] & 0xFF) << 8 | envelope[2] & 0xFF);
+        envelope[ivOffset - 1] ^= 1;
+
+        assertRejected(envelope);
+    }
+
+    @Test
+    public void tamperedIvIsRejected() throws Exception {
+        final byte[] envelope = Base64.getDecoder().decode(encryptCard(core(CSEConfig.EncryptionMode.ENVELOPE, TestKeys.first()), "Jane Doe"));
+        final int ivOffset = 3 + ((envelope[1] & 0xFF) << 8 | envelope[2] & 0xFF);
+        envelope[ivOffset + Envelope.IV_BYTES - 1] ^= 1;
+
+        assertRejected(envelope);
+    }
+
+    @Test
+    public void tamperedCiphertextIsRejected() throws Exception {
+        final byte[] envelope = Base64.getDecoder().decode(encryptCard(core(CSEConfig.EncryptionMode.ENVELOPE, TestKeys.first()), "Jane Doe"));
+        envelope[envelope.length - 1] ^= 1;
+
+        assertRejected(envelope);
+    }
+
+    @Test
+    public void rsaLimitFollowsKeySize() throws Exception {
+        assertEquals(190, RSAEncryption.maxPlainBytes(TestKeys.first().getPublic()));
+        final KeyPair large = TestKeys.generate(4096);
+        assertEquals(446, RSAEncryption.maxPlainBytes(large.getPublic()));
+        final String holder = longHolderName();
+
+        // over 190 bytes, fits a 4096 bit key
+        final String encrypted = encryptCard(core(CSEConfig.EncryptionMode.RSA, large), holder);
+        assertEquals("p=4111111111111111&y=2030&m=12&c=123&cn=" + holder + "&n=" + NONCE,
+                ReferenceDecryptor.decryptRsa(large.getPrivate(), encrypted));
+
+        final CardValidationResult result = core(CSEConfig.EncryptionMode.RSA, TestKeys.first())
+                .validateCard("4111111111111111", holder, 2030, 12, "123", NONCE);
+        assertEquals(Arrays.asList("PAYLOAD_TOO_LARGE"), result.getErrors());
+    }
+
+    @Test
+    public void payloadTooLargeForKeyFetchedLater() throws Exception {
+        // validation can't check the size before the key is known, encryption does
+        final CSECore core = core(CSEConfig.EncryptionMode.RSA, new StubApi(TestKeys.first(), false));
+
+        final EncryptException failure = encryptCardFailure(core, longHolderName());
+
+        assertEquals(EncryptExceptionCode.VALIDATION_FAILED, failure.getCode());
+        assertEquals(Arrays.asList("PAYLOAD_TOO_LARGE"), failure.getErrors());
+    }
+
+    /**
+     * @return a valid holder name of up to 128 characters that is over 190 bytes as UTF-8
+     */
+    private static String longHolderName() {
+        final StringBuilder holder = new StringBuilder();
+        while (holder.length() < 110) {
+            holder.append("\u0110or\u0111e \u017du\u017ei\u0107 ");
+        }
+        return holder.toString().trim();
+    }
+
+    private static void assertRejected(byte[] envelope) {
+        try {
+            ReferenceDecryptor.decryptEnvelope(TestKeys.first().getPrivate(), Base64.getEncoder().encodeToString(envelope));
+            fail();
+        } catch (GeneralSecurityException expected) {
+            // authentication failed
+        }
+    }
+
+    private CSECore core(CSEConfig.EncryptionMode mode, KeyPair keyPair) {
+        return core(mode, new StubApi(keyPair, true));
+    }
+
+    private CSECore core(CSEConfig.EncryptionMode mode, CSEApi api) {
+        final CSEConfig config = CSEConfig.builder()
+                .encryptionMode(mode)
+                .expiryClock(ExpiryClock.fixed(2026, 10))
+                .build();
+        final CSEExecutors executor = new CSEExecutors(config);
+        executors.add(executor);
+        return new CSECore(DIRECT, executor, api, config);
+    }
+
+    private static String encryptCard(CSECore core, String cardHolderName) throws Exception {
+        final AtomicReference<String> encrypted = new AtomicReference<>();
+        final AtomicReference<EncryptException> failure = new AtomicReference<>();
+        encryptCard(core, cardHolderName, encrypted, failure);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        assertNotNull(encrypted.get());
+        return encrypted.get();
+    }
+
+    private static EncryptException encryptCardFailure(CSECore core, String cardHolderName) throws Exception {
+        final AtomicReference<String> encrypted = new AtomicReference<>();
+        final AtomicReference<EncryptException> failure = new AtomicReference<>();
+        encryptCard(core, cardHolderName, encrypted, failure);
+        assertNotNull(failure.get());
+        return failure.get();
+    }
+
+    private static void encryptCard(CSECore core, String cardHolderName,
+                                    final AtomicReference<String> encrypted,
+                                    final AtomicReference<EncryptException> failure) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        core.encrypt("4111111111111111", cardHolderName, 2030, 12, "123", NONCE, new EncryptCallback() {
+            @Override
+            public void onSuccess(String result) {
+                encrypted.set(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(EncryptException encryptException) {
+                failure.set(encryptException);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static List<EncryptBatchResult> encryptBatch(CSECore core, List<EncryptBatchItem> items) throws InterruptedException {
+        final AtomicReference<List<EncryptBatchResult>> delivered = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        core.encryptBatch(items, new EncryptBatchCallback() {
+            @Override
+            public void onComplete(List<EncryptBatchResult> results) {
+                delivered.set(results);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return delivered.get();
+    }
+
+    private static final class StubApi implements CSEApi {
+
+        private final CachedPublicKey publicKey;
+        private volatile boolean cached;
+
+        StubApi(KeyPair keyPair, boolean cached) {
+            this.publicKey = CachedPublicKey.parse(TestKeys.encoded(keyPair), System.currentTimeMillis());
+            this.cached = cached;
+        }
+
+        @Override
+        public PublicKeyFetchResult fetchPublicKey() {
+            cached = true;
+            return PublicKeyFetchResult.success(publicKey);
+        }
+
+        @Override
+        public CachedPublicKey cachedPublicKey() {
+            return cached ? publicKey : null;
+        }
+
+        @Override
+        public void invalidate(CachedPublicKey publicKey) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.rnturbomodulemsucsev3;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+/**
+ * MSU CSE
+ * <p>
+ * RSA key pairs generated once per test run, key generation is the slowest part of most tests.
+ */
+final class TestKeys {
+
+    private static final KeyPair[] PAIRS = new KeyPair[2];
+
+    private TestKeys() {
+    }
+
+    /**
+     * @return the first key pair, the one an endpoint serves until it rotates
+     */
+    static KeyPair first() {
+        return pair(0);
+    }
+
+    /**
+     * @return a different key pair, as served after a rotation
+     */
+    static KeyPair rotated() {
+        return pair(1);
+    }
+
+    /**
+     * @return a new key pair of the given size, not cached
+     */
+    static KeyPair generate(int bits) {
+        try {
+            final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(bits);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * @return the public key of pair as the key endpoint returns it, Base64 encoded X.509
+     */
+    static String encoded(KeyPair pair) {
+        return Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
+    }
+
+    private static synchronized KeyPair pair(int index) {
+        if (PAIRS[index] == null) {
+            PAIRS[index] = generate(2048);
+        }
+        return PAIRS[index];
+    }
+}
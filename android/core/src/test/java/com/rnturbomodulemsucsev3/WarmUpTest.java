@@ -0,0 +1,214 @@
+package com.rnturbomodulemsucsev3;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MSU CSE
+ * <p>
+ * Warm-up of the encryption threads and how long its effect lasts, with a stub public key source
+ * and a short thread keep-alive.
+ */
+public class WarmUpTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    private static final long KEEP_ALIVE_MILLIS = 50;
+    private static final int THREADS = 2;
+
+    private final StubApi api = new StubApi(TestKeys.first());
+    private final CSEConfig config = CSEConfig.builder()
+            .encryptionThreads(THREADS)
+            .expiryClock(ExpiryClock.fixed(2026, 10))
+            .build();
+    private final CSEExecutors executors = new CSEExecutors(config, KEEP_ALIVE_MILLIS);
+    private final CSECore core = new CSECore(DIRECT, executors, api, config);
+
+    @After
+    public void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    public void encryptionAfterKeepAliveReusesWarmCiphers() throws Exception {
+        whenReady();
+        assertEquals(THREADS, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_MISS));
+
+        Thread.sleep(KEEP_ALIVE_MILLIS * 6);
+        for (int i = 0; i < 4; i++) {
+            encryptCvv();
+        }
+
+        assertEquals(THREADS, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_MISS));
+        assertEquals(4, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_HIT));
+    }
+
+    @Test
+    public void readyWarmUpIsNotRepeated() throws Exception {
+        whenReady();
+        whenReady();
+
+        assertEquals(1, api.fetches.get());
+        assertEquals(THREADS, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_MISS));
+    }
+
+    @Test
+    public void invalidatedKeyIsWarmedUpAgain() throws Exception {
+        whenReady();
+        api.invalidate(api.publicKey);
+
+        whenReady();
+
+        assertEquals(2, api.fetches.get());
+        assertNotNull(api.cachedPublicKey());
+    }
+
+    @Test
+    public void rotatedKeyIsWarmedUpAgain() throws Exception {
+        whenReady();
+        api.rotate(TestKeys.rotated());
+
+        whenReady();
+
+        // the probes initialized ciphers for the new key on every thread
+        assertEquals(2 * THREADS, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_MISS));
+        encryptCvv();
+        assertEquals(2 * THREADS, core.getMetrics().getCount(MetricsCounter.CIPHER_CACHE_MISS));
+    }
+
+    @Test
+    public void warmedRandomsOutliveKeepAlive() throws Exception {
+        whenReady();
+        final Map<Thread, SecureRandom> warmed = threadRandoms();
+        assertEquals(THREADS, warmed.size());
+
+        Thread.sleep(KEEP_ALIVE_MILLIS * 6);
+
+        final Map<Thread, SecureRandom> later = threadRandoms();
+        assertEquals(warmed.keySet(), later.keySet());
+        for (Map.Entry<Thread, SecureRandom> entry : later.entrySet()) {
+            assertSame(warmed.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * @return random source of each encryption thread, a task per thread held until all have started
+     */
+    private Map<Thread, SecureRandom> threadRandoms() throws InterruptedException {
+        final Map<Thread, SecureRandom> randoms = new ConcurrentHashMap<>();
+        final CountDownLatch started = new CountDownLatch(THREADS);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executors.encryption().execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        started.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    randoms.put(Thread.currentThread(), ThreadSecureRandom.get());
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return randoms;
+    }
+
+    private void whenReady() throws InterruptedException {
+        final AtomicReference<EncryptException> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        core.whenReady(new WarmUpCallback() {
+            @Override
+            public void onReady() {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(EncryptException encryptException) {
+                failure.set(encryptException);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(failure.get());
+    }
+
+    private void encryptCvv() throws InterruptedException {
+        final AtomicReference<String> encrypted = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        core.encrypt("123", "abcdef0123456789", new EncryptCallback() {
+            @Override
+            public void onSuccess(String result) {
+                encrypted.set(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(EncryptException encryptException) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNotNull(encrypted.get());
+    }
+
+    private static final class StubApi implements CSEApi {
+
+        final AtomicInteger fetches = new AtomicInteger();
+        volatile CachedPublicKey publicKey;
+        private volatile boolean cached;
+
+        StubApi(KeyPair keyPair) {
+            rotate(keyPair);
+        }
+
+        /**
+         * The endpoint now serves keyPair, as if the cached key was refreshed with it
+         */
+        void rotate(KeyPair keyPair) {
+            publicKey = CachedPublicKey.parse(TestKeys.encoded(keyPair), System.currentTimeMillis());
+        }
+
+        @Override
+        public PublicKeyFetchResult fetchPublicKey() {
+            fetches.incrementAndGet();
+            cached = true;
+            return PublicKeyFetchResult.success(publicKey);
+        }
+
+        @Override
+        public CachedPublicKey cachedPublicKey() {
+            return cached ? publicKey : null;
+        }
+
+        @Override
+        public void invalidate(CachedPublicKey publicKey) {
+            if (publicKey == this.publicKey) {
+                cached = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.rnturbomodulemsucsev3;
+
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * {@link Platform} backed by {@link Base64} and {@link Log}, available on every supported API level.
+ */
+final class AndroidPlatform extends Platform {
+
+    @Override
+    byte[] decodeBase64(String value) {
+        return Base64.decode(value, Base64.NO_WRAP);
+    }
+
+    @Override
+    void warn(String tag, String message, @Nullable Throwable throwable) {
+        Log.w(tag, message, throwable);
+    }
+}
@@ -1,65 +1,95 @@
 package com.rnturbomodulemsucsev3;
 
-import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
 
-import java.util.ArrayList;
-import java.util.Calendar;
+import androidx.annotation.Nullable;
+
 import java.util.List;
 
 /**
  * Created by jasmin.suljic@monri.com
  * MSU CSE
+ * <p>
+ * Android entry point, delegates to {@link CSECore} and delivers callbacks on the main thread.
  */
 public final class CSE {
 
-    private final List<String> errors;
-    private AsyncTask<Void, Void, EncryptTaskResult> task;
-    private final Handler handler;
-    private final CSEApi cseApi;
+    static {
+        Platform.install(new AndroidPlatform());
+    }
+
+    private final CSECore core;
 
     public CSE(boolean developmentMode) {
-        this(new Handler(Looper.getMainLooper()), developmentMode);
+        this(developmentMode, CSEConfig.defaults());
     }
 
-    CSE(Handler handler, boolean developmentMode) {
-        this.handler = handler;
-        errors = new ArrayList<>();
-        this.cseApi = new CSEApiImpl(developmentMode);
+    public CSE(boolean developmentMode, CSEConfig config) {
+        this(new Handler(Looper.getMainLooper()), developmentMode, config);
     }
 
+    CSE(Handler handler, boolean developmentMode, CSEConfig config) {
+        this.core = new CSECore(developmentMode, config, handler::post);
+    }
+
+    /**
+     * @param cseApi public key source used instead of {@link CSEApiImpl}, e.g. a stub in tests
+     */
+    CSE(Handler handler, CSEExecutors executors, CSEApi cseApi, CSEConfig config) {
+        this.core = new CSECore(handler::post, executors, cseApi, config);
+    }
 
     public boolean isValidCVV(String cvv) {
-        return isValidCVV(cvv, null);
+        return core.isValidCVV(cvv);
     }
 
     public List<String> getErrors() {
-        return errors;
+        return core.getErrors();
     }
 
     public boolean hasErrors() {
-        return !errors.isEmpty();
+        return core.hasErrors();
     }
 
     public boolean isValidCVV(String cvv, String pan) {
-        return CardUtils.isValidCVV(cvv, pan);
+        return core.isValidCVV(cvv, pan);
     }
 
     public boolean isValidCardHolderName(String name) {
-        return CardUtils.isValidCardHolderName(name);
+        return core.isValidCardHolderName(name);
     }
 
     public boolean isValidPan(String pan) {
-        return CardUtils.isValidPan(pan);
+        return core.isValidPan(pan);
     }
 
     public boolean isValidCardToken(String cardToken) {
-        return CardUtils.isValidCardToken(cardToken);
+        return core.isValidCardToken(cardToken);
     }
 
     public CardBrand detectBrand(String pan) {
-        return CardUtils.detectBrand(pan);
+        return core.detectBrand(pan);
+    }
+
+    /**
+     * @see CSECore#lookupBin
+     */
+    @Nullable
+    public BinInfo lookupBin(String pan) {
+        return core.lookupBin(pan);
+    }
+
+    /**
+     * @see CSECore#validateCard
+     */
+    public CardValidationResult validateCard(String pan,
+                                             String cardHolderName,
+                                             Integer expiryYear,
+                                             Integer expiryMonth,
+                                             String cvv,
+                                             String nonce) {
+        return core.validateCard(pan, cardHolderName, expiryYear, expiryMonth, cvv, nonce);
     }
 
     public void encrypt(String pan,
@@ -70,48 +100,75 @@ public final class CSE {
                         String nonce,
                         EncryptCallback callback
     ) {
-
-        encrypt(new CardEncryptRequest(
-                pan, expiryYear, expiryMonth, cardHolderName, cvv, nonce
-        ), callback);
+        core.encrypt(pan, cardHolderName, expiryYear, expiryMonth, cvv, nonce, callback);
     }
 
     public void encrypt(String cvv,
                         String nonce,
                         EncryptCallback callback
     ) {
-        encrypt(new CvvEncryptRequest(cvv, nonce), callback);
+        core.encrypt(cvv, nonce, callback);
+    }
+
+    /**
+     * @see CSECore#warmUp
+     */
+    public void warmUp() {
+        core.warmUp();
+    }
+
+    /**
+     * @see CSECore#whenReady
+     */
+    public void whenReady(WarmUpCallback callback) {
+        core.whenReady(callback);
     }
 
-    private void encrypt(EncryptRequest request, final EncryptCallback callback) {
+    /**
+     * @see CSECore#encryptBatch
+     */
+    public void encryptBatch(List<EncryptBatchItem> items, final EncryptBatchCallback callback) {
+        core.encryptBatch(items, callback);
+    }
 
-        try {
-            this.errors.clear();
-            if (request.validate()) {
-                this.task = new EncryptTask(callback, request, cseApi).execute();
-            } else {
-                this.errors.addAll(request.errors());
-                callback.onError(EncryptException.create(EncryptExceptionCode.VALIDATION_FAILED));
-            }
-        } catch (final Exception e) {
-            handler.post(() -> callback.onError(EncryptException.create(e, EncryptExceptionCode.UNKNOWN_EXCEPTION)));
-        }
+    /**
+     * @see CSECore#getMetrics
+     */
+    public CSEMetricsSnapshot getMetrics() {
+        return core.getMetrics();
     }
 
-    public void onDestroy() {
-        if (task != null) {
-            task.cancel(true);
-            task = null;
-        }
+    /**
+     * Listener methods are invoked on the thread that recorded the measurement, not the main thread.
+     */
+    public void setMetricsListener(@Nullable CSEMetricsListener listener) {
+        core.setMetricsListener(listener);
     }
 
     /**
-     * @param month
-     * @param year
-     * @return
+     * @see CSECore#shutdown
      */
+    public void shutdown() {
+        core.shutdown();
+    }
+
+    /**
+     * @see CSECore#cancelAll
+     */
+    public void cancelAll() {
+        core.cancelAll();
+    }
+
+    public int getInFlightCount() {
+        return core.getInFlightCount();
+    }
+
+    public void onDestroy() {
+        core.onDestroy();
+    }
+
     public boolean isValidExpiry(Integer month, Integer year) {
-        return CardUtils.isValidExpiry(Calendar.getInstance(), month, year);
+        return core.isValidExpiry(month, year);
     }
 
 }
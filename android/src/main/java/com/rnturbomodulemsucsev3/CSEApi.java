@@ -1,9 +0,0 @@
-package com.rnturbomodulemsucsev3;
-
-/**
- * Created by jasmin.suljic@monri.com
- * MSU CSE
- */
-interface CSEApi {
-    PublicKeyFetchResult fetchPublicKey();
-}
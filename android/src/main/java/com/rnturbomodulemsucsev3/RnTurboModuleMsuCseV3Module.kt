@@ -1,9 +1,18 @@
 package com.rnturbomodulemsucsev3
 
+import android.util.Log
+import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactMethod
+import com.facebook.react.bridge.ReadableArray
+import com.facebook.react.bridge.ReadableMap
+import com.facebook.react.bridge.WritableMap
 import com.facebook.react.module.annotations.ReactModule
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
 
 @ReactModule(name = RnTurboModuleMsuCseV3Module.NAME)
 class RnTurboModuleMsuCseV3Module(reactContext: ReactApplicationContext) :
@@ -13,15 +22,113 @@ class RnTurboModuleMsuCseV3Module(reactContext: ReactApplicationContext) :
     const val NAME = "RnTurboModuleMsuCseV3"
   }
 
+  // replaced by initialize() on the native modules thread while the sync methods read it on the JS
+  // thread, every method reads it once
+  @Volatile
   private var cse: CSE? = null
+  private val panInputs = ConcurrentHashMap<Int, PanInputState>()
+  private val nextPanInputId = AtomicInteger()
 
   override fun getName(): String {
     return NAME
   }
 
   @ReactMethod
-  override fun initialize(developmentMode: Boolean) {
-    cse = CSE(developmentMode)
+  override fun initialize(developmentMode: Boolean, options: ReadableMap?) {
+    // the old instance keeps working until its replacement exists
+    val replacement = CSE(developmentMode, configFrom(options))
+    val previous = cse
+    cse = replacement
+    previous?.shutdown()
+  }
+
+  override fun invalidate() {
+    val previous = cse
+    cse = null
+    previous?.onDestroy()
+    panInputs.clear()
+    super.invalidate()
+  }
+
+  // an invalid option is ignored with a warning and its default applies, throwing here would crash
+  // the native modules thread and leave the app without a usable instance
+  private fun configFrom(options: ReadableMap?): CSEConfig {
+    val builder = CSEConfig.builder()
+    if (options == null) {
+      return builder.build()
+    }
+
+    option(options, "encryptionThreads") { builder.encryptionThreads(options.getInt(it)) }
+    option(options, "encryptionQueueSize") { builder.encryptionQueueSize(options.getInt(it)) }
+    option(options, "keyFetchThreads") { builder.keyFetchThreads(options.getInt(it)) }
+    option(options, "warmUp") { builder.warmUp(options.getBoolean(it)) }
+    option(options, "persistPublicKey") {
+      if (options.getBoolean(it)) {
+        builder.publicKeyStore(SharedPreferencesPublicKeyStore(reactApplicationContext))
+      }
+    }
+    option(options, "publicKeyRefreshAfterMillis") {
+      builder.publicKeyRefreshAfterMillis(options.getDouble(it).toLong())
+    }
+    option(options, "publicKeyTtlMillis") { builder.publicKeyTtlMillis(options.getDouble(it).toLong()) }
+    if (options.hasKey("keyFetchConnectTimeoutMillis") || options.hasKey("keyFetchReadTimeoutMillis")) {
+      ignoreInvalid("keyFetchConnectTimeoutMillis, keyFetchReadTimeoutMillis") {
+        builder.keyFetchTimeouts(
+          optInt(options, "keyFetchConnectTimeoutMillis") ?: CSEConfig.DEFAULT_KEY_FETCH_CONNECT_TIMEOUT_MILLIS,
+          optInt(options, "keyFetchReadTimeoutMillis") ?: CSEConfig.DEFAULT_KEY_FETCH_READ_TIMEOUT_MILLIS
+        )
+      }
+    }
+    if (options.hasKey("keyFetchMaxRetries") || options.hasKey("keyFetchRetryBackoffMillis")) {
+      ignoreInvalid("keyFetchMaxRetries, keyFetchRetryBackoffMillis") {
+        builder.keyFetchRetries(
+          optInt(options, "keyFetchMaxRetries") ?: CSEConfig.DEFAULT_KEY_FETCH_MAX_RETRIES,
+          optInt(options, "keyFetchRetryBackoffMillis")?.toLong() ?: CSEConfig.DEFAULT_KEY_FETCH_RETRY_BACKOFF_MILLIS
+        )
+      }
+    }
+    option(options, "keyFetchHedgeAfterMillis") {
+      builder.keyFetchHedgeAfterMillis(options.getDouble(it).toLong())
+    }
+    option(options, "keyFetchTotalTimeoutMillis") {
+      builder.keyFetchTotalTimeoutMillis(options.getDouble(it).toLong())
+    }
+    option(options, "publicKeyEndpoint") { builder.publicKeyEndpoint(optString(options, it)) }
+    option(options, "rejectionPolicy") {
+      builder.rejectionPolicy(
+        when (val policy = options.getString(it)) {
+          "abort" -> CSEConfig.RejectionPolicy.ABORT
+          "callerRuns" -> CSEConfig.RejectionPolicy.CALLER_RUNS
+          "discardOldest" -> CSEConfig.RejectionPolicy.DISCARD_OLDEST
+          else -> throw IllegalArgumentException("Unknown rejectionPolicy: $policy")
+        }
+      )
+    }
+    option(options, "encryptionMode") {
+      builder.encryptionMode(
+        when (val mode = options.getString(it)) {
+          "rsa" -> CSEConfig.EncryptionMode.RSA
+          "envelope" -> CSEConfig.EncryptionMode.ENVELOPE
+          else -> throw IllegalArgumentException("Unknown encryptionMode: $mode")
+        }
+      )
+    }
+    return builder.build()
+  }
+
+  private inline fun option(options: ReadableMap, key: String, apply: (String) -> Unit) {
+    if (options.hasKey(key) && !options.isNull(key)) {
+      ignoreInvalid(key) { apply(key) }
+    }
+  }
+
+  private inline fun ignoreInvalid(option: String, apply: () -> Unit) {
+    try {
+      apply()
+    } catch (e: RuntimeException) {
+      // IllegalArgumentException from the builder, UnexpectedNativeTypeException for a wrong type
+      Log.w(NAME, "Ignoring initialize() option $option: ${e.message}")
+    }
   }
 
   @ReactMethod
@@ -34,12 +141,13 @@ class RnTurboModuleMsuCseV3Module(reactContext: ReactApplicationContext) :
     nonce: String,
     promise: Promise
   ) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
 
-    cse!!.encrypt(
+    cse.encrypt(
       pan,
       cardHolderName,
       expiryYear.toInt(),
@@ -52,68 +160,142 @@ class RnTurboModuleMsuCseV3Module(reactContext: ReactApplicationContext) :
         }
 
         override fun onError(exception: EncryptException) {
-          promise.reject(
-            exception.code.toString(),
-            exception.message,
-            exception
-          )
+          rejectEncryption(promise, exception)
         }
       }
     )
   }
 
+  // validation errors of this request go to error.userInfo.errors, getErrors() may already
+  // reflect a later encrypt() call
+  private fun rejectEncryption(promise: Promise, exception: EncryptException) {
+    val userInfo = Arguments.createMap()
+    userInfo.putArray("errors", Arguments.fromList(exception.errors))
+    promise.reject(exception.code.toString(), exception.message, exception, userInfo)
+  }
+
   @ReactMethod
   override fun isValidPan(pan: String, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val isValid = cse!!.isValidPan(pan)
+    val isValid = cse.isValidPan(pan)
     promise.resolve(isValid)
   }
 
   @ReactMethod
   override fun isValidCVV(cvv: String, pan: String?, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val isValid = cse!!.isValidCVV(cvv, pan)
+    val isValid = cse.isValidCVV(cvv, pan)
     promise.resolve(isValid)
   }
 
   @ReactMethod
   override fun isValidExpiry(month: Double, year: Double, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val isValid = cse!!.isValidExpiry(month.toInt(), year.toInt())
+    val isValid = cse.isValidExpiry(month.toInt(), year.toInt())
     promise.resolve(isValid)
   }
 
   @ReactMethod
   override fun detectBrand(pan: String, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val brand = cse!!.detectBrand(pan)
+    val brand = cse.detectBrand(pan)
     promise.resolve(brand.toString())
   }
 
+  @ReactMethod
+  override fun loadBinDatabase(path: String, promise: Promise) {
+    try {
+      val database = BinDatabase.open(File(path))
+      BinDatabase.install(database)
+      promise.resolve(database.version.toDouble())
+    } catch (e: IOException) {
+      promise.reject("BIN_DATABASE_INVALID", e.message, e)
+    }
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun lookupBin(pan: String): WritableMap? {
+    val info = BinDatabase.installed()?.lookup(pan) ?: return null
+    val map = Arguments.createMap()
+    map.putString("brand", info.brand.toString())
+    map.putString("cardType", info.cardType.toString())
+    map.putString("country", info.country)
+    map.putString("issuer", info.issuer)
+    return map
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun createPanInput(): Double {
+    val id = nextPanInputId.incrementAndGet()
+    panInputs[id] = PanInputState()
+    return id.toDouble()
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun updatePanInput(id: Double, text: String): WritableMap {
+    val state = panInput(id)
+    state.update(text)
+    return panInputResult(state)
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun editPanInput(id: Double, deleteCount: Double, digits: String): WritableMap {
+    val state = panInput(id)
+    state.delete(deleteCount.toInt())
+    state.append(digits)
+    return panInputResult(state)
+  }
+
+  @ReactMethod
+  override fun releasePanInput(id: Double) {
+    panInputs.remove(id.toInt())
+  }
+
+  private fun panInput(id: Double): PanInputState {
+    return panInputs[id.toInt()]
+      ?: throw IllegalArgumentException("Unknown pan input ${id.toInt()}, create it with createPanInput()")
+  }
+
+  private fun panInputResult(state: PanInputState): WritableMap {
+    val map = Arguments.createMap()
+    map.putInt("length", state.length)
+    map.putString("brand", state.brand.toString())
+    map.putBoolean("luhnValid", state.isLuhnValid)
+    map.putBoolean("lengthValid", state.isLengthValid)
+    map.putBoolean("valid", state.isValid)
+    map.putBoolean("canBecomeValid", state.canBecomeValid())
+    return map
+  }
+
   @ReactMethod
   override fun encryptCVV(cvv: String, nonce: String, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
 
-    cse!!.encrypt(
+    cse.encrypt(
       cvv,
       nonce,
       object : EncryptCallback {
@@ -122,57 +304,247 @@ class RnTurboModuleMsuCseV3Module(reactContext: ReactApplicationContext) :
         }
 
         override fun onError(exception: EncryptException) {
-          promise.reject(
-            exception.code.toString(),
-            exception.message,
-            exception
-          )
+          rejectEncryption(promise, exception)
+        }
+      }
+    )
+  }
+
+  @ReactMethod
+  override fun whenReady(promise: Promise) {
+    val cse = cse
+    if (cse == null) {
+      promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
+      return
+    }
+
+    cse.whenReady(object : WarmUpCallback {
+      override fun onReady() {
+        promise.resolve(true)
+      }
+
+      override fun onError(exception: EncryptException) {
+        promise.reject(
+          exception.code.toString(),
+          exception.message,
+          exception
+        )
+      }
+    })
+  }
+
+  @ReactMethod
+  override fun encryptBatch(items: ReadableArray, promise: Promise) {
+    val cse = cse
+    if (cse == null) {
+      promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
+      return
+    }
+
+    val batch = ArrayList<EncryptBatchItem>(items.size())
+    for (i in 0 until items.size()) {
+      val item = items.getMap(i)
+      if (item == null) {
+        promise.reject("INVALID_ARGUMENT", "encryptBatch item $i is not an object")
+        return
+      }
+      batch.add(batchItemFrom(item))
+    }
+
+    cse.encryptBatch(batch, object : EncryptBatchCallback {
+      override fun onComplete(results: List<EncryptBatchResult>) {
+        val array = Arguments.createArray()
+        for (result in results) {
+          val map = Arguments.createMap()
+          map.putInt("index", result.index)
+          if (result.isSuccess) {
+            map.putString("encrypted", result.encrypted)
+          } else {
+            val exception = result.encryptException
+            map.putString("errorCode", exception?.code.toString())
+            map.putString("errorMessage", exception?.message)
+            map.putArray("errors", Arguments.fromList(result.errors))
+          }
+          array.pushMap(map)
         }
+        promise.resolve(array)
       }
+    })
+  }
+
+  private fun batchItemFrom(item: ReadableMap): EncryptBatchItem {
+    val cvv = optString(item, "cvv")
+    val nonce = optString(item, "nonce")
+    if (!item.hasKey("pan")) {
+      return EncryptBatchItem.cvv(cvv, nonce)
+    }
+
+    return EncryptBatchItem.card(
+      optString(item, "pan"),
+      optString(item, "cardHolderName"),
+      optInt(item, "expiryYear"),
+      optInt(item, "expiryMonth"),
+      cvv,
+      nonce
     )
   }
 
+  private fun optString(map: ReadableMap, key: String): String? {
+    return if (map.hasKey(key) && !map.isNull(key)) map.getString(key) else null
+  }
+
+  private fun optInt(map: ReadableMap, key: String): Int? {
+    return if (map.hasKey(key) && !map.isNull(key)) map.getDouble(key).toInt() else null
+  }
+
   @ReactMethod
   override fun isValidCardHolderName(name: String, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val isValid = cse!!.isValidCardHolderName(name)
+    val isValid = cse.isValidCardHolderName(name)
     promise.resolve(isValid)
   }
 
   @ReactMethod
   override fun isValidCardToken(token: String, promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val isValid = cse!!.isValidCardToken(token)
+    val isValid = cse.isValidCardToken(token)
     promise.resolve(isValid)
   }
 
   @ReactMethod
   override fun getErrors(promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val errors = cse!!.errors
+    val errors = cse.errors
     promise.resolve(errors)
   }
 
   @ReactMethod
   override fun hasErrors(promise: Promise) {
+    val cse = cse
     if (cse == null) {
       promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
       return
     }
     
-    val hasErrors = cse!!.hasErrors()
+    val hasErrors = cse.hasErrors()
     promise.resolve(hasErrors)
   }
+
+  @ReactMethod
+  override fun getMetrics(promise: Promise) {
+    val cse = cse
+    if (cse == null) {
+      promise.reject("NOT_INITIALIZED", "CSE Module not initialized. Call initialize() first.")
+      return
+    }
+
+    val metrics = cse.metrics
+    val phases = Arguments.createMap()
+    for (phase in MetricsPhase.values()) {
+      val map = Arguments.createMap()
+      map.putDouble("count", metrics.getCount(phase).toDouble())
+      map.putDouble("mean", millis(metrics.getMeanNanos(phase)))
+      map.putDouble("p50", millis(metrics.getPercentileNanos(phase, 50.0)))
+      map.putDouble("p90", millis(metrics.getPercentileNanos(phase, 90.0)))
+      map.putDouble("p99", millis(metrics.getPercentileNanos(phase, 99.0)))
+      map.putDouble("max", millis(metrics.getMaxNanos(phase)))
+      phases.putMap(phase.key, map)
+    }
+    val counters = Arguments.createMap()
+    for (counter in MetricsCounter.values()) {
+      counters.putDouble(counter.key, metrics.getCount(counter).toDouble())
+    }
+    val failures = Arguments.createMap()
+    for (code in EncryptExceptionCode.values()) {
+      failures.putDouble(code.toString(), metrics.getFailures(code).toDouble())
+    }
+
+    val result = Arguments.createMap()
+    result.putMap("phases", phases)
+    result.putMap("counters", counters)
+    result.putMap("failures", failures)
+    promise.resolve(result)
+  }
+
+  private fun millis(nanos: Long): Double {
+    return nanos / 1_000_000.0
+  }
+
+  // Synchronous validators run the pure card rules directly, they don't need initialize()
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun isValidPanSync(pan: String): Boolean {
+    return CardUtils.isValidPan(pan)
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun isValidCVVSync(cvv: String, pan: String?): Boolean {
+    return CardUtils.isValidCVV(cvv, pan)
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun isValidExpirySync(month: Double, year: Double): Boolean {
+    // the configured expiry clock once initialized
+    val cse = cse
+    return cse?.isValidExpiry(month.toInt(), year.toInt())
+      ?: CardUtils.isValidExpiry(ExpiryClock.system().currentYearMonth(), month.toInt(), year.toInt())
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun detectBrandSync(pan: String): String {
+    // a blank pan is UNKNOWN here instead of the exception detectBrand throws
+    return PanAnalysis.of(pan).brand.toString()
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun isValidCardHolderNameSync(name: String): Boolean {
+    return CardUtils.isValidCardHolderName(name)
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun isValidCardTokenSync(token: String): Boolean {
+    return CardUtils.isValidCardToken(token)
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  override fun validateCard(
+    pan: String,
+    cardHolderName: String,
+    expiryYear: Double,
+    expiryMonth: Double,
+    cvv: String,
+    nonce: String
+  ): WritableMap {
+    // before initialize() there is no configured clock or public key, the payload size is then
+    // only checked when encrypting
+    val cse = cse
+    val result = cse?.validateCard(pan, cardHolderName, expiryYear.toInt(), expiryMonth.toInt(), cvv, nonce)
+      ?: CardEncryptRequest(pan, expiryYear.toInt(), expiryMonth.toInt(), cardHolderName, cvv, nonce)
+        .validateCard(ExpiryClock.system().currentYearMonth(), Int.MAX_VALUE)
+    val map = Arguments.createMap()
+    map.putBoolean("valid", result.isValid)
+    map.putString("brand", result.brand.toString())
+    map.putBoolean("pan", result.isPanValid)
+    map.putBoolean("expiry", result.isExpiryValid)
+    map.putBoolean("cardHolderName", result.isCardHolderNameValid)
+    map.putBoolean("cvv", result.isCvvValid)
+    map.putBoolean("nonce", result.isNonceValid)
+    map.putArray("errors", Arguments.fromList(result.errors))
+    return map
+  }
 }
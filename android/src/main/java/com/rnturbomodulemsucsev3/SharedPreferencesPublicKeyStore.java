@@ -0,0 +1,54 @@
+package com.rnturbomodulemsucsev3;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+/**
+ * MSU CSE
+ * <p>
+ * Android {@link PublicKeyStore} backed by the app's shared preferences.
+ */
+public final class SharedPreferencesPublicKeyStore implements PublicKeyStore {
+
+    private static final String PREFERENCES_NAME = "com.rnturbomodulemsucsev3.public_keys";
+    private static final String KEY = ".key";
+    private static final String FETCHED_AT = ".fetchedAt";
+    private static final String FINGERPRINT = ".fingerprint";
+
+    private final SharedPreferences preferences;
+
+    public SharedPreferencesPublicKeyStore(Context context) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Nullable
+    @Override
+    public StoredPublicKey load(String endpoint) {
+        final String encoded = preferences.getString(endpoint + KEY, null);
+        final String fingerprint = preferences.getString(endpoint + FINGERPRINT, null);
+        if (encoded == null || fingerprint == null) {
+            return null;
+        }
+        return new StoredPublicKey(encoded, preferences.getLong(endpoint + FETCHED_AT, 0), fingerprint);
+    }
+
+    @Override
+    public void save(String endpoint, StoredPublicKey publicKey) {
+        preferences.edit()
+                .putString(endpoint + KEY, publicKey.getEncoded())
+                .putLong(endpoint + FETCHED_AT, publicKey.getFetchedAtMillis())
+                .putString(endpoint + FINGERPRINT, publicKey.getFingerprint())
+                .apply();
+    }
+
+    @Override
+    public void remove(String endpoint) {
+        preferences.edit()
+                .remove(endpoint + KEY)
+                .remove(endpoint + FETCHED_AT)
+                .remove(endpoint + FINGERPRINT)
+                .apply();
+    }
+}
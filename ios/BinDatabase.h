@@ -0,0 +1,40 @@
+#import <Foundation/Foundation.h>
+#import "CardBrand.h"
+
+NS_ASSUME_NONNULL_BEGIN
+
+// BIN ranges with issuer details in the file format BinDatabase.java writes.
+// The file is memory-mapped, a lookup is a binary search over its ranges.
+// The installed database takes precedence over the built-in brand rules.
+@interface BinDatabase : NSObject
+
+@property (nonatomic, readonly) int32_t version;
+@property (nonatomic, readonly) NSUInteger count;
+
++ (nullable instancetype)databaseWithPath:(NSString *)path error:(NSError **)error;
+
+// Swaps the database every brand detection uses, nil restores the built-in rules
++ (void)install:(nullable BinDatabase *)database;
++ (nullable BinDatabase *)installed;
+
+// Digits of a BIN, the range of a shorter number can still change as digits
+// are added
++ (NSUInteger)binDigits;
+
+// Brands of the ranges a card number starting with digits, fewer than
+// binDigits, can fall into. covered is YES if they leave no BIN to the
+// built-in rules. nil if more ranges follow digits than a keystroke should
+// look at, any brand may then follow
+- (nullable NSSet<NSNumber *> *)brandsForPrefix:(NSString *)digits covered:(BOOL *)covered;
+
+// CardBrandUnknown without an installed database, below six digits or
+// outside all ranges
++ (CardBrandType)brandForPan:(NSString *)pan;
+
+// brand, cardType, country and issuer in the shape of BinInfo in index.tsx,
+// nil below six digits or outside all ranges
+- (nullable NSDictionary *)lookup:(NSString *)pan;
+
+@end
+
+NS_ASSUME_NONNULL_END
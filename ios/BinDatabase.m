@@ -0,0 +1,222 @@
+#import "BinDatabase.h"
+#import "CardUtils.h"
+
+static const uint32_t kMagic = 0x4D535542;
+static const uint16_t kFormatVersion = 1;
+static const NSUInteger kHeaderBytes = 16;
+static const NSUInteger kRangeBytes = 16;
+static const NSUInteger kBinDigits = 8;
+static const NSUInteger kMinDigits = 6;
+static const int32_t kNoIssuer = -1;
+static const NSUInteger kMaxScannedRanges = 64;
+
+// Brand codes of the file format, index = code, see BRAND_CODES in BinDatabase.java
+static const CardBrandType kBrandCodes[] = {
+    CardBrandUnknown, CardBrandVisa, CardBrandMastercard, CardBrandAmericanExpress, CardBrandDinersClub,
+    CardBrandDiscover, CardBrandJcb, CardBrandTroy, CardBrandDinacard, CardBrandUnionPay, CardBrandMaestro
+};
+static NSString *const kCardTypes[] = {@"UNKNOWN", @"CREDIT", @"DEBIT", @"PREPAID"};
+
+static BinDatabase *installedDatabase;
+
+@implementation BinDatabase {
+    NSData *_data;
+    const uint8_t *_bytes;
+    NSUInteger _strings;
+}
+
+static uint32_t readUInt32(const uint8_t *bytes) {
+    return (uint32_t)bytes[0] << 24 | (uint32_t)bytes[1] << 16 | (uint32_t)bytes[2] << 8 | bytes[3];
+}
+
+static uint16_t readUInt16(const uint8_t *bytes) {
+    return (uint16_t)(bytes[0] << 8 | bytes[1]);
+}
+
+static NSError *invalid(NSString *reason) {
+    return [NSError errorWithDomain:@"BinDatabase" code:1 userInfo:@{NSLocalizedDescriptionKey: reason}];
+}
+
++ (nullable instancetype)databaseWithPath:(NSString *)path error:(NSError **)error {
+    NSData *data = [NSData dataWithContentsOfFile:path options:NSDataReadingMappedAlways error:error];
+    if (!data) {
+        return nil;
+    }
+    BinDatabase *database = [[BinDatabase alloc] init];
+    database->_data = data;
+    database->_bytes = data.bytes;
+    NSError *reason = [database check];
+    if (reason) {
+        if (error) {
+            *error = reason;
+        }
+        return nil;
+    }
+    return database;
+}
+
+// checked once here so that lookups can trust every range
+- (nullable NSError *)check {
+    NSUInteger length = _data.length;
+    if (length < kHeaderBytes || readUInt32(_bytes) != kMagic) {
+        return invalid(@"Not a BIN database");
+    }
+    if (readUInt16(_bytes + 4) != kFormatVersion || readUInt16(_bytes + 6) != kRangeBytes) {
+        return invalid([NSString stringWithFormat:@"Unsupported BIN database format %u", readUInt16(_bytes + 4)]);
+    }
+    _version = (int32_t)readUInt32(_bytes + 8);
+    int32_t count = (int32_t)readUInt32(_bytes + 12);
+    if (count < 0 || kHeaderBytes + (uint64_t)count * kRangeBytes > length) {
+        return invalid(@"BIN database is truncated");
+    }
+    _count = (NSUInteger)count;
+    _strings = kHeaderBytes + _count * kRangeBytes;
+
+    int64_t previousHigh = -1;
+    for (NSUInteger i = 0; i < _count; i++) {
+        const uint8_t *range = _bytes + kHeaderBytes + i * kRangeBytes;
+        int32_t low = (int32_t)readUInt32(range);
+        int32_t high = (int32_t)readUInt32(range + 4);
+        if (low <= previousHigh || high < low || high >= 100000000) {
+            return invalid([NSString stringWithFormat:@"BIN range %lu is out of order or overlaps the previous one", (unsigned long)i]);
+        }
+        if (range[8] >= sizeof(kBrandCodes) / sizeof(kBrandCodes[0]) || range[9] >= sizeof(kCardTypes) / sizeof(kCardTypes[0])) {
+            return invalid([NSString stringWithFormat:@"BIN range %lu has an unknown brand or card type", (unsigned long)i]);
+        }
+        int32_t issuer = (int32_t)readUInt32(range + 12);
+        if (issuer != kNoIssuer && (issuer < 0 || _strings + (uint64_t)issuer + 2 > length
+                                    || _strings + (uint64_t)issuer + 2 + readUInt16(_bytes + _strings + issuer) > length)) {
+            return invalid([NSString stringWithFormat:@"BIN range %lu refers to a missing issuer", (unsigned long)i]);
+        }
+        previousHigh = high;
+    }
+    return nil;
+}
+
++ (void)install:(nullable BinDatabase *)database {
+    @synchronized (self) {
+        installedDatabase = database;
+    }
+}
+
++ (nullable BinDatabase *)installed {
+    @synchronized (self) {
+        return installedDatabase;
+    }
+}
+
++ (NSUInteger)binDigits {
+    return kBinDigits;
+}
+
++ (CardBrandType)brandForPan:(NSString *)pan {
+    BinDatabase *database = [self installed];
+    if (!database) {
+        return CardBrandUnknown;
+    }
+    const uint8_t *range = [database find:[CardUtils digitsOnly:pan]];
+    return range ? kBrandCodes[range[8]] : CardBrandUnknown;
+}
+
+- (nullable NSDictionary *)lookup:(NSString *)pan {
+    NSString *digits = [CardUtils digitsOnly:pan];
+    const uint8_t *range = [self find:digits];
+    if (!range) {
+        return nil;
+    }
+    CardBrandType brand = kBrandCodes[range[8]];
+    if (brand == CardBrandUnknown) {
+        brand = [CardUtils possibleCardBrand:digits];
+    }
+    NSMutableDictionary *info = [NSMutableDictionary dictionary];
+    info[@"brand"] = [CardBrand stringValueForBrand:brand];
+    info[@"cardType"] = kCardTypes[range[9]];
+    if (range[10] != 0) {
+        info[@"country"] = [[NSString alloc] initWithBytes:range + 10 length:2 encoding:NSASCIIStringEncoding];
+    }
+    int32_t issuer = (int32_t)readUInt32(range + 12);
+    if (issuer != kNoIssuer) {
+        const uint8_t *string = _bytes + _strings + issuer;
+        info[@"issuer"] = [[NSString alloc] initWithBytes:string + 2 length:readUInt16(string) encoding:NSUTF8StringEncoding];
+    }
+    return info;
+}
+
+- (nullable NSSet<NSNumber *> *)brandsForPrefix:(NSString *)digits covered:(BOOL *)covered {
+    int32_t low = 0;
+    int32_t scale = 1;
+    for (NSUInteger i = 0; i < kBinDigits; i++) {
+        if (i < digits.length) {
+            low = low * 10 + ([digits characterAtIndex:i] - '0');
+        } else {
+            low *= 10;
+            scale *= 10;
+        }
+    }
+    int32_t high = low + scale - 1;
+    
+    // first range ending at or after low
+    NSUInteger first = 0;
+    NSUInteger last = _count;
+    while (first < last) {
+        NSUInteger middle = (first + last) / 2;
+        if ((int32_t)readUInt32(_bytes + kHeaderBytes + middle * kRangeBytes + 4) < low) {
+            first = middle + 1;
+        } else {
+            last = middle;
+        }
+    }
+    
+    NSMutableSet<NSNumber *> *brands = [NSMutableSet set];
+    // highest BIN from low on that every range so far gives a brand of its own
+    int32_t coveredTo = low - 1;
+    for (NSUInteger i = first; i < _count; i++) {
+        const uint8_t *range = _bytes + kHeaderBytes + i * kRangeBytes;
+        if ((int32_t)readUInt32(range) > high) {
+            break;
+        }
+        if (i - first >= kMaxScannedRanges) {
+            return nil;
+        }
+        CardBrandType brand = kBrandCodes[range[8]];
+        if (brand != CardBrandUnknown) {
+            [brands addObject:@(brand)];
+            if ((int32_t)readUInt32(range) <= coveredTo + 1) {
+                coveredTo = (int32_t)readUInt32(range + 4);
+            }
+        }
+    }
+    *covered = coveredTo >= high;
+    return brands;
+}
+
+// range holding the first eight digits, padded with 0, NULL if there is none
+- (nullable const uint8_t *)find:(NSString *)digits {
+    if (digits.length < kMinDigits) {
+        return NULL;
+    }
+    int32_t bin = 0;
+    for (NSUInteger i = 0; i < kBinDigits; i++) {
+        unichar c = i < digits.length ? [digits characterAtIndex:i] : '0';
+        if (c < '0' || c > '9') {
+            return NULL;
+        }
+        bin = bin * 10 + (c - '0');
+    }
+    NSInteger low = 0;
+    NSInteger high = (NSInteger)_count - 1;
+    while (low <= high) {
+        NSInteger middle = (low + high) / 2;
+        const uint8_t *range = _bytes + kHeaderBytes + middle * kRangeBytes;
+        if (bin < (int32_t)readUInt32(range)) {
+            high = middle - 1;
+        } else if (bin > (int32_t)readUInt32(range + 4)) {
+            low = middle + 1;
+        } else {
+            return range;
+        }
+    }
+    return NULL;
+}
+
+@end
@@ -5,6 +5,7 @@ NS_ASSUME_NONNULL_BEGIN
 
 typedef void (^EncryptSuccessBlock)(NSString *encrypted);
 typedef void (^EncryptFailureBlock)(NSString *error);
+typedef void (^EncryptBatchCompletionBlock)(NSArray<NSDictionary *> *results);
 
 @interface CSE : NSObject
 
@@ -12,6 +13,9 @@ typedef void (^EncryptFailureBlock)(NSString *error);
 @property (nonatomic, readonly) BOOL hasErrors;
 
 - (instancetype)initWithDevelopmentMode:(BOOL)developmentMode;
+// Honors warmUp, publicKeyEndpoint, keyFetchConnectTimeoutMillis and keyFetchReadTimeoutMillis
+// of InitializeOptions in index.tsx, the other options are Android only
+- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode options:(nullable NSDictionary *)options;
 
 - (BOOL)isValidCVV:(NSString *)cvv;
 - (BOOL)isValidCVV:(NSString *)cvv pan:(NSString *)pan;
@@ -21,6 +25,21 @@ typedef void (^EncryptFailureBlock)(NSString *error);
 - (CardBrandType)detectBrand:(NSString *)pan;
 - (BOOL)isValidExpiryWithMonth:(NSInteger)month year:(NSInteger)year;
 
+// Fetches the public key in the background unless it is cached, encryptions started meanwhile
+// wait for the same request. Completion runs on the main queue, with the error of a failed fetch.
+- (void)whenReady:(void (^)(NSError * _Nullable error))completion;
+
+// Timings, counters and failures recorded by this instance, see CSEMetrics in index.tsx
+- (NSDictionary *)metrics;
+
+// Checks every card field with the encryption rules, without changing errors
++ (NSDictionary *)validateCardWithPan:(NSString *)pan
+                       cardHolderName:(NSString *)cardHolderName
+                           expiryYear:(NSInteger)expiryYear
+                          expiryMonth:(NSInteger)expiryMonth
+                                  cvv:(NSString *)cvv
+                                nonce:(NSString *)nonce;
+
 - (void)encryptCVVOnlyWithCvv:(NSString *)cvv
                         nonce:(NSString *)nonce
                       success:(EncryptSuccessBlock)success
@@ -35,6 +54,12 @@ typedef void (^EncryptFailureBlock)(NSString *error);
                    success:(EncryptSuccessBlock)success
                    failure:(EncryptFailureBlock)failure;
 
+// Validates every item up front and encrypts the valid ones with a single public key fetch.
+// Items have the keys of EncryptBatchItem in index.tsx, results are in item order with the
+// shape of EncryptBatchResult, completion runs on the main queue. Doesn't change errors.
+- (void)encryptBatch:(NSArray<NSDictionary *> *)items
+          completion:(EncryptBatchCompletionBlock)completion;
+
 @end
 
 NS_ASSUME_NONNULL_END
\ No newline at end of file
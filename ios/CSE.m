@@ -1,4 +1,5 @@
 #import "CSE.h"
+#import "CSEMetrics.h"
 #import "CardUtils.h"
 #import "RSAEncryption.h"
 
@@ -37,7 +38,11 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
 @interface CSEApiImpl : NSObject <CSEApi>
 @property (nonatomic, assign) BOOL developmentMode;
 @property (nonatomic, strong, nullable) NSString *publicKey;
-- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode;
+@property (nonatomic, strong) CSEMetrics *metrics;
+@property (nonatomic, strong, nullable) NSString *endpointOverride;
+@property (nonatomic, strong) NSURLSession *session;
+@property (nonatomic, strong) NSMutableArray *pendingCallbacks;
+- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode metrics:(CSEMetrics *)metrics options:(nullable NSDictionary *)options;
 @end
 
 @interface CvvEncryptionRequest : NSObject <EncryptRequest>
@@ -61,18 +66,54 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
 @interface CSE ()
 @property (nonatomic, strong) NSMutableArray<NSString *> *_errors;
 @property (nonatomic, strong) id<CSEApi> cseApi;
+@property (nonatomic, strong) CSEMetrics *cseMetrics;
 @end
 
+static NSString * _Nullable CSEStringValue(id value) {
+    return [value isKindOfClass:[NSString class]] ? value : nil;
+}
+
+static NSInteger CSEIntegerValue(id value) {
+    return [value isKindOfClass:[NSNumber class]] ? [value integerValue] : 0;
+}
+
+static NSDictionary *CSEBatchFailure(NSUInteger index, NSString *errorCode, NSString *errorMessage, NSArray<NSString *> *errors) {
+    return @{@"index": @(index), @"errorCode": errorCode, @"errorMessage": errorMessage, @"errors": errors};
+}
+
 @implementation CSE
 
 - (instancetype)initWithDevelopmentMode:(BOOL)developmentMode {
+    return [self initWithDevelopmentMode:developmentMode options:nil];
+}
+
+- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode options:(nullable NSDictionary *)options {
     if (self = [super init]) {
         self._errors = [[NSMutableArray alloc] init];
-        self.cseApi = [[CSEApiImpl alloc] initWithDevelopmentMode:developmentMode];
+        self.cseMetrics = [[CSEMetrics alloc] init];
+        self.cseApi = [[CSEApiImpl alloc] initWithDevelopmentMode:developmentMode metrics:self.cseMetrics options:options];
+        
+        id warmUp = options[@"warmUp"];
+        if ([warmUp isKindOfClass:[NSNumber class]] && [warmUp boolValue]) {
+            [self whenReady:^(NSError * _Nullable error) {
+                // a failed warm-up is retried by the next encryption or whenReady()
+            }];
+        }
     }
     return self;
 }
 
+- (void)whenReady:(void (^)(NSError * _Nullable error))completion {
+    dispatch_async(dispatch_get_global_queue(DISPATCH_QUEUE_PRIORITY_BACKGROUND, 0), ^{
+        [self.cseApi fetchPublicKeyWithCallback:^(NSString * _Nullable publicKey, NSError * _Nullable error) {
+            NSError *failure = publicKey ? nil : (error ?: [NSError errorWithDomain:@"CSE" code:1 userInfo:@{NSLocalizedDescriptionKey: @"Public key fetch failed"}]);
+            dispatch_async(dispatch_get_main_queue(), ^{
+                completion(failure);
+            });
+        }];
+    });
+}
+
 - (NSArray<NSString *> *)errors {
     return [self._errors copy];
 }
@@ -109,6 +150,36 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
     return [CardUtils isValidExpiryWithMonth:month year:year];
 }
 
+- (NSDictionary *)metrics {
+    return [self.cseMetrics snapshot];
+}
+
++ (NSDictionary *)validateCardWithPan:(NSString *)pan
+                       cardHolderName:(NSString *)cardHolderName
+                           expiryYear:(NSInteger)expiryYear
+                          expiryMonth:(NSInteger)expiryMonth
+                                  cvv:(NSString *)cvv
+                                nonce:(NSString *)nonce {
+    CardEncryptRequest *request = [[CardEncryptRequest alloc] initWithPan:pan
+                                                           cardHolderName:cardHolderName
+                                                                     year:expiryYear
+                                                                    month:expiryMonth
+                                                                      cvv:cvv
+                                                                    nonce:nonce];
+    BOOL valid = [request validate];
+    NSArray<NSString *> *errors = [request errors];
+    return @{
+        @"valid": @(valid),
+        @"brand": [CardBrand stringValueForBrand:[CardUtils possibleCardBrand:request.pan]],
+        @"pan": @(![errors containsObject:@"PAN_INVALID"]),
+        @"expiry": @(![errors containsObject:@"EXPIRY_INVALID"]),
+        @"cardHolderName": @(![errors containsObject:@"CARD_HOLDER_NAME_INVALID"]),
+        @"cvv": @(![errors containsObject:@"CVV_INVALID"]),
+        @"nonce": @(![errors containsObject:@"NONCE_MISSING_OR_INVALID"]),
+        @"errors": errors
+    };
+}
+
 - (void)encryptCVVOnlyWithCvv:(NSString *)cvv nonce:(NSString *)nonce success:(EncryptSuccessBlock)success failure:(EncryptFailureBlock)failure {
     CvvEncryptionRequest *request = [[CvvEncryptionRequest alloc] initWithCvv:cvv nonce:nonce];
     [self encryptRequest:request success:success failure:failure];
@@ -119,37 +190,136 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
     [self encryptRequest:request success:success failure:failure];
 }
 
+- (void)encryptBatch:(NSArray<NSDictionary *> *)items completion:(EncryptBatchCompletionBlock)completion {
+    CSEMetrics *metrics = self.cseMetrics;
+    uint64_t started = [CSEMetrics now];
+    NSMutableArray *results = [NSMutableArray arrayWithCapacity:items.count];
+    NSMutableArray<NSNumber *> *valid = [NSMutableArray arrayWithCapacity:items.count];
+    NSMutableArray<id<EncryptRequest>> *requests = [NSMutableArray arrayWithCapacity:items.count];
+    
+    // every item is validated before the key fetch, invalid ones never wait for the network
+    for (NSUInteger i = 0; i < items.count; i++) {
+        NSDictionary *item = [items[i] isKindOfClass:[NSDictionary class]] ? items[i] : @{};
+        NSString *pan = CSEStringValue(item[@"pan"]);
+        NSString *cvv = CSEStringValue(item[@"cvv"]) ?: @"";
+        NSString *nonce = CSEStringValue(item[@"nonce"]) ?: @"";
+        id<EncryptRequest> request;
+        if (pan) {
+            request = [[CardEncryptRequest alloc] initWithPan:pan
+                                               cardHolderName:CSEStringValue(item[@"cardHolderName"]) ?: @""
+                                                         year:CSEIntegerValue(item[@"expiryYear"])
+                                                        month:CSEIntegerValue(item[@"expiryMonth"])
+                                                          cvv:cvv
+                                                        nonce:nonce];
+        } else {
+            request = [[CvvEncryptionRequest alloc] initWithCvv:cvv nonce:nonce];
+        }
+        [requests addObject:request];
+        
+        uint64_t validationStarted = [CSEMetrics now];
+        BOOL validRequest = [request validate];
+        [metrics recordPhase:@"validation" since:validationStarted];
+        if (validRequest) {
+            [results addObject:[NSNull null]];
+            [valid addObject:@(i)];
+        } else {
+            [metrics failure:@"VALIDATION_FAILED"];
+            [results addObject:CSEBatchFailure(i, @"VALIDATION_FAILED", @"Validation failed", [request errors])];
+        }
+    }
+    
+    void (^deliver)(void) = ^{
+        uint64_t dispatched = [CSEMetrics now];
+        dispatch_async(dispatch_get_main_queue(), ^{
+            [metrics recordPhase:@"callbackDispatch" since:dispatched];
+            [metrics recordPhase:@"batchTotal" since:started];
+            completion(results);
+        });
+    };
+    
+    if (valid.count == 0) {
+        deliver();
+        return;
+    }
+    
+    // from here on only the key fetch callback touches results, until they are delivered
+    dispatch_async(dispatch_get_global_queue(DISPATCH_QUEUE_PRIORITY_BACKGROUND, 0), ^{
+        [self.cseApi fetchPublicKeyWithCallback:^(NSString * _Nullable publicKey, NSError * _Nullable error) {
+            for (NSNumber *index in valid) {
+                NSUInteger i = index.unsignedIntegerValue;
+                if (!publicKey) {
+                    [metrics failure:@"REQUEST_FAILED"];
+                    results[i] = CSEBatchFailure(i, @"REQUEST_FAILED", error.localizedDescription ?: @"Public key fetch failed", @[]);
+                    continue;
+                }
+                
+                uint64_t encryptStarted = [CSEMetrics now];
+                NSString *encrypted = [RSAEncryption encryptWithPublicKey:publicKey plainText:[requests[i] plain]];
+                [metrics recordPhase:@"encryption" since:encryptStarted];
+                if (encrypted) {
+                    results[i] = @{@"index": @(i), @"encrypted": encrypted};
+                } else {
+                    [metrics failure:@"UNKNOWN_EXCEPTION"];
+                    results[i] = CSEBatchFailure(i, @"UNKNOWN_EXCEPTION", @"Encryption failed", @[]);
+                }
+            }
+            deliver();
+        }];
+    });
+}
+
 - (void)encryptRequest:(id<EncryptRequest>)request success:(EncryptSuccessBlock)success failure:(EncryptFailureBlock)failure {
+    CSEMetrics *metrics = self.cseMetrics;
+    uint64_t started = [CSEMetrics now];
     [self._errors removeAllObjects];
     
-    if (![request validate]) {
+    BOOL valid = [request validate];
+    [metrics recordPhase:@"validation" since:started];
+    if (!valid) {
         self._errors = [[request errors] mutableCopy];
+        [metrics failure:@"VALIDATION_FAILED"];
         dispatch_async(dispatch_get_main_queue(), ^{
             failure(@"Validation failed");
         });
         return;
     }
     
+    // times the hop to the main queue and the whole encryption before the callback runs
+    void (^deliver)(void (^)(void)) = ^(void (^callback)(void)) {
+        uint64_t dispatched = [CSEMetrics now];
+        dispatch_async(dispatch_get_main_queue(), ^{
+            [metrics recordPhase:@"callbackDispatch" since:dispatched];
+            [metrics recordPhase:@"total" since:started];
+            callback();
+        });
+    };
+    
     dispatch_async(dispatch_get_global_queue(DISPATCH_QUEUE_PRIORITY_BACKGROUND, 0), ^{
         [self.cseApi fetchPublicKeyWithCallback:^(NSString * _Nullable publicKey, NSError * _Nullable error) {
             if (error) {
-                dispatch_async(dispatch_get_main_queue(), ^{
+                [metrics failure:@"REQUEST_FAILED"];
+                deliver(^{
                     failure(error.localizedDescription);
                 });
             } else if (publicKey) {
+                // key parsing and cipher setup happen inside, iOS reports them as part of encryption
+                uint64_t encryptStarted = [CSEMetrics now];
                 NSString *plainText = [request plain];
                 NSString *encrypted = [RSAEncryption encryptWithPublicKey:publicKey plainText:plainText];
+                [metrics recordPhase:@"encryption" since:encryptStarted];
                 if (encrypted) {
-                    dispatch_async(dispatch_get_main_queue(), ^{
+                    deliver(^{
                         success(encrypted);
                     });
                 } else {
-                    dispatch_async(dispatch_get_main_queue(), ^{
+                    [metrics failure:@"UNKNOWN_EXCEPTION"];
+                    deliver(^{
                         failure(@"Encryption failed");
                     });
                 }
             } else {
-                dispatch_async(dispatch_get_main_queue(), ^{
+                [metrics failure:@"REQUEST_FAILED"];
+                deliver(^{
                     failure(@"Public key fetch failed");
                 });
             }
@@ -163,14 +333,66 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
 
 @implementation CSEApiImpl
 
-- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode {
+static const double kDefaultKeyFetchTimeoutMillis = 10000;
+
+// over plain http a network attacker could hand out their own public key, http only reaches a
+// local stand-in
+static BOOL CSEIsSecureEndpoint(NSString *endpoint) {
+    NSURLComponents *components = [NSURLComponents componentsWithString:endpoint];
+    NSString *scheme = components.scheme.lowercaseString;
+    NSString *host = components.host.lowercaseString;
+    if (host.length == 0) {
+        return NO;
+    }
+    if ([scheme isEqualToString:@"https"]) {
+        return YES;
+    }
+    return [scheme isEqualToString:@"http"] && ([host isEqualToString:@"localhost"] || [host isEqualToString:@"127.0.0.1"]);
+}
+
+- (instancetype)initWithDevelopmentMode:(BOOL)developmentMode metrics:(CSEMetrics *)metrics options:(nullable NSDictionary *)options {
     if (self = [super init]) {
         self.developmentMode = developmentMode;
+        self.metrics = metrics;
+        self.pendingCallbacks = [NSMutableArray array];
+        
+        id endpoint = options[@"publicKeyEndpoint"];
+        if ([endpoint isKindOfClass:[NSString class]] && [endpoint length] > 0) {
+            if (CSEIsSecureEndpoint(endpoint)) {
+                self.endpointOverride = endpoint;
+            } else {
+                NSLog(@"CSE: Ignoring publicKeyEndpoint %@, it must be an https URL, or http on localhost", endpoint);
+            }
+        }
+        
+        // NSURLSession has no connect timeout of its own: the read timeout bounds the time
+        // without any data, connect and read together bound the whole request
+        double connectMillis = [self millisOption:options[@"keyFetchConnectTimeoutMillis"]];
+        double readMillis = [self millisOption:options[@"keyFetchReadTimeoutMillis"]];
+        NSURLSessionConfiguration *configuration = [NSURLSessionConfiguration defaultSessionConfiguration];
+        configuration.timeoutIntervalForRequest = readMillis / 1000.0;
+        configuration.timeoutIntervalForResource = (connectMillis + readMillis) / 1000.0;
+        self.session = [NSURLSession sessionWithConfiguration:configuration];
     }
     return self;
 }
 
+- (void)dealloc {
+    // a session keeps its resources until it is invalidated
+    [_session finishTasksAndInvalidate];
+}
+
+- (double)millisOption:(id)value {
+    if ([value isKindOfClass:[NSNumber class]] && [value doubleValue] > 0) {
+        return [value doubleValue];
+    }
+    return kDefaultKeyFetchTimeoutMillis;
+}
+
 - (NSString *)endpoint {
+    if (self.endpointOverride) {
+        return self.endpointOverride;
+    }
     if (self.developmentMode) {
         return @"https://test.merchantsafeunipay.com/msu/cse/publickey";
     } else {
@@ -179,13 +401,50 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
 }
 
 - (void)fetchPublicKeyWithCallback:(void(^)(NSString * _Nullable publicKey, NSError * _Nullable error))callback {
-    if (self.publicKey) {
-        callback(self.publicKey, nil);
-        return;
+    NSString *publicKey;
+    BOOL startRequest = NO;
+    @synchronized (self) {
+        publicKey = self.publicKey;
+        if (!publicKey) {
+            // callers arriving while a request is in flight wait for it, e.g. encryptions during a warm-up
+            startRequest = self.pendingCallbacks.count == 0;
+            [self.pendingCallbacks addObject:[callback copy]];
+        }
     }
     
+    if (publicKey) {
+        [self.metrics count:@"keyCacheHit"];
+        callback(publicKey, nil);
+        return;
+    }
+    [self.metrics count:@"keyCacheMiss"];
+    if (startRequest) {
+        [self requestPublicKeyWithCallback:^(NSString * _Nullable fetched, NSError * _Nullable error) {
+            NSArray *callbacks;
+            @synchronized (self) {
+                if (fetched) {
+                    self.publicKey = fetched;
+                }
+                callbacks = [self.pendingCallbacks copy];
+                [self.pendingCallbacks removeAllObjects];
+            }
+            for (void (^pending)(NSString * _Nullable, NSError * _Nullable) in callbacks) {
+                pending(fetched, error);
+            }
+        }];
+    }
+}
+
+- (void)requestPublicKeyWithCallback:(void(^)(NSString * _Nullable publicKey, NSError * _Nullable error))callback {
+    uint64_t started = [CSEMetrics now];
     NSURL *url = [NSURL URLWithString:[self endpoint]];
-    NSURLSessionDataTask *task = [[NSURLSession sharedSession] dataTaskWithURL:url completionHandler:^(NSData * _Nullable data, NSURLResponse * _Nullable response, NSError * _Nullable error) {
+    if (!url) {
+        NSError *error = [NSError errorWithDomain:@"CSE" code:1 userInfo:@{NSLocalizedDescriptionKey: @"Invalid public key endpoint"}];
+        callback(nil, error);
+        return;
+    }
+    NSURLSessionDataTask *task = [self.session dataTaskWithURL:url completionHandler:^(NSData * _Nullable data, NSURLResponse * _Nullable response, NSError * _Nullable error) {
+        [self.metrics recordPhase:@"keyFetch" since:started];
         if (error) {
             callback(nil, error);
         } else if (data) {
@@ -195,8 +454,7 @@ typedef NS_ENUM(NSInteger, EncryptionErrorType) {
                 callback(nil, jsonError);
             } else {
                 NSString *publicKey = result[@"publicKey"];
-                if (publicKey) {
-                    self.publicKey = publicKey;
+                if ([publicKey isKindOfClass:[NSString class]]) {
                     callback(publicKey, nil);
                 } else {
                     NSError *error = [NSError errorWithDomain:@"CSE" code:1 userInfo:@{NSLocalizedDescriptionKey: @"Missing public key in response"}];
@@ -0,0 +1,20 @@
+#import <Foundation/Foundation.h>
+
+NS_ASSUME_NONNULL_BEGIN
+
+// Phase timings, counters and failures of one CSE instance, reported in the
+// shape of CSEMetrics in index.tsx. Percentiles cover the most recent samples
+// of each phase.
+@interface CSEMetrics : NSObject
+
++ (uint64_t)now;
+
+- (void)recordPhase:(NSString *)phase since:(uint64_t)startNanos;
+- (void)count:(NSString *)counter;
+- (void)failure:(NSString *)code;
+
+- (NSDictionary *)snapshot;
+
+@end
+
+NS_ASSUME_NONNULL_END
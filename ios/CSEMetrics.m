@@ -0,0 +1,102 @@
+#import "CSEMetrics.h"
+#import <time.h>
+
+static const NSUInteger kSampleCapacity = 1024;
+
+@interface CSEPhaseSamples : NSObject
+@property (nonatomic, assign) uint64_t count;
+@property (nonatomic, assign) uint64_t sum;
+@property (nonatomic, assign) uint64_t max;
+@property (nonatomic, strong) NSMutableArray<NSNumber *> *recent;
+@end
+
+@implementation CSEPhaseSamples
+@end
+
+@implementation CSEMetrics {
+    NSDictionary<NSString *, CSEPhaseSamples *> *_phases;
+    NSMutableDictionary<NSString *, NSNumber *> *_counters;
+    NSMutableDictionary<NSString *, NSNumber *> *_failures;
+}
+
++ (uint64_t)now {
+    return clock_gettime_nsec_np(CLOCK_UPTIME_RAW);
+}
+
+- (instancetype)init {
+    if (self = [super init]) {
+        NSMutableDictionary *phases = [NSMutableDictionary dictionary];
+        for (NSString *phase in @[@"validation", @"keyFetch", @"keyParse", @"cipherInit", @"encryption",
+                                  @"callbackDispatch", @"total", @"batchTotal"]) {
+            CSEPhaseSamples *samples = [[CSEPhaseSamples alloc] init];
+            samples.recent = [NSMutableArray arrayWithCapacity:kSampleCapacity];
+            phases[phase] = samples;
+        }
+        _phases = [phases copy];
+        _counters = [@{@"keyCacheHit": @0, @"keyCacheMiss": @0, @"keyRestored": @0,
+                       @"cipherCacheHit": @0, @"cipherCacheMiss": @0} mutableCopy];
+        _failures = [@{@"REQUEST_FAILED": @0, @"UNKNOWN_EXCEPTION": @0, @"VALIDATION_FAILED": @0,
+                       @"PUBLIC_KEY_DECODING_FAILED": @0, @"REQUEST_REJECTED": @0} mutableCopy];
+    }
+    return self;
+}
+
+- (void)recordPhase:(NSString *)phase since:(uint64_t)startNanos {
+    uint64_t nanos = [CSEMetrics now] - startNanos;
+    @synchronized (self) {
+        CSEPhaseSamples *samples = _phases[phase];
+        if (samples.recent.count == kSampleCapacity) {
+            samples.recent[samples.count % kSampleCapacity] = @(nanos);
+        } else {
+            [samples.recent addObject:@(nanos)];
+        }
+        samples.count += 1;
+        samples.sum += nanos;
+        samples.max = MAX(samples.max, nanos);
+    }
+}
+
+- (void)count:(NSString *)counter {
+    @synchronized (self) {
+        _counters[counter] = @(_counters[counter].unsignedLongLongValue + 1);
+    }
+}
+
+- (void)failure:(NSString *)code {
+    @synchronized (self) {
+        _failures[code] = @(_failures[code].unsignedLongLongValue + 1);
+    }
+}
+
+- (NSDictionary *)snapshot {
+    @synchronized (self) {
+        NSMutableDictionary *phases = [NSMutableDictionary dictionary];
+        [_phases enumerateKeysAndObjectsUsingBlock:^(NSString *phase, CSEPhaseSamples *samples, BOOL *stop) {
+            NSArray<NSNumber *> *sorted = [samples.recent sortedArrayUsingSelector:@selector(compare:)];
+            phases[phase] = @{
+                @"count": @(samples.count),
+                @"mean": @(samples.count == 0 ? 0 : (double)samples.sum / samples.count / 1e6),
+                @"p50": @([self percentile:50 of:sorted]),
+                @"p90": @([self percentile:90 of:sorted]),
+                @"p99": @([self percentile:99 of:sorted]),
+                @"max": @(samples.max / 1e6)
+            };
+        }];
+        return @{
+            @"phases": phases,
+            @"counters": [_counters copy],
+            @"failures": [_failures copy]
+        };
+    }
+}
+
+// Milliseconds
+- (double)percentile:(double)percentile of:(NSArray<NSNumber *> *)sorted {
+    if (sorted.count == 0) {
+        return 0;
+    }
+    NSUInteger rank = MAX(1, (NSUInteger)ceil(percentile / 100 * sorted.count));
+    return sorted[rank - 1].unsignedLongLongValue / 1e6;
+}
+
+@end
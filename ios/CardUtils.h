@@ -9,6 +9,12 @@ NS_ASSUME_NONNULL_BEGIN
 + (BOOL)isValidCVV:(NSString *)cvv pan:(NSString *)pan;
 + (BOOL)isValidCardHolderName:(NSString *)name;
 + (BOOL)isValidPan:(NSString *)pan;
+// Card number lengths allowed per brand, none for CardBrandUnknown
++ (BOOL)isValidLength:(NSUInteger)length brand:(CardBrandType)brand;
++ (NSUInteger)maxLengthForBrand:(CardBrandType)brand;
+// Longest card number any brand a number starting with digits can still get allows
++ (NSUInteger)maxReachableLength:(NSString *)digits;
++ (BOOL)luhnCheck:(NSString *)cardNumber;
 + (BOOL)isValidCardToken:(NSString *)token;
 + (CardBrandType)possibleCardBrand:(NSString *)pan;
 + (BOOL)isValidExpiryWithMonth:(NSInteger)month year:(NSInteger)year;
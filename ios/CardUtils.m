@@ -1,17 +1,43 @@
 #import "CardUtils.h"
+#import "BinDatabase.h"
 
 @implementation CardUtils
 
 static const NSInteger LENGTH_COMMON_CARD = 16;
 static const NSInteger LENGTH_AMERICAN_EXPRESS = 15;
 static const NSInteger LENGTH_DINERS_CLUB = 14;
+static const NSInteger MAX_LENGTH_UNION_PAY = 19;
+static const NSInteger MIN_LENGTH_UNION_PAY = 16;
 static NSArray<NSNumber *> *MAESTRO_CARD_LENGTH;
 static NSArray<NSNumber *> *VISA_CARD_LENGTH;
+// brand and its prefixes, the first matching rule wins
+static NSArray<NSArray *> *BRAND_RULES;
 
 + (void)initialize {
     if (self == [CardUtils class]) {
         MAESTRO_CARD_LENGTH = @[@12, @13, @14, @15, @16, @17, @18, @19];
         VISA_CARD_LENGTH = @[@16, @19];
+        BRAND_RULES = @[
+            @[@(CardBrandAmericanExpress), @[@"34", @"37"]],
+            @[@(CardBrandVisa), @[@"4"]],
+            @[@(CardBrandMastercard), @[
+                @"2221", @"2222", @"2223", @"2224", @"2225", @"2226", @"2227", @"2228", @"2229",
+                @"223", @"224", @"225", @"226", @"227", @"228", @"229",
+                @"23", @"24", @"25", @"26",
+                @"270", @"271", @"2720",
+                @"50", @"51", @"52", @"53", @"54", @"55", @"67"
+            ]],
+            @[@(CardBrandMaestro), @[@"56", @"58", @"67", @"502", @"503", @"506", @"639", @"5018", @"6020"]],
+            @[@(CardBrandDiscover), @[@"60", @"64", @"65"]],
+            @[@(CardBrandJcb), @[@"35"]],
+            @[@(CardBrandDinersClub), @[@"300", @"301", @"302", @"303", @"304", @"305", @"309", @"36", @"38", @"39"]],
+            @[@(CardBrandUnionPay), @[@"62"]],
+            @[@(CardBrandTroy), @[
+                @"979200", @"979201", @"979202", @"979203", @"979204", @"979205",
+                @"979206", @"979207", @"979208", @"979209", @"979210", @"979211",
+                @"979212", @"979213"
+            ]]
+        ];
     }
 }
 
@@ -51,13 +77,85 @@ static NSArray<NSNumber *> *VISA_CARD_LENGTH;
     if (!pan || pan.length == 0) return NO;
     NSString *digits = [self digitsOnly:pan];
     
-    // Check length
-    if (digits.length < 12 || digits.length > 19) return NO;
+    // Check length, the same rules as Android
+    if (![self isValidLength:digits.length brand:[self possibleCardBrand:digits]]) return NO;
     
     // Luhn algorithm check
     return [self luhnCheck:digits];
 }
 
++ (BOOL)isValidLength:(NSUInteger)length brand:(CardBrandType)brand {
+    switch (brand) {
+        case CardBrandUnknown:
+            return NO;
+        case CardBrandAmericanExpress:
+            return length == LENGTH_AMERICAN_EXPRESS;
+        case CardBrandDinersClub:
+            return length == LENGTH_DINERS_CLUB;
+        case CardBrandMaestro:
+            return [MAESTRO_CARD_LENGTH containsObject:@(length)];
+        case CardBrandVisa:
+            return [VISA_CARD_LENGTH containsObject:@(length)];
+        case CardBrandUnionPay:
+            return length >= MIN_LENGTH_UNION_PAY && length <= MAX_LENGTH_UNION_PAY;
+        default:
+            return length == LENGTH_COMMON_CARD;
+    }
+}
+
++ (NSUInteger)maxLengthForBrand:(CardBrandType)brand {
+    switch (brand) {
+        case CardBrandUnknown:
+            return 0;
+        case CardBrandAmericanExpress:
+            return LENGTH_AMERICAN_EXPRESS;
+        case CardBrandDinersClub:
+            return LENGTH_DINERS_CLUB;
+        case CardBrandMaestro:
+            return [[MAESTRO_CARD_LENGTH lastObject] unsignedIntegerValue];
+        case CardBrandVisa:
+            return [[VISA_CARD_LENGTH lastObject] unsignedIntegerValue];
+        case CardBrandUnionPay:
+            return MAX_LENGTH_UNION_PAY;
+        default:
+            return LENGTH_COMMON_CARD;
+    }
+}
+
++ (NSUInteger)maxReachableLength:(NSString *)digits {
+    // until the BIN is complete the ranges it may still fall into decide
+    BinDatabase *database = [BinDatabase installed];
+    if (database && digits.length < [BinDatabase binDigits]) {
+        BOOL covered = NO;
+        NSSet<NSNumber *> *brands = [database brandsForPrefix:digits covered:&covered];
+        if (!brands) {
+            return [self maxLengthForBrand:CardBrandMaestro];
+        }
+        NSUInteger max = covered ? 0 : [self builtInMaxReachableLength:digits];
+        for (NSNumber *brand in brands) {
+            max = MAX(max, [self maxLengthForBrand:(CardBrandType)brand.integerValue]);
+        }
+        return max;
+    }
+    if (database) {
+        return [self maxLengthForBrand:[self possibleCardBrand:digits]];
+    }
+    return [self builtInMaxReachableLength:digits];
+}
+
++ (NSUInteger)builtInMaxReachableLength:(NSString *)digits {
+    NSUInteger max = [self maxLengthForBrand:[self builtInBrand:digits]];
+    // longer prefixes starting with digits, their brand is the one of the prefix itself
+    for (NSArray *rule in BRAND_RULES) {
+        for (NSString *prefix in rule[1]) {
+            if (prefix.length > digits.length && [prefix hasPrefix:digits]) {
+                max = MAX(max, [self maxLengthForBrand:[self builtInBrand:prefix]]);
+            }
+        }
+    }
+    return max;
+}
+
 + (BOOL)luhnCheck:(NSString *)cardNumber {
     NSInteger sum = 0;
     BOOL alternate = NO;
@@ -87,64 +185,21 @@ static NSArray<NSNumber *> *VISA_CARD_LENGTH;
     if (!pan || pan.length == 0) return CardBrandUnknown;
     NSString *digits = [self digitsOnly:pan];
     
-    // American Express
-    if ([self hasPrefix:digits prefixes:@[@"34", @"37"]]) {
-        return CardBrandAmericanExpress;
+    // Loaded BIN ranges take precedence over the built-in prefixes
+    CardBrandType databaseBrand = [BinDatabase brandForPan:digits];
+    if (databaseBrand != CardBrandUnknown) {
+        return databaseBrand;
     }
     
-    // Visa
-    if ([self hasPrefix:digits prefixes:@[@"4"]]) {
-        return CardBrandVisa;
-    }
-    
-    // Mastercard
-    NSArray *mastercardPrefixes = @[
-        @"2221", @"2222", @"2223", @"2224", @"2225", @"2226", @"2227", @"2228", @"2229",
-        @"223", @"224", @"225", @"226", @"227", @"228", @"229",
-        @"23", @"24", @"25", @"26",
-        @"270", @"271", @"2720",
-        @"50", @"51", @"52", @"53", @"54", @"55", @"67"
-    ];
-    if ([self hasPrefix:digits prefixes:mastercardPrefixes]) {
-        return CardBrandMastercard;
-    }
-    
-    // Maestro
-    if ([self hasPrefix:digits prefixes:@[@"56", @"58", @"67", @"502", @"503", @"506", @"639", @"5018", @"6020"]]) {
-        return CardBrandMaestro;
-    }
-    
-    // Discover
-    if ([self hasPrefix:digits prefixes:@[@"60", @"64", @"65"]]) {
-        return CardBrandDiscover;
-    }
-    
-    // JCB
-    if ([self hasPrefix:digits prefixes:@[@"35"]]) {
-        return CardBrandJcb;
-    }
-    
-    // Diners Club
-    NSArray *dinersClubPrefixes = @[@"300", @"301", @"302", @"303", @"304", @"305", @"309", @"36", @"38", @"39"];
-    if ([self hasPrefix:digits prefixes:dinersClubPrefixes]) {
-        return CardBrandDinersClub;
-    }
-    
-    // UnionPay
-    if ([self hasPrefix:digits prefixes:@[@"62"]]) {
-        return CardBrandUnionPay;
-    }
-    
-    // Troy
-    NSArray *troyPrefixes = @[
-        @"979200", @"979201", @"979202", @"979203", @"979204", @"979205",
-        @"979206", @"979207", @"979208", @"979209", @"979210", @"979211",
-        @"979212", @"979213"
-    ];
-    if ([self hasPrefix:digits prefixes:troyPrefixes]) {
-        return CardBrandTroy;
+    return [self builtInBrand:digits];
+}
+
++ (CardBrandType)builtInBrand:(NSString *)digits {
+    for (NSArray *rule in BRAND_RULES) {
+        if ([self hasPrefix:digits prefixes:rule[1]]) {
+            return [rule[0] integerValue];
+        }
     }
-    
     return CardBrandUnknown;
 }
 
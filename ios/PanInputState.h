@@ -0,0 +1,25 @@
+#import <Foundation/Foundation.h>
+#import "CardBrand.h"
+
+NS_ASSUME_NONNULL_BEGIN
+
+// Validation state of a card number field, updated digit by digit as the user
+// types, like PanInputState.java. Luhn sums for both parities are kept per
+// prefix length, so an edit at the end only recomputes the changed digits.
+// Results match CardUtils isValidPan: and possibleCardBrand: for the digits
+// entered so far. Not thread safe, callers synchronize.
+@interface PanInputState : NSObject
+
+// Replaces the digits with the ones of text, other characters are skipped
+- (void)update:(NSString *)text;
+
+// Deletes count digits from the end, then appends the digits of text
+- (void)deleteCount:(NSUInteger)count append:(NSString *)text;
+
+// length, brand, luhnValid, lengthValid, valid and canBecomeValid in the
+// shape of PanInputResult in index.tsx
+- (NSDictionary *)result;
+
+@end
+
+NS_ASSUME_NONNULL_END
\ No newline at end of file
@@ -0,0 +1,85 @@
+#import "PanInputState.h"
+#import "CardUtils.h"
+
+static const NSUInteger kMaxLength = 19;
+
+@implementation PanInputState {
+    unichar _digits[kMaxLength];
+    // Luhn sums of the first i digits, doubling the digits at even resp. odd positions from the left
+    NSUInteger _evenDoubledSums[kMaxLength + 1];
+    NSUInteger _oddDoubledSums[kMaxLength + 1];
+    NSUInteger _length;
+    // digits typed past kMaxLength, not stored but they make the number invalid
+    NSUInteger _overflow;
+}
+
+- (void)append:(unichar)c {
+    if (_length == kMaxLength) {
+        _overflow++;
+        return;
+    }
+    
+    NSUInteger value = c - '0';
+    NSUInteger doubled = value < 5 ? value * 2 : value * 2 - 9;
+    BOOL even = (_length & 1) == 0;
+    _evenDoubledSums[_length + 1] = _evenDoubledSums[_length] + (even ? doubled : value);
+    _oddDoubledSums[_length + 1] = _oddDoubledSums[_length] + (even ? value : doubled);
+    _digits[_length++] = c;
+}
+
+- (void)appendDigitsOf:(NSString *)text from:(NSUInteger)index {
+    for (NSUInteger i = index; i < text.length; i++) {
+        unichar c = [text characterAtIndex:i];
+        if (c >= '0' && c <= '9') {
+            [self append:c];
+        }
+    }
+}
+
+- (void)update:(NSString *)text {
+    // keeps the digits up to the first one that differs
+    NSUInteger same = 0;
+    NSUInteger i = 0;
+    for (; i < text.length && same < _length; i++) {
+        unichar c = [text characterAtIndex:i];
+        if (c < '0' || c > '9') {
+            continue;
+        }
+        if (c != _digits[same]) {
+            break;
+        }
+        same++;
+    }
+    
+    _length = same;
+    _overflow = 0;
+    [self appendDigitsOf:text from:i];
+}
+
+- (void)deleteCount:(NSUInteger)count append:(NSString *)text {
+    NSUInteger fromOverflow = MIN(count, _overflow);
+    _overflow -= fromOverflow;
+    _length -= MIN(count - fromOverflow, _length);
+    [self appendDigitsOf:text from:0];
+}
+
+- (NSDictionary *)result {
+    NSString *digits = [NSString stringWithCharacters:_digits length:_length];
+    CardBrandType brand = [CardUtils possibleCardBrand:digits];
+    NSUInteger sum = (_length & 1) == 0 ? _evenDoubledSums[_length] : _oddDoubledSums[_length];
+    BOOL luhnValid = _length > 0 && _overflow == 0 && sum % 10 == 0;
+    BOOL lengthValid = _overflow == 0 && [CardUtils isValidLength:_length brand:brand];
+    BOOL valid = luhnValid && lengthValid;
+    // the last digit can always fix the Luhn check, so this depends on the brands still reachable
+    BOOL canBecomeValid = _overflow == 0 && (valid || [CardUtils maxReachableLength:digits] > _length);
+    return @{
+        @"length": @(_length + _overflow),
+        @"brand": [CardBrand stringValueForBrand:brand],
+        @"luhnValid": @(luhnValid),
+        @"lengthValid": @(lengthValid),
+        @"valid": @(valid),
+        @"canBecomeValid": @(canBecomeValid)
+    };
+}
+
+@end
\ No newline at end of file
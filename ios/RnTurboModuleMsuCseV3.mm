@@ -1,5 +1,8 @@
 #import "RnTurboModuleMsuCseV3.h"
 #import "RnTurboModuleMsuCseV3Impl.h"
+#import "CardBrand.h"
+#import "CardUtils.h"
+#import "CSE.h"
 
 @implementation RnTurboModuleMsuCseV3
 
@@ -14,8 +17,14 @@ RnTurboModuleMsuCseV3Impl *implementation = [[RnTurboModuleMsuCseV3Impl alloc] i
     return std::make_shared<facebook::react::NativeRnTurboModuleMsuCseV3SpecJSI>(params);
 }
 
-- (void)initialize:(BOOL)developmentMode {
-    [implementation initializeWithDevelopmentMode:developmentMode];
+- (void)initialize:(BOOL)developmentMode options:(NSDictionary *)options {
+    [implementation initializeWithDevelopmentMode:developmentMode options:options];
+}
+
+- (void)whenReady:(RCTPromiseResolveBlock)resolve
+           reject:(RCTPromiseRejectBlock)reject {
+    
+    [implementation whenReadyWithResolve:resolve reject:reject];
 }
 
 - (void)encrypt:(NSString *)pan
@@ -48,6 +57,15 @@ RnTurboModuleMsuCseV3Impl *implementation = [[RnTurboModuleMsuCseV3Impl alloc] i
                                reject:reject];
 }
 
+- (void)encryptBatch:(NSArray *)items
+             resolve:(RCTPromiseResolveBlock)resolve
+              reject:(RCTPromiseRejectBlock)reject {
+    
+    [implementation encryptBatchWithItems:items
+                                  resolve:resolve
+                                   reject:reject];
+}
+
 - (void)isValidPan:(NSString *)pan
            resolve:(RCTPromiseResolveBlock)resolve
             reject:(RCTPromiseRejectBlock)reject {
@@ -98,6 +116,74 @@ RnTurboModuleMsuCseV3Impl *implementation = [[RnTurboModuleMsuCseV3Impl alloc] i
     resolve(@(isValid));
 }
 
+// Synchronous validators call the pure card rules directly, they don't need initialize()
+
+- (NSNumber *)isValidPanSync:(NSString *)pan {
+    return @([CardUtils isValidPan:pan]);
+}
+
+- (NSNumber *)isValidCVVSync:(NSString *)cvv pan:(NSString *)pan {
+    return @(pan ? [CardUtils isValidCVV:cvv pan:pan] : [CardUtils isValidCVV:cvv]);
+}
+
+- (NSNumber *)isValidCardHolderNameSync:(NSString *)name {
+    return @([CardUtils isValidCardHolderName:name]);
+}
+
+- (NSNumber *)isValidCardTokenSync:(NSString *)token {
+    return @([CardUtils isValidCardToken:token]);
+}
+
+- (NSNumber *)isValidExpirySync:(double)month year:(double)year {
+    return @([CardUtils isValidExpiryWithMonth:(NSInteger)month year:(NSInteger)year]);
+}
+
+- (NSString *)detectBrandSync:(NSString *)pan {
+    return [CardBrand stringValueForBrand:[CardUtils possibleCardBrand:pan]];
+}
+
+- (NSDictionary *)validateCard:(NSString *)pan
+                cardHolderName:(NSString *)cardHolderName
+                    expiryYear:(double)expiryYear
+                   expiryMonth:(double)expiryMonth
+                           cvv:(NSString *)cvv
+                         nonce:(NSString *)nonce {
+    return [CSE validateCardWithPan:pan
+                     cardHolderName:cardHolderName
+                         expiryYear:(NSInteger)expiryYear
+                        expiryMonth:(NSInteger)expiryMonth
+                                cvv:cvv
+                              nonce:nonce];
+}
+
+- (NSNumber *)createPanInput {
+    return [implementation createPanInput];
+}
+
+- (NSDictionary *)updatePanInput:(double)id text:(NSString *)text {
+    return [implementation updatePanInput:(NSInteger)id text:text];
+}
+
+- (NSDictionary *)editPanInput:(double)id
+                   deleteCount:(double)deleteCount
+                        digits:(NSString *)digits {
+    return [implementation editPanInput:(NSInteger)id deleteCount:(NSInteger)deleteCount digits:digits];
+}
+
+- (void)releasePanInput:(double)id {
+    [implementation releasePanInput:(NSInteger)id];
+}
+
+- (void)loadBinDatabase:(NSString *)path
+                resolve:(RCTPromiseResolveBlock)resolve
+                 reject:(RCTPromiseRejectBlock)reject {
+    [implementation loadBinDatabaseWithPath:path resolve:resolve reject:reject];
+}
+
+- (NSDictionary * _Nullable)lookupBin:(NSString *)pan {
+    return [implementation lookupBin:pan];
+}
+
 - (void)getErrors:(RCTPromiseResolveBlock)resolve
            reject:(RCTPromiseRejectBlock)reject {
     
@@ -112,4 +198,10 @@ RnTurboModuleMsuCseV3Impl *implementation = [[RnTurboModuleMsuCseV3Impl alloc] i
     resolve(@(hasErrors));
 }
 
+- (void)getMetrics:(RCTPromiseResolveBlock)resolve
+            reject:(RCTPromiseRejectBlock)reject {
+    
+    [implementation getMetricsWithResolve:resolve reject:reject];
+}
+
 @end
\ No newline at end of file
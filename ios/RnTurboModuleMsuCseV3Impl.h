@@ -10,7 +10,10 @@ NS_ASSUME_NONNULL_BEGIN
 @property (nonatomic, strong, nullable) CSE *cseInstance;
 @property (nonatomic, assign) BOOL isDevelopmentMode;
 
-- (void)initializeWithDevelopmentMode:(BOOL)developmentMode;
+- (void)initializeWithDevelopmentMode:(BOOL)developmentMode options:(nullable NSDictionary *)options;
+
+- (void)whenReadyWithResolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject;
 
 - (void)encryptWithPan:(NSString *)pan
         cardHolderName:(NSString *)cardHolderName
@@ -26,6 +29,10 @@ NS_ASSUME_NONNULL_BEGIN
                   resolve:(RCTPromiseResolveBlock)resolve
                    reject:(RCTPromiseRejectBlock)reject;
 
+- (void)encryptBatchWithItems:(NSArray<NSDictionary *> *)items
+                      resolve:(RCTPromiseResolveBlock)resolve
+                       reject:(RCTPromiseRejectBlock)reject;
+
 - (BOOL)isValidPan:(NSString *)pan;
 
 - (BOOL)isValidCVV:(NSString *)cvv pan:(nullable NSString *)pan;
@@ -38,10 +45,27 @@ NS_ASSUME_NONNULL_BEGIN
 
 - (BOOL)isValidCardToken:(NSString *)token;
 
+- (NSNumber *)createPanInput;
+
+- (NSDictionary *)updatePanInput:(NSInteger)inputId text:(NSString *)text;
+
+- (NSDictionary *)editPanInput:(NSInteger)inputId deleteCount:(NSInteger)deleteCount digits:(NSString *)digits;
+
+- (void)releasePanInput:(NSInteger)inputId;
+
+- (void)loadBinDatabaseWithPath:(NSString *)path
+                        resolve:(RCTPromiseResolveBlock)resolve
+                         reject:(RCTPromiseRejectBlock)reject;
+
+- (nullable NSDictionary *)lookupBin:(NSString *)pan;
+
 - (NSArray<NSString *> *)getErrors;
 
 - (BOOL)hasErrors;
 
+- (void)getMetricsWithResolve:(RCTPromiseResolveBlock)resolve
+                       reject:(RCTPromiseRejectBlock)reject;
+
 @end
 
 NS_ASSUME_NONNULL_END
\ No newline at end of file
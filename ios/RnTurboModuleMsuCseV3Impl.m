@@ -1,20 +1,45 @@
 #import "RnTurboModuleMsuCseV3Impl.h"
+#import "BinDatabase.h"
 #import "CSE.h"
 #import "CardBrand.h"
+#import "CardUtils.h"
+#import "PanInputState.h"
 
-@implementation RnTurboModuleMsuCseV3Impl
+@implementation RnTurboModuleMsuCseV3Impl {
+    NSMutableDictionary<NSNumber *, PanInputState *> *_panInputs;
+    NSInteger _nextPanInputId;
+}
 
 - (instancetype)init {
     if (self = [super init]) {
         self.isDevelopmentMode = NO;
         self.cseInstance = nil;
+        _panInputs = [NSMutableDictionary dictionary];
+        _nextPanInputId = 0;
     }
     return self;
 }
 
-- (void)initializeWithDevelopmentMode:(BOOL)developmentMode {
+- (void)initializeWithDevelopmentMode:(BOOL)developmentMode options:(nullable NSDictionary *)options {
     self.isDevelopmentMode = developmentMode;
-    self.cseInstance = [[CSE alloc] initWithDevelopmentMode:developmentMode];
+    self.cseInstance = [[CSE alloc] initWithDevelopmentMode:developmentMode options:options];
+}
+
+- (void)whenReadyWithResolve:(RCTPromiseResolveBlock)resolve
+                      reject:(RCTPromiseRejectBlock)reject {
+    
+    if (!self.cseInstance) {
+        reject(@"NOT_INITIALIZED", @"CSE Module not initialized. Call initialize() first.", nil);
+        return;
+    }
+    
+    [self.cseInstance whenReady:^(NSError * _Nullable error) {
+        if (error) {
+            reject(@"REQUEST_FAILED", error.localizedDescription, error);
+        } else {
+            resolve(@YES);
+        }
+    }];
 }
 
 - (void)encryptWithPan:(NSString *)pan
@@ -65,6 +90,20 @@
                                     }];
 }
 
+- (void)encryptBatchWithItems:(NSArray<NSDictionary *> *)items
+                      resolve:(RCTPromiseResolveBlock)resolve
+                       reject:(RCTPromiseRejectBlock)reject {
+    
+    if (!self.cseInstance) {
+        reject(@"NOT_INITIALIZED", @"CSE Module not initialized. Call initialize() first.", nil);
+        return;
+    }
+    
+    [self.cseInstance encryptBatch:items completion:^(NSArray<NSDictionary *> *results) {
+        resolve(results);
+    }];
+}
+
 - (BOOL)isValidPan:(NSString *)pan {
     if (!self.cseInstance) {
         return NO;
@@ -113,6 +152,63 @@
     return [self.cseInstance isValidCardToken:token];
 }
 
+- (NSNumber *)createPanInput {
+    @synchronized (_panInputs) {
+        NSNumber *inputId = @(++_nextPanInputId);
+        _panInputs[inputId] = [[PanInputState alloc] init];
+        return inputId;
+    }
+}
+
+- (NSDictionary *)updatePanInput:(NSInteger)inputId text:(NSString *)text {
+    @synchronized (_panInputs) {
+        PanInputState *state = [self panInput:inputId];
+        [state update:text];
+        return [state result];
+    }
+}
+
+- (NSDictionary *)editPanInput:(NSInteger)inputId deleteCount:(NSInteger)deleteCount digits:(NSString *)appended {
+    @synchronized (_panInputs) {
+        PanInputState *state = [self panInput:inputId];
+        [state deleteCount:(NSUInteger)MAX(deleteCount, 0) append:appended];
+        return [state result];
+    }
+}
+
+- (void)releasePanInput:(NSInteger)inputId {
+    @synchronized (_panInputs) {
+        [_panInputs removeObjectForKey:@(inputId)];
+    }
+}
+
+- (PanInputState *)panInput:(NSInteger)inputId {
+    PanInputState *state = _panInputs[@(inputId)];
+    if (!state) {
+        @throw [NSException exceptionWithName:NSInvalidArgumentException
+                                       reason:[NSString stringWithFormat:@"Unknown pan input %ld, create it with createPanInput()", (long)inputId]
+                                     userInfo:nil];
+    }
+    return state;
+}
+
+- (void)loadBinDatabaseWithPath:(NSString *)path
+                        resolve:(RCTPromiseResolveBlock)resolve
+                         reject:(RCTPromiseRejectBlock)reject {
+    NSError *error = nil;
+    BinDatabase *database = [BinDatabase databaseWithPath:path error:&error];
+    if (!database) {
+        reject(@"BIN_DATABASE_INVALID", error.localizedDescription, error);
+        return;
+    }
+    [BinDatabase install:database];
+    resolve(@(database.version));
+}
+
+- (nullable NSDictionary *)lookupBin:(NSString *)pan {
+    return [[BinDatabase installed] lookup:pan];
+}
+
 - (NSArray<NSString *> *)getErrors {
     if (!self.cseInstance) {
         return @[@"CSE Module not initialized"];
@@ -127,4 +223,15 @@
     return [self.cseInstance hasErrors];
 }
 
+- (void)getMetricsWithResolve:(RCTPromiseResolveBlock)resolve
+                       reject:(RCTPromiseRejectBlock)reject {
+    
+    if (!self.cseInstance) {
+        reject(@"NOT_INITIALIZED", @"CSE Module not initialized. Call initialize() first.", nil);
+        return;
+    }
+    
+    resolve([self.cseInstance metrics]);
+}
+
 @end
\ No newline at end of file
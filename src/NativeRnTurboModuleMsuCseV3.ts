@@ -1,10 +1,19 @@
 import type {TurboModule} from 'react-native';
 import {TurboModuleRegistry} from 'react-native';
+import type {UnsafeObject} from 'react-native/Libraries/Types/CodegenTypes';
 
 export interface Spec extends TurboModule {
-  initialize(developmentMode: boolean): void;
+  // options: see InitializeOptions in index.tsx
+  initialize(developmentMode: boolean, options?: UnsafeObject): void;
   
-  // Main encryption method
+  // Resolves once the public key is fetched and encryption is initialized,
+  // starting the warm-up if initialize() didn't. The warm-up runs again once
+  // the key it used expires, rotates or is invalidated. iOS only fetches the
+  // key, a failed fetch rejects with REQUEST_FAILED
+  whenReady(): Promise<boolean>;
+
+  // Main encryption method. Rejects with VALIDATION_FAILED for an invalid
+  // card, on Android the failed fields are in error.userInfo.errors
   encrypt(
     pan: string,
     cardHolderName: string,
@@ -20,6 +29,10 @@ export interface Spec extends TurboModule {
     nonce: string
   ): Promise<string>;
   
+  // Encrypts many cards or CVVs in one call, see EncryptBatchItem and
+  // EncryptBatchResult in index.tsx. Items without a pan are CVV-only.
+  encryptBatch(items: UnsafeObject[]): Promise<UnsafeObject[]>;
+
   // Validation methods (matching original CSE API)
   isValidPan(pan: string): Promise<boolean>;
   
@@ -32,11 +45,64 @@ export interface Spec extends TurboModule {
   isValidExpiry(month: number, year: number): Promise<boolean>;
   
   detectBrand(pan: string): Promise<string>;
+
+  // Synchronous variants of the validators above, they return the result
+  // directly over JSI and work without initialize()
+  isValidPanSync(pan: string): boolean;
+
+  isValidCVVSync(cvv: string, pan?: string): boolean;
+
+  isValidCardHolderNameSync(name: string): boolean;
+
+  isValidCardTokenSync(token: string): boolean;
+
+  isValidExpirySync(month: number, year: number): boolean;
+
+  // Returns UNKNOWN for a blank pan
+  detectBrandSync(pan: string): string;
+
+  // Checks every card field with the encrypt() rules in one synchronous call,
+  // see CardValidationResult in index.tsx. Doesn't change getErrors().
+  validateCard(
+    pan: string,
+    cardHolderName: string,
+    expiryYear: number,
+    expiryMonth: number,
+    cvv: string,
+    nonce: string
+  ): UnsafeObject;
+
+  // Incremental card number validation for input fields, synchronous so it
+  // can run on every keystroke. The update methods return a PanInputResult,
+  // see index.tsx.
+  createPanInput(): number;
+
+  // Replaces the field text, non-digits are skipped and only digits after the
+  // first change are rechecked
+  updatePanInput(id: number, text: string): UnsafeObject;
+
+  // Deletes deleteCount digits from the end, then appends digits
+  editPanInput(id: number, deleteCount: number, digits: string): UnsafeObject;
+
+  releasePanInput(id: number): void;
+
+  // Memory-maps a BIN range file and uses it for brand detection from now on,
+  // replacing the one loaded before. Resolves with the dataset version. On
+  // Android, UNION_PAY is only detected through a loaded database.
+  loadBinDatabase(path: string): Promise<number>;
+
+  // Issuer details of the range holding pan, see BinInfo in index.tsx. null
+  // without a loaded database or if no range holds pan.
+  lookupBin(pan: string): UnsafeObject | null;
   
   // Error handling (from original CSE)
   getErrors(): Promise<string[]>;
   
   hasErrors(): Promise<boolean>;
+
+  // Timings, counters and failures recorded since initialize(), see
+  // CSEMetrics in index.tsx
+  getMetrics(): Promise<UnsafeObject>;
 }
 
 export default TurboModuleRegistry.getEnforcing<Spec>('RnTurboModuleMsuCseV3');
\ No newline at end of file
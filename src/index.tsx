@@ -1,7 +1,141 @@
 import RnTurboModuleMsuCseV3 from './NativeRnTurboModuleMsuCseV3';
 
+// iOS honors warmUp, publicKeyEndpoint and the key fetch timeouts, it ignores
+// the options marked Android only. An invalid value, e.g. encryptionThreads: 0
+// or an unknown rejectionPolicy, is ignored with a warning in the native log
+// and the default applies
+export interface InitializeOptions {
+  // Threads running RSA encryption, default 2. Android only
+  encryptionThreads?: number;
+  // Encryptions waiting for a free thread, default 32. Android only
+  encryptionQueueSize?: number;
+  // What to do when the queue is full, default 'abort'. Android only
+  rejectionPolicy?: 'abort' | 'callerRuns' | 'discardOldest';
+  // Threads fetching the public key, kept apart from encryption threads,
+  // default 2. Android only
+  keyFetchThreads?: number;
+  // Fetch the public key and initialize encryption in the background right
+  // away, see whenReady(), default false
+  warmUp?: boolean;
+  // Keep the public key on disk so encryption after a restart doesn't wait
+  // for the network, default false. Android only
+  persistPublicKey?: boolean;
+  // Age after which the public key is still used but refreshed in the
+  // background, default 1h. Android only, iOS keeps the key until the next
+  // initialize()
+  publicKeyRefreshAfterMillis?: number;
+  // Age after which the public key is no longer used and encryptions wait
+  // for a new one, default 24h. Android only
+  publicKeyTtlMillis?: number;
+  // Timeouts of a public key request, default 10s each. iOS has no separate
+  // connect timeout: the read timeout bounds the time without data, both
+  // together bound the whole request
+  keyFetchConnectTimeoutMillis?: number;
+  keyFetchReadTimeoutMillis?: number;
+  // Retries of a public key request that failed in transport, timed out or
+  // got a 5xx, 408 or 429. Other responses aren't retried. Default 2.
+  // Android only
+  keyFetchMaxRetries?: number;
+  // Upper bound of the first retry delay, doubled per retry and jittered,
+  // default 250ms. Android only
+  keyFetchRetryBackoffMillis?: number;
+  // Send a second public key request if the first is slower than this,
+  // default 0 (disabled). Android only
+  keyFetchHedgeAfterMillis?: number;
+  // Bound of a public key fetch including retries, backoff and hedged
+  // requests, default 30s. Android only
+  keyFetchTotalTimeoutMillis?: number;
+  // Public key URL, overrides the test/production endpoint picked by
+  // developmentMode. Must be https, plain http only on localhost or
+  // 127.0.0.1 for a local stand-in
+  publicKeyEndpoint?: string;
+  // 'rsa' encrypts the payload with RSA-OAEP and fails validation with
+  // PAYLOAD_TOO_LARGE above what the public key takes, 190 bytes for a 2048
+  // bit key. 'envelope' wraps a random AES key with
+  // RSA and encrypts with AES-GCM, one wrapped key per encryptBatch() call.
+  // The server has to support the envelope format. Android only, default 'rsa'
+  encryptionMode?: 'rsa' | 'envelope';
+}
+
+export interface EncryptBatchItem {
+  // Omit pan to encrypt only cvv and nonce
+  pan?: string;
+  cardHolderName?: string;
+  expiryYear?: number;
+  expiryMonth?: number;
+  cvv: string;
+  nonce: string;
+}
+
+export interface EncryptBatchResult {
+  // Position of the item in the submitted list
+  index: number;
+  encrypted?: string;
+  errorCode?: string;
+  errorMessage?: string;
+  // Validation errors when errorCode is VALIDATION_FAILED
+  errors?: string[];
+}
+
+export interface CardValidationResult {
+  valid: boolean;
+  brand: string;
+  // Per field validity
+  pan: boolean;
+  expiry: boolean;
+  cardHolderName: boolean;
+  cvv: boolean;
+  nonce: boolean;
+  // Error codes as getErrors() reports them after a failed encrypt()
+  errors: string[];
+}
+
+export interface PanInputResult {
+  // Digits entered so far
+  length: number;
+  brand: string;
+  luhnValid: boolean;
+  lengthValid: boolean;
+  valid: boolean;
+  // false once no further digits can make the number valid
+  canBecomeValid: boolean;
+}
+
+export interface BinInfo {
+  // Brand of the range, or of the built-in rules if the dataset has none
+  brand: string;
+  // CREDIT, DEBIT, PREPAID or UNKNOWN
+  cardType: string;
+  // ISO 3166-1 alpha-2 code of the issuer
+  country?: string | null;
+  issuer?: string | null;
+}
+
+export interface PhaseMetrics {
+  count: number;
+  // Milliseconds, percentiles are accurate to about 6%
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+}
+
+export interface CSEMetrics {
+  // validation, keyFetch, keyParse, cipherInit, keyWrap, encryption,
+  // callbackDispatch, total and batchTotal. keyWrap is only recorded in
+  // envelope mode. iOS times key parsing as part of encryption and
+  // computes percentiles over the last 1024 samples of each phase.
+  phases: Record<string, PhaseMetrics>;
+  // keyCacheHit, keyCacheMiss, keyRestored, cipherCacheHit, cipherCacheMiss
+  counters: Record<string, number>;
+  // Failed encryptions and batch items per error code
+  failures: Record<string, number>;
+}
+
 export interface MSUCSEModule {
-  initialize(developmentMode: boolean): void;
+  initialize(developmentMode: boolean, options?: InitializeOptions): void;
+  whenReady(): Promise<boolean>;
   encrypt(
     pan: string,
     cardHolderName: string,
@@ -10,10 +144,36 @@ export interface MSUCSEModule {
     cvv: string,
     nonce: string
   ): Promise<string>;
+  encryptBatch(items: EncryptBatchItem[]): Promise<EncryptBatchResult[]>;
   isValidPan(pan: string): Promise<boolean>;
   isValidCVV(cvv: string, pan?: string): Promise<boolean>;
   isValidExpiry(month: number, year: number): Promise<boolean>;
   detectBrand(pan: string): Promise<string>;
+  isValidPanSync(pan: string): boolean;
+  isValidCVVSync(cvv: string, pan?: string): boolean;
+  isValidCardHolderNameSync(name: string): boolean;
+  isValidCardTokenSync(token: string): boolean;
+  isValidExpirySync(month: number, year: number): boolean;
+  detectBrandSync(pan: string): string;
+  validateCard(
+    pan: string,
+    cardHolderName: string,
+    expiryYear: number,
+    expiryMonth: number,
+    cvv: string,
+    nonce: string
+  ): CardValidationResult;
+  createPanInput(): number;
+  updatePanInput(id: number, text: string): PanInputResult;
+  editPanInput(
+    id: number,
+    deleteCount: number,
+    digits: string
+  ): PanInputResult;
+  releasePanInput(id: number): void;
+  loadBinDatabase(path: string): Promise<number>;
+  lookupBin(pan: string): BinInfo | null;
+  getMetrics(): Promise<CSEMetrics>;
 }
 
 export default RnTurboModuleMsuCseV3 as MSUCSEModule;
\ No newline at end of file